@@ -0,0 +1,39 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 虚拟电厂整体汇总配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.aggregation")
+@Data
+public class AggregationProperties {
+
+    /**
+     * 计入发电功率的设备类型，逆变器接在光伏之后时可去掉 INVERTER 避免重复计算
+     */
+    private Set<VppDevice.DeviceType> generationTypes = EnumSet.of(
+            VppDevice.DeviceType.SOLAR_PANEL, VppDevice.DeviceType.WIND_TURBINE, VppDevice.DeviceType.INVERTER);
+
+    /**
+     * 汇总曲线的采样周期（毫秒）
+     */
+    private long sampleInterval = 60000;
+
+    /**
+     * 内存中保留的曲线点数，默认按1分钟采样保留一天
+     */
+    private int historySize = 1440;
+
+    /**
+     * 由各设备贡献值重新求和的周期（毫秒），消除增量更新累积的浮点误差
+     */
+    private long resumInterval = 300000;
+}
@@ -0,0 +1,44 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 历史数据回填配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.backfill")
+@Data
+public class BackfillProperties {
+
+    /**
+     * 并行生成与写入的线程数，模拟回填时每个线程一次处理一台设备
+     */
+    private int threads = 4;
+
+    /**
+     * 每次JDBC批量写入的记录数
+     */
+    private int batchSize = 5000;
+
+    /**
+     * 模拟回填的默认采样间隔（秒）
+     */
+    private int defaultStepSeconds = 60;
+
+    /**
+     * 单次模拟回填允许的最大天数
+     */
+    private int maxDays = 366;
+
+    /**
+     * 是否同时计入降采样汇总表，关闭后降采样曲线查询看不到回填数据
+     */
+    private boolean rollup = true;
+
+    /**
+     * 是否在 raw_data 中保存JSON原文
+     */
+    private boolean rawJson = false;
+}
@@ -0,0 +1,46 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 设备/网关熔断配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.circuit-breaker")
+@Data
+public class CircuitBreakerProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 设备连续失败达到该次数后进入隔离
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 同一网关下连续失败（任意从站）达到该次数后整个网关进入隔离
+     */
+    private int gatewayFailureThreshold = 10;
+
+    /**
+     * 首次隔离时长（毫秒）
+     */
+    private long backoffInitial = 30000;
+
+    /**
+     * 隔离时长上限（毫秒）
+     */
+    private long backoffMax = 1800000;
+
+    /**
+     * 探测失败后隔离时长的增长倍数
+     */
+    private double backoffMultiplier = 2.0;
+
+    /**
+     * 探测未在该时间内报告结果时允许再次探测（毫秒）
+     */
+    private long probeTimeout = 60000;
+}
@@ -4,9 +4,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.virtualpowerplantback.entity.VppDevice;
 import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.example.virtualpowerplantback.service.DeviceRegistry;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 /**
  * 数据初始化器
  * 在应用启动时创建一些测试设备
@@ -18,6 +22,8 @@ public class DataInitializer implements CommandLineRunner {
     
     private final VppDeviceRepository deviceRepository;
     
+    private final DeviceRegistry deviceRegistry;
+    
     @Override
     public void run(String... args) throws Exception {
         if (deviceRepository.count() == 0) {
@@ -39,7 +45,6 @@ public class DataInitializer implements CommandLineRunner {
         electricMeter.setStatus(VppDevice.DeviceStatus.OFFLINE);
         electricMeter.setEnabled(true);
         electricMeter.setDescription("主要用于监测用电量和电能质量");
-        deviceRepository.save(electricMeter);
         
         // 创建测试储能设备
         VppDevice energyStorage = new VppDevice();
@@ -51,7 +56,7 @@ public class DataInitializer implements CommandLineRunner {
         energyStorage.setStatus(VppDevice.DeviceStatus.OFFLINE);
         energyStorage.setEnabled(true);
         energyStorage.setDescription("锂电池储能系统，容量100MWh");
-        deviceRepository.save(energyStorage);
+        energyStorage.setRatedCapacity(new BigDecimal("100000"));
         
         // 创建测试光伏设备
         VppDevice solarPanel = new VppDevice();
@@ -63,7 +68,6 @@ public class DataInitializer implements CommandLineRunner {
         solarPanel.setStatus(VppDevice.DeviceStatus.OFFLINE);
         solarPanel.setEnabled(true);
         solarPanel.setDescription("单晶硅光伏板，装机容量50kW");
-        deviceRepository.save(solarPanel);
         
         // 创建测试逆变器
         VppDevice inverter = new VppDevice();
@@ -75,7 +79,6 @@ public class DataInitializer implements CommandLineRunner {
         inverter.setStatus(VppDevice.DeviceStatus.OFFLINE);
         inverter.setEnabled(true);
         inverter.setDescription("三相并网逆变器，额定功率50kW");
-        deviceRepository.save(inverter);
         
         // 创建测试风机
         VppDevice windTurbine = new VppDevice();
@@ -87,7 +90,6 @@ public class DataInitializer implements CommandLineRunner {
         windTurbine.setStatus(VppDevice.DeviceStatus.OFFLINE);
         windTurbine.setEnabled(true);
         windTurbine.setDescription("水平轴风力发电机，额定功率10kW");
-        deviceRepository.save(windTurbine);
         
         // 创建测试负荷控制器
         VppDevice loadController = new VppDevice();
@@ -99,8 +101,11 @@ public class DataInitializer implements CommandLineRunner {
         loadController.setStatus(VppDevice.DeviceStatus.OFFLINE);
         loadController.setEnabled(true);
         loadController.setDescription("可控负荷设备，最大负荷20kW");
-        deviceRepository.save(loadController);
         
-        log.info("创建了{}个测试设备", 6);
+        // 一次保存全部测试设备
+        List<VppDevice> devices = deviceRepository.saveAll(List.of(
+                electricMeter, energyStorage, solarPanel, inverter, windTurbine, loadController));
+        deviceRegistry.invalidateAll();
+        log.info("创建了{}个测试设备", devices.size());
     }
 } 
\ No newline at end of file
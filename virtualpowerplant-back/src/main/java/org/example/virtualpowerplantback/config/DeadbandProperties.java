@@ -0,0 +1,34 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按变化上报（死区过滤）配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.deadband")
+@Data
+public class DeadbandProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 按测点名称设置的死区（绝对值），与上次入库值之差超过死区才入库
+     */
+    private Map<String, Double> metrics = new LinkedHashMap<>();
+
+    /**
+     * 未配置测点的死区，0表示值有任何变化都入库
+     */
+    private double defaultDeadband = 0;
+
+    /**
+     * 最长静默时间（秒），距上次入库超过该时间即使没有变化也入库一次，0表示不限制
+     */
+    private long maxSilenceSeconds = 900;
+}
@@ -0,0 +1,35 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Modbus网关配置
+ * 同一网关（ip:port）下的多个从站共用一条TCP连接，请求通过事务ID流水线复用
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.modbus.gateway")
+@Data
+public class GatewayProperties {
+
+    /**
+     * 单个网关默认允许的最大未完成请求数
+     */
+    private int maxOutstanding = 8;
+
+    /**
+     * 按网关单独设置的最大未完成请求数，key为 ip:port
+     */
+    private Map<String, Integer> limits = new HashMap<>();
+
+    /**
+     * 获取指定网关的最大未完成请求数
+     */
+    public int maxOutstandingFor(String gatewayKey) {
+        return Math.max(1, limits.getOrDefault(gatewayKey, maxOutstanding));
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地时序存储配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.local-store")
+@Data
+public class LocalStoreProperties {
+
+    /**
+     * 运行方式
+     */
+    public enum Mode {
+        /**
+         * 本地存储作为热数据主存储，采集样本不再写入 device_data，原始历史查询读本地存储
+         */
+        PRIMARY,
+        /**
+         * 本地存储作为持久化缓冲，后台按顺序回放写入 device_data，回放完成的分段删除
+         */
+        BUFFER
+    }
+
+    private boolean enabled = false;
+
+    private Mode mode = Mode.BUFFER;
+
+    /**
+     * 分段文件目录
+     */
+    private String directory = "data/local-store";
+
+    /**
+     * 单个分段文件大小（MB）
+     */
+    private int segmentSizeMb = 64;
+
+    /**
+     * 将映射内存刷到磁盘的周期（毫秒），进程崩溃不丢数据，该值决定掉电时最多丢失的时间窗口
+     */
+    private long forceInterval = 1000;
+
+    /**
+     * BUFFER模式下回放周期（毫秒）与单批回放记录数
+     */
+    private long replayInterval = 1000;
+
+    private int replayBatchSize = 1000;
+
+    /**
+     * PRIMARY模式下本地保留的小时数，超出后按分段整体删除
+     */
+    private int retentionHours = 48;
+
+    public int segmentBytes() {
+        return Math.max(1, Math.min(1024, segmentSizeMb)) * 1024 * 1024;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按设备自适应轮询配置
+ * 基准间隔优先取 devices 中按设备ID的配置，其次取 device-types，最后使用 vpp.modbus.collection-interval
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.polling")
+@Data
+public class PollingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 按设备类型设置的基准轮询间隔（秒）
+     */
+    private Map<VppDevice.DeviceType, Integer> deviceTypes = new EnumMap<>(VppDevice.DeviceType.class);
+
+    /**
+     * 按设备ID设置的基准轮询间隔（秒）
+     */
+    private Map<Long, Integer> devices = new HashMap<>();
+
+    /**
+     * 轮询间隔下限（秒）
+     */
+    private int minIntervalSeconds = 10;
+
+    /**
+     * 平稳时间隔最多放大到基准间隔的倍数
+     */
+    private double maxIntervalFactor = 4.0;
+
+    /**
+     * 每次调度在间隔上叠加的随机抖动比例，避免同一时刻集中轮询
+     */
+    private double jitterRatio = 0.1;
+
+    /**
+     * 是否根据测点变化速度调整间隔
+     */
+    private boolean adaptive = true;
+
+    /**
+     * 用于判断变化速度的测点（DeviceData字段名）
+     */
+    private String adaptiveMetric = "power";
+
+    /**
+     * 相对变化不小于该比例时缩短间隔
+     */
+    private double fastChangeRatio = 0.1;
+
+    /**
+     * 相对变化不大于该比例时延长间隔
+     */
+    private double flatChangeRatio = 0.01;
+
+    /**
+     * 计算相对变化时分母的下限，避免数值接近0时放大抖动
+     */
+    private double changeFloor = 1.0;
+
+    /**
+     * 缩短间隔时的除数与延长间隔时的乘数
+     */
+    private double speedUpFactor = 2.0;
+
+    private double slowDownFactor = 1.5;
+}
@@ -0,0 +1,39 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 寄存器映射配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.register-map")
+@Data
+public class RegisterMapProperties {
+
+    /**
+     * 相邻点位之间允许合并读取的最大空洞（寄存器数）
+     */
+    private int maxGap = 8;
+
+    /**
+     * 各设备型号的点位定义，key为型号
+     */
+    private Map<String, List<RegisterPoint>> models = new HashMap<>();
+
+    /**
+     * 获取指定型号的点位定义
+     */
+    public List<RegisterPoint> pointsOf(String model) {
+        List<RegisterPoint> points = models.getOrDefault(model, new ArrayList<>());
+        points.forEach(point -> point.setModel(model));
+        return points;
+    }
+}
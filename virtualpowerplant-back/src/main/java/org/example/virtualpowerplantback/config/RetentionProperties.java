@@ -0,0 +1,94 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 历史数据保留策略配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.retention")
+@Data
+public class RetentionProperties {
+
+    /**
+     * 清理方式
+     */
+    public enum Mode {
+        /**
+         * device_data 已分区时按分区删除，否则分批删除
+         */
+        AUTO,
+        /**
+         * 启动时将 device_data 转换为按天分区（仅MySQL），之后按分区删除
+         */
+        PARTITION,
+        /**
+         * 始终分批删除
+         */
+        DELETE
+    }
+
+    private Mode mode = Mode.AUTO;
+
+    /**
+     * 原始数据默认保留天数
+     */
+    private int rawDays = 30;
+
+    /**
+     * 按设备类型设置的原始数据保留天数，未配置的类型使用 rawDays
+     */
+    private Map<VppDevice.DeviceType, Integer> deviceTypes = new EnumMap<>(VppDevice.DeviceType.class);
+
+    /**
+     * 各汇总分辨率的保留天数，0表示永久保留
+     */
+    private Map<DeviceDataRollup.Resolution, Integer> rollupDays = new EnumMap<>(DeviceDataRollup.Resolution.class);
+
+    /**
+     * 分批删除时每批的行数
+     */
+    private int deleteChunkSize = 10000;
+
+    /**
+     * 两批删除之间的停顿（毫秒），降低对在线写入的影响
+     */
+    private long chunkPauseMillis = 50;
+
+    /**
+     * 提前创建的日分区天数
+     */
+    private int partitionAheadDays = 7;
+
+    public RetentionProperties() {
+        rollupDays.put(DeviceDataRollup.Resolution.MINUTE_1, 7);
+        rollupDays.put(DeviceDataRollup.Resolution.MINUTE_15, 90);
+        rollupDays.put(DeviceDataRollup.Resolution.HOUR_1, 365);
+        rollupDays.put(DeviceDataRollup.Resolution.DAY_1, 0);
+    }
+
+    /**
+     * 指定设备类型的原始数据保留天数
+     */
+    public int rawDaysFor(VppDevice.DeviceType deviceType) {
+        return Math.max(1, deviceTypes.getOrDefault(deviceType, rawDays));
+    }
+
+    /**
+     * 所有设备类型中最长的原始数据保留天数，分区按此整体删除
+     */
+    public int maxRawDays() {
+        int max = Math.max(1, rawDays);
+        for (Integer days : deviceTypes.values()) {
+            max = Math.max(max, days);
+        }
+        return max;
+    }
+}
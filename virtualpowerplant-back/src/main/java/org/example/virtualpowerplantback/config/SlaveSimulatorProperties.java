@@ -0,0 +1,63 @@
+package org.example.virtualpowerplantback.config;
+
+import lombok.Data;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内嵌Modbus TCP从站模拟器配置
+ */
+@Component
+@ConfigurationProperties(prefix = "vpp.slave-simulator")
+@Data
+public class SlaveSimulatorProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 监听地址，设备的IP地址需与之一致才能按设备型号提供寄存器布局
+     */
+    private String bindAddress = "127.0.0.1";
+
+    /**
+     * 起始端口与端口数，每个端口模拟一个网关
+     */
+    private int basePort = 15020;
+
+    private int ports = 10;
+
+    /**
+     * 每个端口下的从站数（单元ID从1开始）
+     */
+    private int unitsPerPort = 100;
+
+    /**
+     * 工作线程数，0表示使用Netty默认值（CPU核数×2）
+     */
+    private int workerThreads = 0;
+
+    /**
+     * 固定响应延迟与随机抖动上限（毫秒）
+     */
+    private long latencyMillis = 0;
+
+    private long jitterMillis = 0;
+
+    /**
+     * 丢弃请求不响应的比例（0~1），用于验证读取超时
+     */
+    private double dropRate = 0;
+
+    /**
+     * 返回异常响应的比例（0~1）及异常码（默认4：从站设备故障）
+     */
+    private double exceptionRate = 0;
+
+    private int exceptionCode = 4;
+
+    /**
+     * 未登记设备的单元ID按该设备类型的寄存器布局和模拟数据响应
+     */
+    private VppDevice.DeviceType defaultDeviceType = VppDevice.DeviceType.ENERGY_STORAGE;
+}
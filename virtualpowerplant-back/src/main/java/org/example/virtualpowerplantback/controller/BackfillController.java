@@ -0,0 +1,92 @@
+package org.example.virtualpowerplantback.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.BackfillResult;
+import org.example.virtualpowerplantback.service.BackfillService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 历史数据回填控制器
+ */
+@RestController
+@RequestMapping("/api/vpp/backfill")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class BackfillController {
+
+    private final BackfillService backfillService;
+
+    /**
+     * 启动模拟回填（后台执行），deviceIds 为空时回填全部设备
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<ApiResponse<BackfillResult>> simulate(
+            @RequestParam(required = false) List<Long> deviceIds,
+            @RequestParam int days,
+            @RequestParam(required = false) Integer stepSeconds) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("模拟回填已启动",
+                    backfillService.startSimulation(deviceIds, days, stepSeconds)));
+        } catch (Exception e) {
+            log.error("启动模拟回填失败", e);
+            return ResponseEntity.ok(ApiResponse.error("启动模拟回填失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 回放CSV或NDJSON（请求体流式读取，写完后返回）
+     * format 为空时按 Content-Type 判断，text/csv 为CSV，其余按NDJSON处理
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<ApiResponse<BackfillResult>> replay(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        try {
+            boolean csv = format != null
+                    ? "csv".equalsIgnoreCase(format)
+                    : request.getContentType() != null && request.getContentType().toLowerCase().contains("csv");
+            BackfillResult result = csv
+                    ? backfillService.replayCsv(request.getInputStream())
+                    : backfillService.replayNdjson(request.getInputStream());
+            return ResponseEntity.ok(ApiResponse.success(
+                    "回放完成: 写入" + result.getWrittenRows() + "条, 跳过" + result.getSkippedRows() + "条", result));
+        } catch (Exception e) {
+            log.error("回放历史数据失败", e);
+            return ResponseEntity.ok(ApiResponse.error("回放历史数据失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取当前或最近一次回填任务的进度与吞吐
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<BackfillResult>> getStatus() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(backfillService.getStatus()));
+        } catch (Exception e) {
+            log.error("获取回填进度失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取回填进度失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消正在运行的模拟回填
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<ApiResponse<Boolean>> cancel() {
+        try {
+            boolean cancelled = backfillService.cancel();
+            return ResponseEntity.ok(ApiResponse.success(cancelled ? "已取消回填任务" : "没有正在运行的回填任务", cancelled));
+        } catch (Exception e) {
+            log.error("取消回填任务失败", e);
+            return ResponseEntity.ok(ApiResponse.error("取消回填任务失败: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.virtualpowerplantback.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.FleetSeries;
+import org.example.virtualpowerplantback.dto.FleetSnapshot;
+import org.example.virtualpowerplantback.service.FleetAggregationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 虚拟电厂整体汇总控制器
+ */
+@RestController
+@RequestMapping("/api/vpp/fleet")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class FleetAggregationController {
+
+    private final FleetAggregationService fleetAggregationService;
+
+    /**
+     * 获取当前整体汇总（按设备类型、设备分组）
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<ApiResponse<FleetSnapshot>> getSnapshot() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(fleetAggregationService.getSnapshot()));
+        } catch (Exception e) {
+            log.error("获取整体汇总失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取整体汇总失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取整体汇总曲线
+     */
+    @GetMapping("/series")
+    public ResponseEntity<ApiResponse<FleetSeries>> getSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(fleetAggregationService.getSeries(startTime, endTime)));
+        } catch (Exception e) {
+            log.error("获取整体汇总曲线失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取整体汇总曲线失败: " + e.getMessage()));
+        }
+    }
+}
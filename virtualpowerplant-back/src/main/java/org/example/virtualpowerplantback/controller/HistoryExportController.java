@@ -0,0 +1,99 @@
+package org.example.virtualpowerplantback.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.CompactSeries;
+import org.example.virtualpowerplantback.dto.HistoryPage;
+import org.example.virtualpowerplantback.service.HistoryExportService;
+import org.example.virtualpowerplantback.service.VppDeviceService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 历史数据分页与导出控制器
+ */
+@RestController
+@RequestMapping("/api/vpp/history")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class HistoryExportController {
+
+    private final HistoryExportService historyExportService;
+    private final VppDeviceService vppDeviceService;
+
+    /**
+     * 键集分页查询设备历史数据
+     */
+    @GetMapping("/{deviceId}/page")
+    public ResponseEntity<ApiResponse<HistoryPage>> getHistoryPage(
+            @PathVariable Long deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterTime,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            HistoryPage page = historyExportService.getPage(deviceId, startTime, endTime, afterTime, afterId, limit);
+            return ResponseEntity.ok(ApiResponse.success(page));
+        } catch (Exception e) {
+            log.error("分页查询历史数据失败", e);
+            return ResponseEntity.ok(ApiResponse.error("分页查询历史数据失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 从压缩分段读取设备原始样本（按列返回）
+     */
+    @GetMapping("/{deviceId}/compact")
+    public ResponseEntity<ApiResponse<CompactSeries>> getCompactHistory(
+            @PathVariable Long deviceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) List<String> metrics) {
+        try {
+            CompactSeries series = vppDeviceService.getDeviceCompactHistory(deviceId, startTime, endTime, metrics);
+            return ResponseEntity.ok(ApiResponse.success(series));
+        } catch (Exception e) {
+            log.error("读取压缩历史数据失败", e);
+            return ResponseEntity.ok(ApiResponse.error("读取压缩历史数据失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 流式导出多个设备的历史数据（NDJSON或CSV），可选择导出列
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportHistory(
+            @RequestParam List<Long> deviceIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(defaultValue = "NDJSON") String format,
+            @RequestParam(required = false) List<String> columns) {
+        HistoryExportService.Format exportFormat;
+        List<HistoryExportService.Column> exportColumns;
+        try {
+            exportFormat = HistoryExportService.Format.valueOf(format.toUpperCase());
+            exportColumns = HistoryExportService.parseColumns(columns);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(400, "导出参数错误: " + e.getMessage()));
+        }
+
+        StreamingResponseBody body = out ->
+                historyExportService.export(deviceIds, startTime, endTime, exportFormat, exportColumns, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"device-history." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.virtualpowerplantback.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.RegisterReadPlan;
+import org.example.virtualpowerplantback.service.RegisterMapService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 寄存器映射控制器
+ */
+@RestController
+@RequestMapping("/api/vpp/register-maps")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RegisterMapController {
+
+    private final RegisterMapService registerMapService;
+
+    /**
+     * 获取所有设备型号的块读取计划
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<RegisterReadPlan>>> getAllPlans() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(registerMapService.getAllPlans()));
+        } catch (Exception e) {
+            log.error("获取寄存器映射失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取寄存器映射失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 重新加载寄存器映射（数据库点位修改后调用）
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<ApiResponse<Void>> reload() {
+        try {
+            registerMapService.reload();
+            return ResponseEntity.ok(ApiResponse.success("寄存器映射已重新加载", null));
+        } catch (Exception e) {
+            log.error("重新加载寄存器映射失败", e);
+            return ResponseEntity.ok(ApiResponse.error("重新加载寄存器映射失败: " + e.getMessage()));
+        }
+    }
+}
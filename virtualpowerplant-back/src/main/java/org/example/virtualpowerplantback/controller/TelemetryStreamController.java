@@ -0,0 +1,54 @@
+package org.example.virtualpowerplantback.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.service.TelemetryStreamService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 实时遥测推送控制器（SSE）
+ * 事件 telemetry 为采集数据，status 为设备在线状态变化；浏览器使用 EventSource 订阅，断线后自动重连
+ */
+@RestController
+@RequestMapping("/api/vpp/stream")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class TelemetryStreamController {
+
+    private final TelemetryStreamService telemetryStreamService;
+
+    /**
+     * 订阅实时数据，可按设备ID和设备类型过滤，都不指定时订阅全部设备
+     */
+    @GetMapping
+    public ResponseEntity<?> subscribe(@RequestParam(required = false) List<Long> deviceIds,
+                                       @RequestParam(required = false) List<String> deviceTypes) {
+        List<VppDevice.DeviceType> types = new ArrayList<>();
+        try {
+            if (deviceTypes != null) {
+                for (String type : deviceTypes) {
+                    types.add(VppDevice.DeviceType.valueOf(type.trim().toUpperCase()));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(400, "设备类型错误: " + e.getMessage()));
+        }
+
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(telemetryStreamService.subscribe(deviceIds, types));
+        } catch (Exception e) {
+            log.warn("订阅实时数据失败: {}", e.getMessage());
+            return ResponseEntity.status(503).body(ApiResponse.error(503, "订阅实时数据失败: " + e.getMessage()));
+        }
+    }
+}
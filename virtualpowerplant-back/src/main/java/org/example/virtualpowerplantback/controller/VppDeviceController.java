@@ -3,10 +3,15 @@ package org.example.virtualpowerplantback.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.CircuitState;
 import org.example.virtualpowerplantback.dto.DeviceDTO;
+import org.example.virtualpowerplantback.dto.DeviceImportResult;
+import org.example.virtualpowerplantback.dto.RollupSeries;
 import org.example.virtualpowerplantback.entity.DeviceData;
 import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.service.DeviceImportService;
 import org.example.virtualpowerplantback.service.VppDeviceService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +34,9 @@ public class VppDeviceController {
     @Autowired
     private VppDeviceService vppDeviceService;
     
+    @Autowired
+    private DeviceImportService deviceImportService;
+    
     /**
      * 获取所有设备列表
      */
@@ -76,6 +84,29 @@ public class VppDeviceController {
         }
     }
     
+    /**
+     * 批量导入设备（请求体为CSV或JSON数组，流式读取）
+     * format 为空时按 Content-Type 判断，text/csv 为CSV，其余按JSON处理
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse<DeviceImportResult>> importDevices(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        try {
+            boolean csv = format != null
+                    ? "csv".equalsIgnoreCase(format)
+                    : request.getContentType() != null && request.getContentType().toLowerCase().contains("csv");
+            DeviceImportResult result = csv
+                    ? deviceImportService.importCsv(request.getInputStream())
+                    : deviceImportService.importJson(request.getInputStream());
+            return ResponseEntity.ok(ApiResponse.success(
+                    "导入完成: 成功" + result.getCreated() + "个, 失败" + result.getFailed() + "个", result));
+        } catch (Exception e) {
+            log.error("批量导入设备失败", e);
+            return ResponseEntity.ok(ApiResponse.error("批量导入设备失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 更新设备信息
      */
@@ -123,6 +154,19 @@ public class VppDeviceController {
         }
     }
     
+    /**
+     * 获取设备及其网关的熔断状态
+     */
+    @GetMapping("/{id}/circuit")
+    public ResponseEntity<ApiResponse<List<CircuitState>>> getCircuitStates(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(vppDeviceService.getCircuitStates(id)));
+        } catch (Exception e) {
+            log.error("获取设备熔断状态失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取设备熔断状态失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 手动读取设备数据
      */
@@ -171,6 +215,25 @@ public class VppDeviceController {
         }
     }
     
+    /**
+     * 获取降采样后的设备历史曲线，按 maxPoints 自动选择分辨率
+     */
+    @GetMapping("/{id}/history/rollup")
+    public ResponseEntity<ApiResponse<RollupSeries>> getDeviceHistorySeries(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) List<String> metrics) {
+        try {
+            RollupSeries series = vppDeviceService.getDeviceHistorySeries(id, startTime, endTime, maxPoints, metrics);
+            return ResponseEntity.ok(ApiResponse.success(series));
+        } catch (Exception e) {
+            log.error("获取设备历史曲线失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取设备历史曲线失败: " + e.getMessage()));
+        }
+    }
+    
     /**
      * 获取设备最新数据
      */
@@ -210,6 +273,9 @@ public class VppDeviceController {
         device.setPort(dto.getPort());
         device.setSlaveId(dto.getSlaveId());
         device.setDeviceType(dto.getDeviceType());
+        device.setModel(dto.getModel());
+        device.setGroupName(dto.getGroupName());
+        device.setRatedCapacity(dto.getRatedCapacity());
         device.setEnabled(dto.getEnabled());
         device.setDescription(dto.getDescription());
         
@@ -0,0 +1,225 @@
+package org.example.virtualpowerplantback.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.CircuitBreakerStats;
+import org.example.virtualpowerplantback.dto.CollectionPassResult;
+import org.example.virtualpowerplantback.dto.DeadbandStats;
+import org.example.virtualpowerplantback.dto.GatewayStats;
+import org.example.virtualpowerplantback.dto.LocalStoreStats;
+import org.example.virtualpowerplantback.dto.ModbusPoolStats;
+import org.example.virtualpowerplantback.dto.PollingStats;
+import org.example.virtualpowerplantback.dto.RetentionResult;
+import org.example.virtualpowerplantback.dto.SlaveSimulatorStats;
+import org.example.virtualpowerplantback.dto.StreamStats;
+import org.example.virtualpowerplantback.dto.TelemetryWriterStats;
+import org.example.virtualpowerplantback.service.AdaptivePollingScheduler;
+import org.example.virtualpowerplantback.service.CircuitBreakerService;
+import org.example.virtualpowerplantback.service.DeadbandFilter;
+import org.example.virtualpowerplantback.service.LocalTimeSeriesStore;
+import org.example.virtualpowerplantback.service.ModbusConnectionPool;
+import org.example.virtualpowerplantback.service.ModbusSlaveSimulator;
+import org.example.virtualpowerplantback.service.RetentionService;
+import org.example.virtualpowerplantback.service.TelemetryStreamService;
+import org.example.virtualpowerplantback.service.TelemetryWriter;
+import org.example.virtualpowerplantback.service.VppDeviceService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 采集运行状态监控控制器
+ */
+@RestController
+@RequestMapping("/api/vpp/monitor")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class VppMonitorController {
+
+    private final VppDeviceService vppDeviceService;
+    private final ModbusConnectionPool connectionPool;
+    private final TelemetryWriter telemetryWriter;
+    private final RetentionService retentionService;
+    private final LocalTimeSeriesStore localStore;
+    private final TelemetryStreamService telemetryStreamService;
+    private final AdaptivePollingScheduler pollingScheduler;
+    private final DeadbandFilter deadbandFilter;
+    private final CircuitBreakerService circuitBreaker;
+    private final ModbusSlaveSimulator slaveSimulator;
+
+    /**
+     * 获取最近一轮采集统计
+     */
+    @GetMapping("/collection")
+    public ResponseEntity<ApiResponse<CollectionPassResult>> getLastCollectionResult() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(vppDeviceService.getLastCollectionResult()));
+        } catch (Exception e) {
+            log.error("获取采集统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取采集统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 手动触发一轮全量采集（异步执行）
+     */
+    @PostMapping("/collection/run")
+    public ResponseEntity<ApiResponse<Void>> runCollection() {
+        try {
+            vppDeviceService.collectAllDevicesData();
+            return ResponseEntity.ok(ApiResponse.success("已触发全量采集", null));
+        } catch (Exception e) {
+            log.error("触发全量采集失败", e);
+            return ResponseEntity.ok(ApiResponse.error("触发全量采集失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取Modbus连接池统计
+     */
+    @GetMapping("/modbus-pool")
+    public ResponseEntity<ApiResponse<ModbusPoolStats>> getModbusPoolStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(connectionPool.getStats()));
+        } catch (Exception e) {
+            log.error("获取连接池统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取连接池统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取各网关连接的并发请求状态
+     */
+    @GetMapping("/gateways")
+    public ResponseEntity<ApiResponse<List<GatewayStats>>> getGatewayStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(connectionPool.getGatewayStats()));
+        } catch (Exception e) {
+            log.error("获取网关状态失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取网关状态失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取自适应轮询统计
+     */
+    @GetMapping("/polling")
+    public ResponseEntity<ApiResponse<PollingStats>> getPollingStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(pollingScheduler.getStats()));
+        } catch (Exception e) {
+            log.error("获取轮询统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取轮询统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取死区过滤统计
+     */
+    @GetMapping("/deadband")
+    public ResponseEntity<ApiResponse<DeadbandStats>> getDeadbandStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(deadbandFilter.getStats()));
+        } catch (Exception e) {
+            log.error("获取死区过滤统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取死区过滤统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取熔断隔离统计及当前隔离中的设备和网关
+     */
+    @GetMapping("/circuit-breakers")
+    public ResponseEntity<ApiResponse<CircuitBreakerStats>> getCircuitBreakerStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(circuitBreaker.getStats()));
+        } catch (Exception e) {
+            log.error("获取熔断统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取熔断统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取内嵌Modbus从站模拟器统计
+     */
+    @GetMapping("/slave-simulator")
+    public ResponseEntity<ApiResponse<SlaveSimulatorStats>> getSlaveSimulatorStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(slaveSimulator.getStats()));
+        } catch (Exception e) {
+            log.error("获取从站模拟器统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取从站模拟器统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取遥测写入管道统计
+     */
+    @GetMapping("/telemetry-writer")
+    public ResponseEntity<ApiResponse<TelemetryWriterStats>> getTelemetryWriterStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(telemetryWriter.getStats()));
+        } catch (Exception e) {
+            log.error("获取写入管道统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取写入管道统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取实时推送统计
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<ApiResponse<StreamStats>> getStreamStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(telemetryStreamService.getStats()));
+        } catch (Exception e) {
+            log.error("获取实时推送统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取实时推送统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取本地时序存储统计
+     */
+    @GetMapping("/local-store")
+    public ResponseEntity<ApiResponse<LocalStoreStats>> getLocalStoreStats() {
+        try {
+            if (!localStore.isEnabled()) {
+                return ResponseEntity.ok(ApiResponse.error("本地存储未启用"));
+            }
+            return ResponseEntity.ok(ApiResponse.success(localStore.getStats()));
+        } catch (Exception e) {
+            log.error("获取本地存储统计失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取本地存储统计失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取最近一次历史数据清理结果
+     */
+    @GetMapping("/retention")
+    public ResponseEntity<ApiResponse<RetentionResult>> getRetentionResult() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(retentionService.getLastResult()));
+        } catch (Exception e) {
+            log.error("获取数据清理结果失败", e);
+            return ResponseEntity.ok(ApiResponse.error("获取数据清理结果失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 手动执行一次历史数据清理
+     */
+    @PostMapping("/retention/run")
+    public ResponseEntity<ApiResponse<RetentionResult>> runRetention() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("历史数据清理完成", retentionService.enforce()));
+        } catch (Exception e) {
+            log.error("执行历史数据清理失败", e);
+            return ResponseEntity.ok(ApiResponse.error("执行历史数据清理失败: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 历史数据回填任务的进度与吞吐
+ */
+@Data
+@NoArgsConstructor
+public class BackfillResult {
+
+    /**
+     * SIMULATE=模拟生成, REPLAY_CSV / REPLAY_NDJSON=回放文件
+     */
+    private String mode;
+
+    private boolean running;
+
+    private boolean cancelled;
+
+    private LocalDateTime startTime;
+
+    /**
+     * 涉及的设备数
+     */
+    private int devices;
+
+    /**
+     * 模拟回填计划生成的记录数，回放时为0
+     */
+    private long plannedRows;
+
+    private long writtenRows;
+
+    /**
+     * 批量写入失败的记录数
+     */
+    private long failedRows;
+
+    /**
+     * 回放时因格式错误或设备不存在而跳过的行数
+     */
+    private long skippedRows;
+
+    private long elapsedMillis;
+
+    /**
+     * 写入吞吐（行/秒）
+     */
+    private long rowsPerSecond;
+
+    /**
+     * 第一条跳过原因或任务异常信息
+     */
+    private String message;
+}
@@ -0,0 +1,47 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 熔断统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerStats {
+
+    private boolean enabled;
+
+    /**
+     * 隔离中（含探测中）的设备数
+     */
+    private int openDevices;
+
+    /**
+     * 隔离中（含探测中）的网关数
+     */
+    private int openGateways;
+
+    /**
+     * 进入隔离的次数
+     */
+    private long trips;
+
+    /**
+     * 因隔离被跳过的采集次数
+     */
+    private long rejected;
+
+    private long probes;
+
+    private long probeSuccesses;
+
+    /**
+     * 所有非正常状态的设备与网关
+     */
+    private List<CircuitState> open;
+}
@@ -0,0 +1,57 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个设备或网关的熔断状态
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitState {
+
+    public enum Scope {
+        DEVICE,
+        GATEWAY
+    }
+
+    public enum State {
+        /**
+         * 正常采集
+         */
+        CLOSED,
+        /**
+         * 隔离中，到期前不再采集
+         */
+        OPEN,
+        /**
+         * 隔离到期，正在进行一次探测
+         */
+        HALF_OPEN
+    }
+
+    private Scope scope;
+
+    /**
+     * 设备ID或网关地址（ip:port）
+     */
+    private String key;
+
+    private State state;
+
+    private int consecutiveFailures;
+
+    /**
+     * 当前隔离时长（毫秒）
+     */
+    private long backoffMillis;
+
+    /**
+     * 隔离到期时间，到期后允许探测
+     */
+    private LocalDateTime openUntil;
+}
@@ -0,0 +1,41 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一次全量采集的统计结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionPassResult {
+
+    private LocalDateTime startTime;
+
+    private int totalDevices;
+
+    private int gatewayCount;
+
+    private int successCount;
+
+    private int failureCount;
+
+    /**
+     * 因所属网关仍在执行上一轮超时的采集而跳过的设备数
+     */
+    private int skippedCount;
+
+    /**
+     * 本轮采集耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 采集吞吐（设备/秒）
+     */
+    private double devicesPerSecond;
+}
@@ -0,0 +1,34 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从压缩分段解码出的原始样本，按列返回
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactSeries {
+
+    private Long deviceId;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    /**
+     * 采集时间（毫秒时间戳），与各测点列一一对应
+     */
+    private List<Long> timestamps;
+
+    /**
+     * 测点名称 -> 数值列，无值的位置为null
+     */
+    private Map<String, List<Double>> values;
+}
@@ -0,0 +1,36 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 死区过滤统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadbandStats {
+
+    private boolean enabled;
+
+    /**
+     * 有入库基准值的设备数
+     */
+    private int devices;
+
+    /**
+     * 通过过滤、入库并推送的样本数
+     */
+    private long stored;
+
+    /**
+     * 被过滤、省去写入的样本数
+     */
+    private long suppressed;
+
+    /**
+     * 被过滤样本占比
+     */
+    private double suppressedRatio;
+}
@@ -3,11 +3,14 @@ package org.example.virtualpowerplantback.dto;
 import lombok.Data;
 import org.example.virtualpowerplantback.entity.VppDevice;
 
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import java.math.BigDecimal;
+
 /**
  * 设备数据传输对象
  */
@@ -35,6 +38,13 @@ public class DeviceDTO {
     @NotNull(message = "设备类型不能为空")
     private VppDevice.DeviceType deviceType;
     
+    private String model;
+    
+    private String groupName;
+    
+    @DecimalMin(value = "0", message = "额定容量不能为负数")
+    private BigDecimal ratedCapacity;
+    
     private VppDevice.DeviceStatus status;
     
     private Boolean enabled = true;
@@ -0,0 +1,58 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入设备结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceImportResult {
+
+    private int total;
+
+    private int created;
+
+    private int failed;
+
+    private long elapsedMillis;
+
+    /**
+     * 逐行结果，按行号排序
+     */
+    private List<RowResult> rows = new ArrayList<>();
+
+    /**
+     * 一行的导入结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+
+        /**
+         * 行号：CSV为数据行号（不含表头，从1开始），JSON为数组下标加1
+         */
+        private int row;
+
+        private String name;
+
+        private boolean success;
+
+        /**
+         * 新建设备的ID，失败时为空
+         */
+        private Long deviceId;
+
+        /**
+         * 失败原因
+         */
+        private String message;
+    }
+}
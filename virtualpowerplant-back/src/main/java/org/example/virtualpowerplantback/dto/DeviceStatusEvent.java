@@ -0,0 +1,27 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.VppDevice;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备在线状态变化事件
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStatusEvent {
+
+    private Long deviceId;
+
+    private String deviceName;
+
+    private VppDevice.DeviceType deviceType;
+
+    private VppDevice.DeviceStatus status;
+
+    private LocalDateTime lastCommunicationTime;
+}
@@ -0,0 +1,49 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.VppDevice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 虚拟电厂整体汇总曲线
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetSeries {
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private List<Point> points;
+
+    /**
+     * 一个采样时刻的整体合计
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+
+        private LocalDateTime time;
+
+        private double generationPower;
+
+        private double controllableLoad;
+
+        private double storagePower;
+
+        private double storageAvailableEnergy;
+
+        /**
+         * 各设备类型的功率合计（kW）
+         */
+        private Map<VppDevice.DeviceType, Double> powerByType;
+    }
+}
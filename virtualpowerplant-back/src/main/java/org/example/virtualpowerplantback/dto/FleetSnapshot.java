@@ -0,0 +1,80 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.VppDevice;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 虚拟电厂整体汇总快照
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetSnapshot {
+
+    private LocalDateTime time;
+
+    /**
+     * 计入汇总的设备数（最近一次采集成功的设备）
+     */
+    private long devices;
+
+    /**
+     * 发电功率合计（kW），包含 vpp.aggregation.generation-types 中的设备类型
+     */
+    private double generationPower;
+
+    /**
+     * 可控负荷功率合计（kW）
+     */
+    private double controllableLoad;
+
+    /**
+     * 储能充放电功率合计（kW）
+     */
+    private double storagePower;
+
+    /**
+     * 储能按SOC折算的可用电量合计（kWh）
+     */
+    private double storageAvailableEnergy;
+
+    /**
+     * 储能额定容量合计（kWh）
+     */
+    private double storageCapacity;
+
+    private Map<VppDevice.DeviceType, Totals> byType;
+
+    private Map<String, Totals> byGroup;
+
+    /**
+     * 一个设备类型或分组的合计
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Totals {
+
+        private long devices;
+
+        /**
+         * 功率合计（kW）
+         */
+        private double power;
+
+        /**
+         * 按SOC折算的可用电量合计（kWh），仅储能设备
+         */
+        private double availableEnergy;
+
+        /**
+         * 额定容量合计（kWh）
+         */
+        private double capacity;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个网关连接的运行状态
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GatewayStats {
+
+    private String gateway;
+
+    private boolean connected;
+
+    /**
+     * 当前未完成的请求数
+     */
+    private int inFlight;
+
+    /**
+     * 历史最大并发请求数
+     */
+    private int peakInFlight;
+
+    /**
+     * 允许的最大未完成请求数
+     */
+    private int maxOutstanding;
+
+    /**
+     * 通过该连接访问过的从站数量
+     */
+    private int slaveCount;
+
+    /**
+     * 已发送的请求总数
+     */
+    private long requestCount;
+}
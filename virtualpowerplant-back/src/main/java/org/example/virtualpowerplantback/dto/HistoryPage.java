@@ -0,0 +1,36 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.DeviceData;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 按键集分页的历史数据
+ * 下一页请求把 nextAfterTime、nextAfterId 作为 afterTime、afterId 传回
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+
+    private List<DeviceData> items;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 本页最后一条记录的采集时间
+     */
+    private LocalDateTime nextAfterTime;
+
+    /**
+     * 本页最后一条记录的ID
+     */
+    private Long nextAfterId;
+}
@@ -0,0 +1,61 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 本地时序存储统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalStoreStats {
+
+    private String mode;
+
+    /**
+     * 分段文件数
+     */
+    private int segments;
+
+    /**
+     * 已索引的设备数
+     */
+    private int devices;
+
+    /**
+     * 本地保存的样本数
+     */
+    private long records;
+
+    /**
+     * 启动后追加的样本数
+     */
+    private long appended;
+
+    /**
+     * 启动恢复时读到的有效样本数
+     */
+    private long recovered;
+
+    /**
+     * 启动恢复时发现损坏尾部并截断的分段数
+     */
+    private int truncatedSegments;
+
+    /**
+     * 已回放到数据库的样本数
+     */
+    private long replayed;
+
+    /**
+     * 尚未回放的字节数（BUFFER模式）
+     */
+    private long replayBacklogBytes;
+
+    /**
+     * 回放失败次数
+     */
+    private long replayFailures;
+}
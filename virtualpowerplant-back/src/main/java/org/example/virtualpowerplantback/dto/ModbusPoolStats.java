@@ -0,0 +1,54 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Modbus连接池统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModbusPoolStats {
+
+    /**
+     * 池中网关连接数
+     */
+    private int totalConnections;
+
+    /**
+     * 已建立的连接数
+     */
+    private int connectedConnections;
+
+    /**
+     * 处于重连退避期的连接数
+     */
+    private int backingOffConnections;
+
+    /**
+     * 连接建立次数
+     */
+    private long connectAttempts;
+
+    /**
+     * 连接建立失败次数
+     */
+    private long connectFailures;
+
+    /**
+     * 复用已有连接的次数
+     */
+    private long reuseHits;
+
+    /**
+     * 空闲回收的连接数
+     */
+    private long evictions;
+
+    /**
+     * 保活探测失败次数
+     */
+    private long probeFailures;
+}
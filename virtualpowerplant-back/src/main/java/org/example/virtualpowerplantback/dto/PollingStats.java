@@ -0,0 +1,49 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 自适应轮询统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PollingStats {
+
+    private boolean running;
+
+    /**
+     * 参与轮询的设备数
+     */
+    private int devices;
+
+    /**
+     * 累计轮询次数与失败次数
+     */
+    private long polls;
+
+    private long failures;
+
+    /**
+     * 因设备或网关处于熔断隔离而顺延的次数
+     */
+    private long deferred;
+
+    /**
+     * 因变化快缩短间隔、因平稳延长间隔的次数
+     */
+    private long speedUps;
+
+    private long slowDowns;
+
+    /**
+     * 当前各设备轮询间隔（秒）的最小、平均、最大值
+     */
+    private double minIntervalSeconds;
+
+    private double avgIntervalSeconds;
+
+    private double maxIntervalSeconds;
+}
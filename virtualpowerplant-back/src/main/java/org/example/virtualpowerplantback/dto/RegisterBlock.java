@@ -0,0 +1,35 @@
+package org.example.virtualpowerplantback.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+
+import java.util.List;
+
+/**
+ * 合并后的一次块读取
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegisterBlock {
+
+    private RegisterPoint.RegisterTable table;
+
+    private int startAddress;
+
+    private int quantity;
+
+    /**
+     * 该块覆盖的点位，按地址升序
+     */
+    private List<RegisterPoint> points;
+
+    /**
+     * 与 points 一一对应的样本槽位，未知测点为-1
+     */
+    @JsonIgnore
+    private int[] slots;
+}
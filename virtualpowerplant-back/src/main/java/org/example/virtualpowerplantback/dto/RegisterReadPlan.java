@@ -0,0 +1,22 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 设备型号的读取计划
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegisterReadPlan {
+
+    private String model;
+
+    private int pointCount;
+
+    private List<RegisterBlock> blocks;
+}
@@ -0,0 +1,50 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次历史数据清理的结果
+ */
+@Data
+@NoArgsConstructor
+public class RetentionResult {
+
+    private LocalDateTime startTime;
+
+    /**
+     * 是否按分区清理原始数据
+     */
+    private boolean partitioned;
+
+    /**
+     * 被删除的分区
+     */
+    private List<String> droppedPartitions = new ArrayList<>();
+
+    /**
+     * 新建的分区
+     */
+    private List<String> createdPartitions = new ArrayList<>();
+
+    /**
+     * 分批删除的原始数据行数
+     */
+    private long deletedRawRows;
+
+    /**
+     * 分批删除的汇总数据行数
+     */
+    private long deletedRollupRows;
+
+    /**
+     * 分批删除的压缩分段数
+     */
+    private long deletedSegments;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,54 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 降采样后的历史曲线
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupSeries {
+
+    private Long deviceId;
+
+    /**
+     * 实际使用的分辨率
+     */
+    private DeviceDataRollup.Resolution resolution;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private List<Point> points;
+
+    /**
+     * 一个时间桶内一个测点的汇总值
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+
+        private LocalDateTime time;
+
+        private String metric;
+
+        private Double min;
+
+        private Double max;
+
+        private Double avg;
+
+        private Double last;
+
+        private Long count;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Modbus从站模拟器统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaveSimulatorStats {
+
+    private boolean running;
+
+    /**
+     * 监听的端口数与每个端口下的从站数
+     */
+    private int ports;
+
+    private int unitsPerPort;
+
+    /**
+     * 当前连接数
+     */
+    private int connections;
+
+    /**
+     * 收到的请求数、正常响应数、丢弃数与异常响应数
+     */
+    private long requests;
+
+    private long responses;
+
+    private long dropped;
+
+    private long exceptions;
+}
@@ -0,0 +1,39 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实时推送统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamStats {
+
+    /**
+     * 当前订阅者数
+     */
+    private int subscribers;
+
+    /**
+     * 已发布的事件数（数据与状态）
+     */
+    private long published;
+
+    /**
+     * 已发送给订阅者的事件数
+     */
+    private long sent;
+
+    /**
+     * 订阅者未及时消费、被同一设备更新的值覆盖的事件数
+     */
+    private long conflated;
+
+    /**
+     * 因连接关闭或发送失败移除的订阅者数
+     */
+    private long disconnected;
+}
@@ -0,0 +1,79 @@
+package org.example.virtualpowerplantback.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 遥测测点
+ * 枚举序号即 TelemetrySample 中的槽位下标，所有设备类型共用同一套槽位布局
+ */
+public enum TelemetryMetric {
+    VOLTAGE("voltage", 2),
+    CURRENT("current", 3),
+    POWER("power", 2),
+    ENERGY("energy", 3),
+    FREQUENCY("frequency", 2),
+    POWER_FACTOR("powerFactor", 3),
+    TEMPERATURE("temperature", 2),
+    SOC("soc", 2),
+    STATUS_CODE("statusCode", 0),
+    WIND_SPEED("windSpeed", 1),
+    LOAD_RATE("loadRate", 1),
+    VALUE1("value1", 0),
+    VALUE2("value2", 0);
+
+    private static final TelemetryMetric[] VALUES = values();
+
+    private static final Map<String, TelemetryMetric> BY_NAME = new HashMap<>();
+
+    static {
+        for (TelemetryMetric metric : VALUES) {
+            BY_NAME.put(metric.fieldName, metric);
+        }
+    }
+
+    /**
+     * 测点名称，与寄存器映射中的点位名称、DeviceData字段名一致
+     */
+    private final String fieldName;
+
+    /**
+     * 持久化时保留的小数位数
+     */
+    private final int scale;
+
+    TelemetryMetric(String fieldName, int scale) {
+        this.fieldName = fieldName;
+        this.scale = scale;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int slot() {
+        return ordinal();
+    }
+
+    /**
+     * 槽位总数
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    public static TelemetryMetric ofSlot(int slot) {
+        return VALUES[slot];
+    }
+
+    /**
+     * 根据测点名称查找，未知名称返回null
+     */
+    public static TelemetryMetric byName(String fieldName) {
+        return BY_NAME.get(fieldName);
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.virtualpowerplantback.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 一次采集得到的遥测样本
+ * 测点值按 TelemetryMetric 的槽位存放在定长 double 数组中，由位掩码标记哪些槽位有值，
+ * 解码时直接从Modbus响应写入槽位，避免 Map + 装箱 BigDecimal 的中间对象
+ */
+public class TelemetrySample {
+
+    private final long deviceId;
+
+    private final double[] values = new double[TelemetryMetric.count()];
+
+    private long presentMask;
+
+    private long timestamp;
+
+    private String error;
+
+    public TelemetrySample(long deviceId) {
+        this.deviceId = deviceId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public TelemetrySample(long deviceId, long timestamp) {
+        this.deviceId = deviceId;
+        this.timestamp = timestamp;
+    }
+
+    public static TelemetrySample error(long deviceId, String error) {
+        TelemetrySample sample = new TelemetrySample(deviceId);
+        sample.error = error;
+        return sample;
+    }
+
+    public long getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * 采集时间（毫秒时间戳）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    public void set(TelemetryMetric metric, double value) {
+        set(metric.slot(), value);
+    }
+
+    public void set(int slot, double value) {
+        values[slot] = value;
+        presentMask |= 1L << slot;
+    }
+
+    public boolean has(TelemetryMetric metric) {
+        return (presentMask & (1L << metric.slot())) != 0;
+    }
+
+    /**
+     * 获取测点值，无值时返回NaN
+     */
+    public double get(TelemetryMetric metric) {
+        return has(metric) ? values[metric.slot()] : Double.NaN;
+    }
+
+    public long getPresentMask() {
+        return presentMask;
+    }
+
+    /**
+     * 按测点精度转换为BigDecimal，无值或值为NaN、Infinity时返回null
+     */
+    public BigDecimal getDecimal(TelemetryMetric metric) {
+        if (!has(metric) || !Double.isFinite(values[metric.slot()])) {
+            return null;
+        }
+        return BigDecimal.valueOf(values[metric.slot()]).setScale(metric.getScale(), RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 获取整数测点值，无值时返回null
+     */
+    public Integer getInteger(TelemetryMetric metric) {
+        return has(metric) ? (int) values[metric.slot()] : null;
+    }
+
+    /**
+     * 清空样本以便复用
+     */
+    public void clear() {
+        presentMask = 0;
+        error = null;
+    }
+
+    /**
+     * 以JSON对象形式写出所有有值的测点，NaN、Infinity不是合法的JSON数值，写为null
+     */
+    public StringBuilder appendJson(StringBuilder out) {
+        out.append('{');
+        if (error != null) {
+            out.append("\"error\":\"");
+            for (int i = 0; i < error.length(); i++) {
+                char c = error.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.append('\\').append(c);
+                } else if (c >= 0x20) {
+                    out.append(c);
+                }
+            }
+            out.append('"');
+        } else {
+            boolean first = true;
+            for (int slot = 0; slot < values.length; slot++) {
+                if ((presentMask & (1L << slot)) == 0) {
+                    continue;
+                }
+                TelemetryMetric metric = TelemetryMetric.ofSlot(slot);
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append('"').append(metric.getFieldName()).append("\":");
+                if (!Double.isFinite(values[slot])) {
+                    out.append("null");
+                } else if (metric.getScale() == 0) {
+                    out.append((long) values[slot]);
+                } else {
+                    out.append(values[slot]);
+                }
+            }
+        }
+        return out.append('}');
+    }
+
+    public String toJson() {
+        return appendJson(new StringBuilder(192)).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TelemetrySample{deviceId=" + deviceId + ", timestamp=" + timestamp + ", values=" + toJson() + "}";
+    }
+}
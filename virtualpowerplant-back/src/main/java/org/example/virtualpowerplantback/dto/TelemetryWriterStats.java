@@ -0,0 +1,64 @@
+package org.example.virtualpowerplantback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 遥测写入管道统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryWriterStats {
+
+    /**
+     * 背压策略
+     */
+    private String backpressurePolicy;
+
+    /**
+     * 当前排队中的记录数
+     */
+    private int queued;
+
+    /**
+     * 队列总容量
+     */
+    private int capacity;
+
+    /**
+     * 已接收的记录数
+     */
+    private long accepted;
+
+    /**
+     * 已写入数据库的记录数
+     */
+    private long written;
+
+    /**
+     * 因队列满被丢弃的记录数
+     */
+    private long dropped;
+
+    /**
+     * 重试后仍写入失败的记录数
+     */
+    private long failed;
+
+    /**
+     * 已执行的批次数
+     */
+    private long batches;
+
+    /**
+     * 最近一个批次的记录数
+     */
+    private int lastBatchSize;
+
+    /**
+     * 最近一个批次的写入耗时（毫秒）
+     */
+    private long lastBatchMillis;
+}
@@ -14,7 +14,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "device_data", indexes = {
-    @Index(name = "idx_device_id", columnList = "device_id"),
+    @Index(name = "idx_device_time", columnList = "device_id, collect_time, id"),
     @Index(name = "idx_collect_time", columnList = "collect_time")
 })
 @Data
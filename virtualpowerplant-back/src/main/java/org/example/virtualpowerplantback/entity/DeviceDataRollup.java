@@ -0,0 +1,105 @@
+package org.example.virtualpowerplantback.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 设备数据降采样汇总
+ * 每行对应一台设备、一个测点在一个时间桶内的最小/最大/累加/末值/样本数，
+ * 由采集路径增量维护，历史曲线查询按需要的点数选择合适的分辨率
+ */
+@Entity
+@Table(name = "device_data_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rollup_bucket", columnNames = {"device_id", "resolution", "bucket_start", "metric"})
+}, indexes = {
+    @Index(name = "idx_rollup_resolution_bucket", columnList = "resolution, bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceDataRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    /**
+     * 汇总分辨率
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Resolution resolution;
+
+    /**
+     * 时间桶起始时间
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * 测点名称，与 TelemetryMetric 的字段名一致
+     */
+    @Column(nullable = false, length = 30)
+    private String metric;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column(name = "sum_value")
+    private Double sumValue;
+
+    /**
+     * 桶内最后一个样本的值
+     */
+    @Column(name = "last_sample_value")
+    private Double lastValue;
+
+    @Column(name = "last_sample_time")
+    private LocalDateTime lastTime;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    /**
+     * 汇总分辨率
+     */
+    public enum Resolution {
+        MINUTE_1(60),
+        MINUTE_15(15 * 60),
+        HOUR_1(3600),
+        DAY_1(86400);
+
+        private final long seconds;
+
+        Resolution(long seconds) {
+            this.seconds = seconds;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * 计算时间所在的桶起始时间（按本地时间对齐，日桶从零点开始）
+         */
+        public LocalDateTime bucketOf(LocalDateTime time) {
+            return switch (this) {
+                case MINUTE_1 -> time.truncatedTo(ChronoUnit.MINUTES);
+                case MINUTE_15 -> time.truncatedTo(ChronoUnit.HOURS).plusMinutes(time.getMinute() / 15 * 15L);
+                case HOUR_1 -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY_1 -> time.truncatedTo(ChronoUnit.DAYS);
+            };
+        }
+    }
+}
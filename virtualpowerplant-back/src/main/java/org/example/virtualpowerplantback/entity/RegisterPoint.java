@@ -0,0 +1,154 @@
+package org.example.virtualpowerplantback.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * 寄存器点位定义
+ * 描述某一设备型号的一个测点位于哪张寄存器表、起始地址、数据类型、字节序和缩放系数，
+ * 既可以在 application.yml 的 vpp.register-map.models 中配置，也可以存放在数据库中
+ */
+@Entity
+@Table(name = "register_point", indexes = {
+    @Index(name = "idx_register_point_model", columnList = "model")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegisterPoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 设备型号（未配置型号的设备使用设备类型名称）
+     */
+    @Column(nullable = false, length = 50)
+    private String model;
+
+    /**
+     * 测点名称，例如 voltage、power、statusCode
+     */
+    @Column(nullable = false, length = 50)
+    private String name;
+
+    /**
+     * 寄存器表
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "register_table", nullable = false)
+    private RegisterTable table = RegisterTable.HOLDING;
+
+    /**
+     * 起始地址（从0开始）
+     */
+    @Column(nullable = false)
+    private Integer address;
+
+    /**
+     * 数据类型
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DataType dataType = DataType.UINT16;
+
+    /**
+     * 多寄存器数值的字节序
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Endianness endianness = Endianness.ABCD;
+
+    /**
+     * 缩放系数，为空时按整数返回
+     */
+    private Double scale;
+
+    /**
+     * 占用的寄存器（或线圈）数量
+     */
+    public int length() {
+        return dataType.getRegisters();
+    }
+
+    /**
+     * 寄存器表枚举
+     */
+    public enum RegisterTable {
+        HOLDING("保持寄存器", 125),
+        INPUT("输入寄存器", 125),
+        COIL("线圈", 2000),
+        DISCRETE_INPUT("离散输入", 2000);
+
+        private final String description;
+
+        /**
+         * 单次请求允许读取的最大数量（Modbus PDU限制）
+         */
+        private final int maxQuantity;
+
+        RegisterTable(String description, int maxQuantity) {
+            this.description = description;
+            this.maxQuantity = maxQuantity;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getMaxQuantity() {
+            return maxQuantity;
+        }
+
+        public boolean isBitTable() {
+            return this == COIL || this == DISCRETE_INPUT;
+        }
+    }
+
+    /**
+     * 数据类型枚举
+     */
+    public enum DataType {
+        BOOL(1),
+        INT16(1),
+        UINT16(1),
+        INT32(2),
+        UINT32(2),
+        FLOAT32(2);
+
+        private final int registers;
+
+        DataType(int registers) {
+            this.registers = registers;
+        }
+
+        public int getRegisters() {
+            return registers;
+        }
+    }
+
+    /**
+     * 字节序枚举，A为最高字节
+     */
+    public enum Endianness {
+        /**
+         * 大端，高字在前（Modbus默认）
+         */
+        ABCD,
+        /**
+         * 字交换，低字在前
+         */
+        CDAB,
+        /**
+         * 字内字节交换
+         */
+        BADC,
+        /**
+         * 小端
+         */
+        DCBA
+    }
+}
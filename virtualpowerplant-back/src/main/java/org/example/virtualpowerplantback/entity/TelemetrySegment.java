@@ -0,0 +1,65 @@
+package org.example.virtualpowerplantback.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 压缩存储的原始遥测分段
+ * 一行保存一台设备在一个时间块内的全部样本，时间戳和各测点按列以 Gorilla 方式压缩，
+ * 列的顺序为 metricMask 中置位的 TelemetryMetric 槽位从小到大
+ */
+@Entity
+@Table(name = "telemetry_segment", indexes = {
+    @Index(name = "idx_segment_device_time", columnList = "device_id, start_time, end_time"),
+    @Index(name = "idx_segment_end_time", columnList = "end_time")
+})
+@Data
+@NoArgsConstructor
+public class TelemetrySegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "device_id", nullable = false)
+    private Long deviceId;
+
+    /**
+     * 分段内第一个样本的采集时间
+     */
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    /**
+     * 分段内最后一个样本的采集时间
+     */
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(name = "sample_count", nullable = false)
+    private Integer sampleCount;
+
+    /**
+     * 分段包含的测点槽位掩码
+     */
+    @Column(name = "metric_mask", nullable = false)
+    private Long metricMask;
+
+    /**
+     * GorillaCodec 编码后的数据
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] data;
+
+    @Column(name = "create_time")
+    private LocalDateTime createTime;
+
+    @PrePersist
+    protected void onCreate() {
+        createTime = LocalDateTime.now();
+    }
+}
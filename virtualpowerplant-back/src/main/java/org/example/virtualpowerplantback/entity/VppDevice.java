@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -54,6 +55,24 @@ public class VppDevice {
     @Column(nullable = false)
     private DeviceType deviceType;
     
+    /**
+     * 设备型号，决定使用的寄存器映射（为空时按设备类型选择）
+     */
+    @Column(length = 50)
+    private String model;
+    
+    /**
+     * 设备分组，用于按分组汇总（例如站点、台区或聚合商）
+     */
+    @Column(length = 50)
+    private String groupName;
+    
+    /**
+     * 额定容量（kWh），储能设备按SOC折算可用电量
+     */
+    @Column(precision = 12, scale = 2)
+    private BigDecimal ratedCapacity;
+    
     /**
      * 设备状态
      */
@@ -1,13 +1,19 @@
 package org.example.virtualpowerplantback.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.virtualpowerplantback.entity.DeviceData;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 设备数据Repository
@@ -30,6 +36,31 @@ public interface DeviceDataRepository extends JpaRepository<DeviceData, Long> {
                                                @Param("startTime") LocalDateTime startTime,
                                                @Param("endTime") LocalDateTime endTime);
     
+    /**
+     * 按 (collect_time, id) 键集分页查询设备历史数据，返回游标之后的一页
+     */
+    @Query("SELECT d FROM DeviceData d WHERE d.deviceId = :deviceId " +
+           "AND d.collectTime <= :endTime " +
+           "AND (d.collectTime > :afterTime OR (d.collectTime = :afterTime AND d.id > :afterId)) " +
+           "ORDER BY d.collectTime ASC, d.id ASC")
+    List<DeviceData> findPageAfter(@Param("deviceId") Long deviceId,
+                                   @Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterId") Long afterId,
+                                   @Param("endTime") LocalDateTime endTime,
+                                   Limit limit);
+    
+    /**
+     * 以流的方式按设备、时间顺序读取多个设备的历史数据，需在事务内消费
+     * MySQL驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行读取结果集
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT d FROM DeviceData d WHERE d.deviceId IN :deviceIds " +
+           "AND d.collectTime BETWEEN :startTime AND :endTime " +
+           "ORDER BY d.deviceId ASC, d.collectTime ASC, d.id ASC")
+    Stream<DeviceData> streamByDeviceIdsAndTimeRange(@Param("deviceIds") Collection<Long> deviceIds,
+                                                     @Param("startTime") LocalDateTime startTime,
+                                                     @Param("endTime") LocalDateTime endTime);
+    
     /**
      * 获取设备最新数据
      */
@@ -49,9 +80,4 @@ public interface DeviceDataRepository extends JpaRepository<DeviceData, Long> {
      */
     List<DeviceData> findByCollectTimeBetweenOrderByCollectTimeDesc(LocalDateTime startTime, 
                                                                    LocalDateTime endTime);
-    
-    /**
-     * 删除指定时间之前的历史数据
-     */
-    void deleteByCollectTimeBefore(LocalDateTime beforeTime);
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package org.example.virtualpowerplantback.repository;
+
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 设备数据汇总Repository
+ */
+@Repository
+public interface DeviceDataRollupRepository extends JpaRepository<DeviceDataRollup, Long> {
+
+    /**
+     * 查询设备在时间范围内某一分辨率的全部测点汇总
+     */
+    @Query("SELECT r FROM DeviceDataRollup r WHERE r.deviceId = :deviceId AND r.resolution = :resolution " +
+           "AND r.bucketStart BETWEEN :startTime AND :endTime ORDER BY r.bucketStart ASC")
+    List<DeviceDataRollup> findSeries(@Param("deviceId") Long deviceId,
+                                      @Param("resolution") DeviceDataRollup.Resolution resolution,
+                                      @Param("startTime") LocalDateTime startTime,
+                                      @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 查询设备在时间范围内某一分辨率的指定测点汇总
+     */
+    @Query("SELECT r FROM DeviceDataRollup r WHERE r.deviceId = :deviceId AND r.resolution = :resolution " +
+           "AND r.metric IN :metrics AND r.bucketStart BETWEEN :startTime AND :endTime ORDER BY r.bucketStart ASC")
+    List<DeviceDataRollup> findSeries(@Param("deviceId") Long deviceId,
+                                      @Param("resolution") DeviceDataRollup.Resolution resolution,
+                                      @Param("metrics") Collection<String> metrics,
+                                      @Param("startTime") LocalDateTime startTime,
+                                      @Param("endTime") LocalDateTime endTime);
+}
@@ -0,0 +1,26 @@
+package org.example.virtualpowerplantback.repository;
+
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 寄存器点位Repository
+ */
+@Repository
+public interface RegisterPointRepository extends JpaRepository<RegisterPoint, Long> {
+
+    /**
+     * 根据设备型号查找点位
+     */
+    List<RegisterPoint> findByModel(String model);
+
+    /**
+     * 查找数据库中配置过点位的所有型号
+     */
+    @Query("SELECT DISTINCT p.model FROM RegisterPoint p")
+    List<String> findDistinctModels();
+}
@@ -0,0 +1,26 @@
+package org.example.virtualpowerplantback.repository;
+
+import org.example.virtualpowerplantback.entity.TelemetrySegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 压缩遥测分段Repository
+ */
+@Repository
+public interface TelemetrySegmentRepository extends JpaRepository<TelemetrySegment, Long> {
+
+    /**
+     * 查询与时间范围有交集的分段
+     */
+    @Query("SELECT s FROM TelemetrySegment s WHERE s.deviceId = :deviceId " +
+           "AND s.startTime <= :endTime AND s.endTime >= :startTime ORDER BY s.startTime ASC")
+    List<TelemetrySegment> findOverlapping(@Param("deviceId") Long deviceId,
+                                           @Param("startTime") LocalDateTime startTime,
+                                           @Param("endTime") LocalDateTime endTime);
+}
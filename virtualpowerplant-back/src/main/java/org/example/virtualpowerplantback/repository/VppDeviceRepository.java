@@ -2,9 +2,13 @@ package org.example.virtualpowerplantback.repository;
 
 import org.example.virtualpowerplantback.entity.VppDevice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,7 +45,24 @@ public interface VppDeviceRepository extends JpaRepository<VppDevice, Long> {
     List<VppDevice> findActiveDevices();
     
     /**
-     * 根据IP地址和端口查找设备
+     * 根据IP地址和端口查找设备（同一网关下可能挂载多个从站）
      */
-    Optional<VppDevice> findByIpAddressAndPort(String ipAddress, Integer port);
-} 
\ No newline at end of file
+    List<VppDevice> findByIpAddressAndPort(String ipAddress, Integer port);
+    
+    /**
+     * 根据网关地址和从站ID查找设备
+     */
+    Optional<VppDevice> findByIpAddressAndPortAndSlaveId(String ipAddress, Integer port, Integer slaveId);
+    
+    /**
+     * 仅更新设备状态和最后通信时间，不加载、不重写整行
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE VppDevice d SET d.status = :status, d.lastCommunicationTime = :lastCommunicationTime, "
+            + "d.updateTime = :updateTime WHERE d.id = :id")
+    int updateStatus(@Param("id") Long id,
+                     @Param("status") VppDevice.DeviceStatus status,
+                     @Param("lastCommunicationTime") LocalDateTime lastCommunicationTime,
+                     @Param("updateTime") LocalDateTime updateTime);
+}
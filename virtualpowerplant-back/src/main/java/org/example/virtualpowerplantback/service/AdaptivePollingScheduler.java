@@ -0,0 +1,307 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.PollingProperties;
+import org.example.virtualpowerplantback.dto.PollingStats;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按设备自适应轮询调度
+ * 每台设备有自己的轮询间隔，到期时间放在延迟队列中，由一个调度线程取出到期设备交给采集引擎；
+ * 首次调度在一个间隔内随机分散，之后每次在间隔上叠加抖动。测点变化快时缩短间隔，平稳时延长，
+ * 通信失败时恢复为基准间隔。同一设备在上一次采集完成后才安排下一次，不会重叠。
+ * 处于熔断隔离中的设备直接顺延到隔离结束时刻，不占用采集线程
+ */
+@Service
+@Slf4j
+public class AdaptivePollingScheduler implements SmartLifecycle {
+
+    private final PollingProperties properties;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final VppDeviceService vppDeviceService;
+
+    private final DeviceCollectionEngine collectionEngine;
+
+    private final CircuitBreakerService circuitBreaker;
+
+    private final long defaultIntervalSeconds;
+
+    private final DelayQueue<DueEntry> queue = new DelayQueue<>();
+
+    private final Map<Long, PollState> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong speedUps = new AtomicLong();
+    private final AtomicLong slowDowns = new AtomicLong();
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    public AdaptivePollingScheduler(PollingProperties properties,
+                                    DeviceRegistry deviceRegistry,
+                                    VppDeviceService vppDeviceService,
+                                    DeviceCollectionEngine collectionEngine,
+                                    CircuitBreakerService circuitBreaker,
+                                    @Value("${vpp.modbus.collection-interval:7200}") long defaultIntervalSeconds) {
+        this.properties = properties;
+        this.deviceRegistry = deviceRegistry;
+        this.vppDeviceService = vppDeviceService;
+        this.collectionEngine = collectionEngine;
+        this.circuitBreaker = circuitBreaker;
+        this.defaultIntervalSeconds = Math.max(1, defaultIntervalSeconds);
+    }
+
+    /**
+     * 定时同步启用的设备：新设备加入调度，禁用或删除的设备移出，配置变化的设备更新基准间隔
+     */
+    @Scheduled(fixedDelayString = "${vpp.polling.refresh-interval:60000}")
+    public void refresh() {
+        if (!running) {
+            return;
+        }
+        List<VppDevice> devices = deviceRegistry.getEnabled();
+        Set<Long> enabled = new HashSet<>();
+        int added = 0;
+        for (VppDevice device : devices) {
+            enabled.add(device.getId());
+            long baseMillis = baseIntervalSeconds(device) * 1000L;
+            PollState state = states.get(device.getId());
+            if (state == null) {
+                state = new PollState(device, baseMillis);
+                states.put(device.getId(), state);
+                // 首次到期时间在一个间隔内均匀分散
+                queue.add(new DueEntry(state, System.currentTimeMillis()
+                        + ThreadLocalRandom.current().nextLong(Math.max(1, baseMillis))));
+                added++;
+            } else {
+                state.device = device;
+                if (state.baseMillis != baseMillis) {
+                    state.baseMillis = baseMillis;
+                    state.intervalMillis = baseMillis;
+                }
+            }
+        }
+
+        int removed = 0;
+        for (PollState state : states.values()) {
+            if (!enabled.contains(state.device.getId())) {
+                state.cancelled = true;
+                states.remove(state.device.getId());
+                removed++;
+            }
+        }
+        if (added > 0 || removed > 0) {
+            log.info("轮询设备已同步: 新增{}个, 移除{}个, 当前{}个", added, removed, states.size());
+        }
+    }
+
+    /**
+     * 根据本次与上次测点值的相对变化计算新的轮询间隔
+     */
+    static long adaptInterval(PollingProperties properties, long intervalMillis, long minMillis, long maxMillis,
+                              double previous, double current) {
+        double change = Math.abs(current - previous) / Math.max(Math.abs(previous), properties.getChangeFloor());
+        long next = intervalMillis;
+        if (change >= properties.getFastChangeRatio()) {
+            next = (long) (intervalMillis / Math.max(1.0, properties.getSpeedUpFactor()));
+        } else if (change <= properties.getFlatChangeRatio()) {
+            next = (long) (intervalMillis * Math.max(1.0, properties.getSlowDownFactor()));
+        }
+        return Math.max(minMillis, Math.min(maxMillis, next));
+    }
+
+    /**
+     * 获取轮询统计
+     */
+    public PollingStats getStats() {
+        double min = 0;
+        double max = 0;
+        double sum = 0;
+        int count = 0;
+        for (PollState state : states.values()) {
+            double seconds = state.intervalMillis / 1000.0;
+            min = count == 0 ? seconds : Math.min(min, seconds);
+            max = Math.max(max, seconds);
+            sum += seconds;
+            count++;
+        }
+        return new PollingStats(running, count, polls.get(), failures.get(), deferred.get(),
+                speedUps.get(), slowDowns.get(), min, count > 0 ? sum / count : 0, max);
+    }
+
+    @Override
+    public void start() {
+        if (running || !properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        dispatcher = new CustomizableThreadFactory("vpp-poll-dispatcher-").newThread(this::dispatch);
+        dispatcher.start();
+        log.info("自适应轮询已启动: 默认间隔{}秒, 最小间隔{}秒, 抖动{}",
+                defaultIntervalSeconds, properties.getMinIntervalSeconds(), properties.getJitterRatio());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        queue.clear();
+        states.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void dispatch() {
+        while (running) {
+            DueEntry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            PollState state = entry.state;
+            if (state.cancelled) {
+                continue;
+            }
+            long blockedUntil = circuitBreaker.blockedUntil(state.device);
+            if (blockedUntil > System.currentTimeMillis()) {
+                // 隔离期内不提交采集，到期后由探测决定是否恢复
+                deferred.incrementAndGet();
+                queue.add(new DueEntry(state, blockedUntil));
+                continue;
+            }
+            polls.incrementAndGet();
+            collectionEngine.submit(state.device, device -> poll(state, device))
+                    .whenComplete((success, error) -> {
+                        if (error != null || !Boolean.TRUE.equals(success)) {
+                            failures.incrementAndGet();
+                            // 通信失败时不再加密轮询，恢复基准间隔
+                            state.intervalMillis = state.baseMillis;
+                        }
+                        scheduleNext(state);
+                    });
+        }
+    }
+
+    private boolean poll(PollState state, VppDevice device) {
+        DeviceData data = vppDeviceService.pollDevice(device);
+        if (data == null || device.getStatus() != VppDevice.DeviceStatus.ONLINE) {
+            return false;
+        }
+        if (properties.isAdaptive()) {
+            adapt(state, data);
+        }
+        return true;
+    }
+
+    private void adapt(PollState state, DeviceData data) {
+        HistoryExportService.Column column = HistoryExportService.Column.byFieldName(properties.getAdaptiveMetric());
+        Object value = column != null ? column.valueOf(data) : null;
+        if (!(value instanceof Number number)) {
+            return;
+        }
+        double current = number.doubleValue();
+        if (!Double.isNaN(state.lastValue)) {
+            long minMillis = Math.min(state.baseMillis, properties.getMinIntervalSeconds() * 1000L);
+            long maxMillis = (long) (state.baseMillis * Math.max(1.0, properties.getMaxIntervalFactor()));
+            long next = adaptInterval(properties, state.intervalMillis, minMillis, maxMillis, state.lastValue, current);
+            if (next < state.intervalMillis) {
+                speedUps.incrementAndGet();
+            } else if (next > state.intervalMillis) {
+                slowDowns.incrementAndGet();
+            }
+            state.intervalMillis = next;
+        }
+        state.lastValue = current;
+    }
+
+    private void scheduleNext(PollState state) {
+        if (!running || state.cancelled) {
+            return;
+        }
+        double jitter = properties.getJitterRatio() > 0
+                ? ThreadLocalRandom.current().nextDouble(-properties.getJitterRatio(), properties.getJitterRatio())
+                : 0;
+        long delay = Math.max(1000L, (long) (state.intervalMillis * (1 + jitter)));
+        queue.add(new DueEntry(state, System.currentTimeMillis() + delay));
+    }
+
+    private long baseIntervalSeconds(VppDevice device) {
+        Integer seconds = properties.getDevices().get(device.getId());
+        if (seconds == null) {
+            seconds = properties.getDeviceTypes().get(device.getDeviceType());
+        }
+        return seconds != null && seconds > 0 ? seconds : defaultIntervalSeconds;
+    }
+
+    /**
+     * 单台设备的轮询状态
+     */
+    private static class PollState {
+
+        private volatile VppDevice device;
+        private volatile long baseMillis;
+        private volatile long intervalMillis;
+        private volatile double lastValue = Double.NaN;
+        private volatile boolean cancelled;
+
+        PollState(VppDevice device, long baseMillis) {
+            this.device = device;
+            this.baseMillis = baseMillis;
+            this.intervalMillis = baseMillis;
+        }
+    }
+
+    /**
+     * 延迟队列中的到期项
+     */
+    private static class DueEntry implements Delayed {
+
+        private final PollState state;
+        private final long dueMillis;
+
+        DueEntry(PollState state, long dueMillis) {
+            this.state = state;
+            this.dueMillis = dueMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueMillis, ((DueEntry) other).dueMillis);
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.BackfillProperties;
+import org.example.virtualpowerplantback.dto.BackfillResult;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 历史数据回填
+ * 模拟回填为每台设备创建独立的 {@link DeviceSimulation}，按固定步长生成 N 天的数据；
+ * 回放按行流式读取 CSV 或 NDJSON（与历史导出格式兼容）。两种方式都以JDBC批量插入 device_data，
+ * 并按配置计入降采样汇总表，多线程并行写入。同一时刻只允许一个回填任务
+ */
+@Service
+@Slf4j
+public class BackfillService {
+
+    public static final String MODE_SIMULATE = "SIMULATE";
+    public static final String MODE_REPLAY_CSV = "REPLAY_CSV";
+    public static final String MODE_REPLAY_NDJSON = "REPLAY_NDJSON";
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final BackfillProperties properties;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final DataSimulatorService dataSimulator;
+
+    private final TelemetryWriter telemetryWriter;
+
+    private final RollupService rollupService;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final ExecutorService executor;
+
+    private final AtomicBoolean busy = new AtomicBoolean(false);
+
+    private volatile Job current;
+
+    public BackfillService(BackfillProperties properties, DeviceRegistry deviceRegistry,
+                           DataSimulatorService dataSimulator, TelemetryWriter telemetryWriter,
+                           RollupService rollupService) {
+        this.properties = properties;
+        this.deviceRegistry = deviceRegistry;
+        this.dataSimulator = dataSimulator;
+        this.telemetryWriter = telemetryWriter;
+        this.rollupService = rollupService;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getThreads()),
+                new CustomizableThreadFactory("vpp-backfill-"));
+    }
+
+    /**
+     * 启动模拟回填：为指定设备（为空时为全部设备）生成截至当前时刻的 days 天数据，后台执行
+     *
+     * @param stepSeconds 采样间隔（秒），为空时使用默认值
+     */
+    public BackfillResult startSimulation(List<Long> deviceIds, int days, Integer stepSeconds) {
+        if (days <= 0 || days > properties.getMaxDays()) {
+            throw new RuntimeException("回填天数必须在1到" + properties.getMaxDays() + "之间");
+        }
+        int step = stepSeconds != null ? stepSeconds : properties.getDefaultStepSeconds();
+        if (step <= 0) {
+            throw new RuntimeException("采样间隔必须大于0");
+        }
+        List<VppDevice> devices = new ArrayList<>();
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            devices.addAll(deviceRegistry.getAll());
+        } else {
+            for (Long id : deviceIds) {
+                devices.add(deviceRegistry.get(id).orElseThrow(() -> new RuntimeException("设备不存在: " + id)));
+            }
+        }
+        if (devices.isEmpty()) {
+            throw new RuntimeException("没有可回填的设备");
+        }
+
+        long stepMillis = step * 1000L;
+        long to = System.currentTimeMillis() / stepMillis * stepMillis;
+        long from = to - days * DAY_MILLIS;
+        Job job = begin(MODE_SIMULATE);
+        job.devices = devices.size();
+        job.plannedRows = (to - from) / stepMillis * devices.size();
+
+        Thread coordinator = new CustomizableThreadFactory("vpp-backfill-coordinator-").newThread(() -> {
+            try {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (VppDevice device : devices) {
+                    tasks.add(executor.submit(() -> simulateDevice(job, device, from, to, stepMillis)));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (Exception e) {
+                job.message = "模拟回填异常: " + e.getMessage();
+                log.error("模拟回填异常", e);
+            } finally {
+                finish(job);
+            }
+        });
+        coordinator.start();
+        log.info("开始模拟回填: {}台设备, {}天, 步长{}秒, 计划{}条记录", devices.size(), days, step, job.plannedRows);
+        return job.toResult();
+    }
+
+    /**
+     * 回放CSV：首行为表头，必须包含 deviceId 和 collectTime 列，其余列按测点名称匹配，未知列忽略
+     */
+    public BackfillResult replayCsv(InputStream in) throws IOException {
+        Job job = begin(MODE_REPLAY_CSV);
+        try (Replay replay = new Replay(job)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new RuntimeException("CSV内容为空");
+            }
+            // 去掉历史导出附带的BOM
+            if (headerLine.startsWith("\uFEFF")) {
+                headerLine = headerLine.substring(1);
+            }
+            List<String> header = DeviceImportService.parseCsvLine(headerLine);
+            int deviceIdColumn = header.indexOf("deviceId");
+            int timeColumn = header.indexOf("collectTime");
+            if (deviceIdColumn < 0 || timeColumn < 0) {
+                throw new RuntimeException("CSV表头必须包含 deviceId 和 collectTime 列");
+            }
+            TelemetryMetric[] metrics = new TelemetryMetric[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                metrics[i] = TelemetryMetric.byName(header.get(i).trim());
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                TelemetrySample sample;
+                try {
+                    List<String> cells = DeviceImportService.parseCsvLine(line);
+                    sample = new TelemetrySample(Long.parseLong(cells.get(deviceIdColumn).trim()),
+                            parseTime(cells.get(timeColumn).trim()));
+                    for (int i = 0; i < metrics.length && i < cells.size(); i++) {
+                        String cell = cells.get(i).trim();
+                        if (metrics[i] != null && !cell.isEmpty()) {
+                            sample.set(metrics[i], finite(metrics[i], Double.parseDouble(cell)));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    replay.skip("格式错误: " + e.getMessage());
+                    continue;
+                }
+                // 只有解析失败算作跳过，写入线程池的异常终止回放
+                replay.accept(sample);
+            }
+        } catch (RuntimeException | IOException e) {
+            job.message = e.getMessage();
+            throw e;
+        } finally {
+            finish(job);
+        }
+        return job.toResult();
+    }
+
+    /**
+     * 回放NDJSON：每行一个对象，必须包含 deviceId 和 collectTime 字段，其余字段按测点名称匹配，未知字段忽略
+     */
+    public BackfillResult replayNdjson(InputStream in) throws IOException {
+        Job job = begin(MODE_REPLAY_NDJSON);
+        try (Replay replay = new Replay(job)) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                TelemetrySample sample;
+                try {
+                    sample = parseJsonLine(line);
+                } catch (RuntimeException | IOException e) {
+                    replay.skip("格式错误: " + e.getMessage());
+                    continue;
+                }
+                if (sample == null) {
+                    replay.skip("缺少 deviceId 或 collectTime");
+                } else {
+                    replay.accept(sample);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            job.message = e.getMessage();
+            throw e;
+        } finally {
+            finish(job);
+        }
+        return job.toResult();
+    }
+
+    /**
+     * 获取当前或最近一次回填任务的进度
+     */
+    public BackfillResult getStatus() {
+        Job job = current;
+        return job != null ? job.toResult() : null;
+    }
+
+    /**
+     * 取消正在运行的模拟回填，已写入的数据保留
+     */
+    public boolean cancel() {
+        Job job = current;
+        if (job == null || !busy.get()) {
+            return false;
+        }
+        job.cancelled = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 按步长推进一台设备的模拟，满一批即写入
+     */
+    private void simulateDevice(Job job, VppDevice device, long from, long to, long stepMillis) {
+        DeviceSimulation simulation = dataSimulator.newSimulation(device);
+        List<DeviceData> batch = new ArrayList<>(properties.getBatchSize());
+        List<TelemetrySample> samples = new ArrayList<>(properties.getBatchSize());
+        LocalDateTime createTime = LocalDateTime.now();
+        for (long timestamp = from + stepMillis; timestamp <= to && !job.cancelled; timestamp += stepMillis) {
+            TelemetrySample sample = new TelemetrySample(device.getId());
+            simulation.next(timestamp, sample);
+            batch.add(toRecord(sample, device.getName(), createTime));
+            samples.add(sample);
+            if (batch.size() >= properties.getBatchSize()) {
+                write(job, batch, samples);
+                batch.clear();
+                samples.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(job, batch, samples);
+        }
+    }
+
+    private DeviceData toRecord(TelemetrySample sample, String deviceName, LocalDateTime createTime) {
+        DeviceData data = VppDeviceService.toDeviceData(sample, deviceName, properties.isRawJson());
+        data.setCreateTime(createTime);
+        return data;
+    }
+
+    /**
+     * 写入一批记录；写入成功后才把对应样本计入汇总并立即落库，
+     * 失败的批次不进入汇总表，降采样曲线与 device_data 保持一致
+     */
+    private void write(Job job, List<DeviceData> batch, List<TelemetrySample> samples) {
+        if (!telemetryWriter.writeBatch(batch, false)) {
+            job.failed.addAndGet(batch.size());
+            return;
+        }
+        job.written.addAndGet(batch.size());
+        if (properties.isRollup()) {
+            samples.forEach(rollupService::accept);
+            rollupService.flush();
+        }
+    }
+
+    private Job begin(String mode) {
+        if (!busy.compareAndSet(false, true)) {
+            throw new RuntimeException("已有回填任务正在运行");
+        }
+        Job job = new Job(mode);
+        current = job;
+        return job;
+    }
+
+    private void finish(Job job) {
+        job.endNanos = System.nanoTime();
+        busy.set(false);
+        BackfillResult result = job.toResult();
+        log.info("回填结束: 模式{}, 写入{}条, 失败{}条, 跳过{}条, 耗时{}ms, {}行/秒", result.getMode(),
+                result.getWrittenRows(), result.getFailedRows(), result.getSkippedRows(),
+                result.getElapsedMillis(), result.getRowsPerSecond());
+    }
+
+    private TelemetrySample parseJsonLine(String line) throws IOException {
+        Long deviceId = null;
+        Long timestamp = null;
+        double[] values = new double[TelemetryMetric.count()];
+        boolean[] present = new boolean[TelemetryMetric.count()];
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("每行必须是JSON对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if ("deviceId".equals(field)) {
+                    deviceId = parser.getValueAsLong();
+                } else if ("collectTime".equals(field)) {
+                    timestamp = token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : parseTime(parser.getText());
+                } else {
+                    TelemetryMetric metric = TelemetryMetric.byName(field);
+                    if (metric != null && token.isNumeric()) {
+                        values[metric.slot()] = finite(metric, parser.getDoubleValue());
+                        present[metric.slot()] = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        if (deviceId == null || timestamp == null) {
+            return null;
+        }
+        TelemetrySample sample = new TelemetrySample(deviceId, timestamp);
+        for (int slot = 0; slot < values.length; slot++) {
+            if (present[slot]) {
+                sample.set(slot, values[slot]);
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * NaN、Infinity（含超出double范围的数值）按格式错误处理，整行跳过
+     */
+    private static double finite(TelemetryMetric metric, double value) {
+        if (!Double.isFinite(value)) {
+            throw new RuntimeException("测点" + metric.getFieldName() + "不是有限数值: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 解析采集时间：历史导出的 yyyy-MM-dd HH:mm:ss、ISO格式或毫秒时间戳，按系统时区解释
+     */
+    static long parseTime(String text) {
+        if (!text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        LocalDateTime time;
+        try {
+            time = LocalDateTime.parse(text, TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            time = LocalDateTime.parse(text);
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 回放会话：读取线程组批，写入在线程池中并行执行，在途批次数受限以控制内存
+     */
+    private final class Replay implements AutoCloseable {
+
+        private final Job job;
+
+        private final int permits = Math.max(1, properties.getThreads()) * 2;
+
+        private final Semaphore inFlight = new Semaphore(permits);
+
+        private final Map<Long, Optional<String>> deviceNames = new HashMap<>();
+
+        private final LocalDateTime createTime = LocalDateTime.now();
+
+        private List<DeviceData> batch = new ArrayList<>(properties.getBatchSize());
+
+        private List<TelemetrySample> samples = new ArrayList<>(properties.getBatchSize());
+
+        private Replay(Job job) {
+            this.job = job;
+        }
+
+        void accept(TelemetrySample sample) {
+            Optional<String> name = deviceNames.computeIfAbsent(sample.getDeviceId(),
+                    id -> deviceRegistry.get(id).map(VppDevice::getName));
+            if (name.isEmpty()) {
+                skip("设备不存在: " + sample.getDeviceId());
+                return;
+            }
+            job.devices = deviceNames.size();
+            batch.add(toRecord(sample, name.get(), createTime));
+            samples.add(sample);
+            if (batch.size() >= properties.getBatchSize()) {
+                submit();
+            }
+        }
+
+        void skip(String reason) {
+            if (job.skipped.incrementAndGet() == 1) {
+                job.message = reason;
+            }
+        }
+
+        private void submit() {
+            List<DeviceData> full = batch;
+            List<TelemetrySample> fullSamples = samples;
+            batch = new ArrayList<>(properties.getBatchSize());
+            samples = new ArrayList<>(properties.getBatchSize());
+            inFlight.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        write(job, full, fullSamples);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        /**
+         * 写入剩余记录并等待所有在途批次完成
+         */
+        @Override
+        public void close() {
+            if (!batch.isEmpty()) {
+                submit();
+            }
+            inFlight.acquireUninterruptibly(permits);
+            inFlight.release(permits);
+        }
+    }
+
+    /**
+     * 一次回填任务的计数
+     */
+    private static final class Job {
+
+        private final String mode;
+
+        private final LocalDateTime startTime = LocalDateTime.now();
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+
+        private volatile int devices;
+
+        private volatile long plannedRows;
+
+        private volatile long endNanos;
+
+        private volatile boolean cancelled;
+
+        private volatile String message;
+
+        private Job(String mode) {
+            this.mode = mode;
+        }
+
+        BackfillResult toResult() {
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+            BackfillResult result = new BackfillResult();
+            result.setMode(mode);
+            result.setRunning(endNanos == 0);
+            result.setCancelled(cancelled);
+            result.setStartTime(startTime);
+            result.setDevices(devices);
+            result.setPlannedRows(plannedRows);
+            result.setWrittenRows(written.get());
+            result.setFailedRows(failed.get());
+            result.setSkippedRows(skipped.get());
+            result.setElapsedMillis(elapsedMillis);
+            result.setRowsPerSecond(elapsedMillis > 0 ? written.get() * 1000 / elapsedMillis : 0);
+            result.setMessage(message);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.CircuitBreakerProperties;
+import org.example.virtualpowerplantback.dto.CircuitBreakerStats;
+import org.example.virtualpowerplantback.dto.CircuitState;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备与网关熔断
+ * 设备连续失败达到阈值后进入隔离（OPEN），到期前调度器不再为其占用采集线程；
+ * 到期后只放行一次探测（HALF_OPEN），探测成功恢复正常，失败则按倍数延长隔离时长直至上限。
+ * 同一网关下连续失败达到网关阈值时整个网关进入隔离，其下所有从站一起跳过，由一次探测决定是否恢复。
+ * 只有出现过失败的设备和网关才会建立熔断器，恢复后即移除。
+ * 各作用域处于隔离、探测中的熔断器数量与状态切换次数通过 VppMetrics 暴露
+ */
+@Service
+@Slf4j
+public class CircuitBreakerService {
+
+    /**
+     * 一次采集的放行结果
+     */
+    public enum Permit {
+        /**
+         * 正常采集
+         */
+        ALLOWED,
+        /**
+         * 隔离到期后的探测，调用方应先做低成本的连通性探测
+         */
+        PROBE,
+        /**
+         * 隔离中，跳过本次采集
+         */
+        REJECTED
+    }
+
+    private final CircuitBreakerProperties properties;
+
+    private final VppMetrics metrics;
+
+    private final Map<Long, Breaker> devices = new ConcurrentHashMap<>();
+
+    private final Map<String, Breaker> gateways = new ConcurrentHashMap<>();
+
+    private final AtomicLong trips = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong probeSuccesses = new AtomicLong();
+
+    public CircuitBreakerService(CircuitBreakerProperties properties, VppMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        for (CircuitState.State state : List.of(CircuitState.State.OPEN, CircuitState.State.HALF_OPEN)) {
+            metrics.registerCircuitState(CircuitState.Scope.DEVICE.name(), state.name(), devices,
+                    breakers -> countInState(breakers, state));
+            metrics.registerCircuitState(CircuitState.Scope.GATEWAY.name(), state.name(), gateways,
+                    breakers -> countInState(breakers, state));
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * 判断设备本次是否可以采集；隔离到期时只有一个调用方获得探测资格
+     */
+    public Permit tryAcquire(VppDevice device) {
+        if (!properties.isEnabled()) {
+            return Permit.ALLOWED;
+        }
+        long now = System.currentTimeMillis();
+        Breaker gateway = gateways.get(DeviceCollectionEngine.gatewayKey(device));
+        Breaker single = devices.get(device.getId());
+        if ((gateway != null && gateway.isBlocked(now)) || (single != null && single.isBlocked(now))) {
+            rejected.incrementAndGet();
+            return Permit.REJECTED;
+        }
+
+        boolean probe = false;
+        if (gateway != null && gateway.needsProbe()) {
+            if (!gateway.claimProbe(now, properties.getProbeTimeout())) {
+                rejected.incrementAndGet();
+                return Permit.REJECTED;
+            }
+            probe = true;
+        }
+        if (single != null && single.needsProbe()) {
+            if (!single.claimProbe(now, properties.getProbeTimeout())) {
+                if (probe) {
+                    gateway.releaseProbe();
+                }
+                rejected.incrementAndGet();
+                return Permit.REJECTED;
+            }
+            probe = true;
+        }
+        if (probe) {
+            probes.incrementAndGet();
+            return Permit.PROBE;
+        }
+        return Permit.ALLOWED;
+    }
+
+    /**
+     * 设备或其网关处于隔离时返回隔离到期时间（毫秒时间戳），否则返回0
+     */
+    public long blockedUntil(VppDevice device) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long until = 0;
+        Breaker gateway = gateways.get(DeviceCollectionEngine.gatewayKey(device));
+        if (gateway != null && gateway.isBlocked(now)) {
+            until = gateway.openUntil;
+        }
+        Breaker single = devices.get(device.getId());
+        if (single != null && single.isBlocked(now)) {
+            until = Math.max(until, single.openUntil);
+        }
+        return until;
+    }
+
+    /**
+     * 记录一次通信成功，设备及其网关恢复正常
+     */
+    public void recordSuccess(VppDevice device) {
+        Breaker single = devices.remove(device.getId());
+        if (single != null && single.close()) {
+            probeSuccesses.incrementAndGet();
+            log.info("设备恢复通信，解除隔离: {}", device.getName());
+        }
+        String key = DeviceCollectionEngine.gatewayKey(device);
+        Breaker gateway = gateways.remove(key);
+        if (gateway != null && gateway.close()) {
+            log.info("网关恢复通信，解除隔离: {}", key);
+        }
+    }
+
+    /**
+     * 记录一次通信失败
+     */
+    public void recordFailure(VppDevice device) {
+        if (!properties.isEnabled() || device.getId() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Breaker single = devices.computeIfAbsent(device.getId(), id -> new Breaker(CircuitState.Scope.DEVICE));
+        if (single.fail(properties.getFailureThreshold(), properties, now)) {
+            trips.incrementAndGet();
+            log.warn("设备连续失败{}次，隔离{}ms: {}", single.failures, single.backoff, device.getName());
+        }
+        String key = DeviceCollectionEngine.gatewayKey(device);
+        Breaker gateway = gateways.computeIfAbsent(key, k -> new Breaker(CircuitState.Scope.GATEWAY));
+        if (gateway.fail(properties.getGatewayFailureThreshold(), properties, now)) {
+            trips.incrementAndGet();
+            log.warn("网关连续失败{}次，隔离{}ms: {}", gateway.failures, gateway.backoff, key);
+        }
+    }
+
+    /**
+     * 设备被修改或删除时丢弃其熔断状态
+     */
+    public void evict(Long deviceId) {
+        devices.remove(deviceId);
+    }
+
+    /**
+     * 获取设备及其网关的熔断状态
+     */
+    public List<CircuitState> getStates(VppDevice device) {
+        String key = DeviceCollectionEngine.gatewayKey(device);
+        return List.of(
+                toState(CircuitState.Scope.DEVICE, String.valueOf(device.getId()), devices.get(device.getId())),
+                toState(CircuitState.Scope.GATEWAY, key, gateways.get(key)));
+    }
+
+    /**
+     * 获取熔断统计
+     */
+    public CircuitBreakerStats getStats() {
+        List<CircuitState> open = new ArrayList<>();
+        int openDevices = 0;
+        int openGateways = 0;
+        for (Map.Entry<String, Breaker> entry : gateways.entrySet()) {
+            CircuitState state = toState(CircuitState.Scope.GATEWAY, entry.getKey(), entry.getValue());
+            if (state.getState() != CircuitState.State.CLOSED) {
+                open.add(state);
+                openGateways++;
+            }
+        }
+        for (Map.Entry<Long, Breaker> entry : devices.entrySet()) {
+            CircuitState state = toState(CircuitState.Scope.DEVICE, String.valueOf(entry.getKey()), entry.getValue());
+            if (state.getState() != CircuitState.State.CLOSED) {
+                open.add(state);
+                openDevices++;
+            }
+        }
+        return new CircuitBreakerStats(properties.isEnabled(), openDevices, openGateways, trips.get(),
+                rejected.get(), probes.get(), probeSuccesses.get(), open);
+    }
+
+    private static int countInState(Map<?, Breaker> breakers, CircuitState.State state) {
+        int count = 0;
+        for (Breaker breaker : breakers.values()) {
+            if (breaker.state() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CircuitState toState(CircuitState.Scope scope, String key, Breaker breaker) {
+        if (breaker == null) {
+            return new CircuitState(scope, key, CircuitState.State.CLOSED, 0, 0, null);
+        }
+        synchronized (breaker) {
+            return new CircuitState(scope, key, breaker.state, breaker.failures, breaker.backoff,
+                    breaker.state != CircuitState.State.CLOSED
+                            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(breaker.openUntil), ZoneId.systemDefault())
+                            : null);
+        }
+    }
+
+    /**
+     * 单个设备或网关的熔断器
+     */
+    private class Breaker {
+
+        private final CircuitState.Scope scope;
+        private CircuitState.State state = CircuitState.State.CLOSED;
+        private int failures;
+        private long backoff;
+        private volatile long openUntil;
+        private long probeStartedAt;
+
+        Breaker(CircuitState.Scope scope) {
+            this.scope = scope;
+        }
+
+        synchronized CircuitState.State state() {
+            return state;
+        }
+
+        synchronized boolean isBlocked(long now) {
+            return state != CircuitState.State.CLOSED && now < openUntil;
+        }
+
+        synchronized boolean needsProbe() {
+            return state != CircuitState.State.CLOSED;
+        }
+
+        synchronized boolean claimProbe(long now, long probeTimeout) {
+            if (state == CircuitState.State.HALF_OPEN && now - probeStartedAt < probeTimeout) {
+                // 已有探测在进行
+                return false;
+            }
+            transition(CircuitState.State.HALF_OPEN);
+            probeStartedAt = now;
+            return true;
+        }
+
+        synchronized void releaseProbe() {
+            if (state == CircuitState.State.HALF_OPEN) {
+                transition(CircuitState.State.OPEN);
+            }
+        }
+
+        /**
+         * 恢复正常，返回之前是否处于隔离
+         */
+        synchronized boolean close() {
+            boolean wasOpen = state != CircuitState.State.CLOSED;
+            transition(CircuitState.State.CLOSED);
+            failures = 0;
+            backoff = 0;
+            return wasOpen;
+        }
+
+        /**
+         * 记录一次失败，返回是否因此进入隔离
+         */
+        synchronized boolean fail(int threshold, CircuitBreakerProperties properties, long now) {
+            failures++;
+            if (state == CircuitState.State.HALF_OPEN) {
+                backoff = Math.min(properties.getBackoffMax(),
+                        (long) (backoff * Math.max(1.0, properties.getBackoffMultiplier())));
+            } else if (state == CircuitState.State.CLOSED && failures >= Math.max(1, threshold)) {
+                backoff = Math.min(properties.getBackoffMax(), properties.getBackoffInitial());
+            } else {
+                return false;
+            }
+            transition(CircuitState.State.OPEN);
+            openUntil = now + backoff;
+            return true;
+        }
+
+        private void transition(CircuitState.State next) {
+            if (state != next) {
+                metrics.circuitTransition(scope.name(), state.name(), next.name());
+                state = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.CompactSeries;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.TelemetrySegment;
+import org.example.virtualpowerplantback.repository.TelemetrySegmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 原始遥测的压缩列式存储
+ * 每台设备在当前时间块内的样本先按列缓存在内存中，时间块结束或样本数达到上限时
+ * 用 GorillaCodec 编码成一个分段写入 telemetry_segment；历史查询合并已落库分段与内存中的未封存样本
+ */
+@Service
+@Slf4j
+public class CompactTelemetryStore {
+
+    private final TelemetrySegmentRepository segmentRepository;
+
+    private final boolean enabled;
+
+    private final long chunkMillis;
+
+    private final int maxSamples;
+
+    // 设备ID -> 当前时间块的未封存样本
+    private final Map<Long, SegmentBuilder> builders = new ConcurrentHashMap<>();
+
+    public CompactTelemetryStore(TelemetrySegmentRepository segmentRepository,
+                                 @Value("${vpp.compact-storage.enabled:false}") boolean enabled,
+                                 @Value("${vpp.compact-storage.chunk-minutes:60}") int chunkMinutes,
+                                 @Value("${vpp.compact-storage.max-samples:1440}") int maxSamples) {
+        this.segmentRepository = segmentRepository;
+        this.enabled = enabled;
+        this.chunkMillis = Math.max(1, chunkMinutes) * 60_000L;
+        this.maxSamples = Math.max(2, maxSamples);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一个样本，跨时间块或样本数达到上限时封存上一个分段
+     */
+    public void accept(TelemetrySample sample) {
+        if (!enabled || sample.isError() || sample.getPresentMask() == 0) {
+            return;
+        }
+        long chunkStart = sample.getTimestamp() - Math.floorMod(sample.getTimestamp(), chunkMillis);
+        SegmentBuilder[] sealed = new SegmentBuilder[1];
+        builders.compute(sample.getDeviceId(), (id, builder) -> {
+            if (builder != null && (builder.chunkStart != chunkStart || builder.count >= maxSamples)) {
+                sealed[0] = builder;
+                builder = null;
+            }
+            if (builder == null) {
+                builder = new SegmentBuilder(id, chunkStart);
+            }
+            builder.append(sample);
+            return builder;
+        });
+        if (sealed[0] != null) {
+            persist(sealed[0]);
+        }
+    }
+
+    /**
+     * 定时封存时间块已结束的分段，避免采集停止的设备样本长期留在内存
+     */
+    @Scheduled(fixedDelayString = "${vpp.compact-storage.seal-interval:60000}")
+    public void sealExpired() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, SegmentBuilder> entry : builders.entrySet()) {
+            SegmentBuilder builder = entry.getValue();
+            if (builder.chunkStart + chunkMillis <= now && builders.remove(entry.getKey(), builder)) {
+                persist(builder);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void sealAll() {
+        for (Long deviceId : new ArrayList<>(builders.keySet())) {
+            SegmentBuilder builder = builders.remove(deviceId);
+            if (builder != null) {
+                persist(builder);
+            }
+        }
+    }
+
+    /**
+     * 解码设备在时间范围内的原始样本
+     *
+     * @param metrics 需要的测点，为空时返回全部测点
+     */
+    public CompactSeries read(Long deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                              Collection<String> metrics) {
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+        if (startTime == null) {
+            startTime = endTime.minusDays(1);
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+
+        long wanted = -1L;
+        if (metrics != null && !metrics.isEmpty()) {
+            wanted = 0;
+            for (String name : metrics) {
+                TelemetryMetric metric = TelemetryMetric.byName(name);
+                if (metric == null) {
+                    throw new RuntimeException("未知测点: " + name);
+                }
+                wanted |= 1L << metric.slot();
+            }
+        }
+
+        long from = toMillis(startTime);
+        long to = toMillis(endTime);
+        ColumnCollector collector = new ColumnCollector(wanted);
+        for (TelemetrySegment segment : segmentRepository.findOverlapping(deviceId, startTime, endTime)) {
+            collector.addSegment(segment.getMetricMask(), segment.getData(), from, to);
+        }
+
+        // 内存中尚未封存的样本
+        byte[][] open = new byte[1][];
+        long[] openMask = new long[1];
+        builders.computeIfPresent(deviceId, (id, builder) -> {
+            openMask[0] = builder.mask;
+            open[0] = builder.encode();
+            return builder;
+        });
+        if (open[0] != null) {
+            collector.addSegment(openMask[0], open[0], from, to);
+        }
+
+        return new CompactSeries(deviceId, startTime, endTime, collector.timestamps, collector.values());
+    }
+
+    /**
+     * 内存中未封存的样本数
+     */
+    public int pendingSamples() {
+        return builders.values().stream().mapToInt(builder -> builder.count).sum();
+    }
+
+    /**
+     * 将一组同一设备的样本编码为分段
+     */
+    public static TelemetrySegment encodeSegment(long deviceId, List<TelemetrySample> samples) {
+        if (samples.isEmpty()) {
+            throw new RuntimeException("分段至少需要一个样本");
+        }
+        SegmentBuilder builder = new SegmentBuilder(deviceId, samples.get(0).getTimestamp());
+        samples.forEach(builder::append);
+        return builder.toSegment();
+    }
+
+    /**
+     * 将分段解码为样本
+     */
+    public static List<TelemetrySample> decodeSegment(TelemetrySegment segment) {
+        byte[] data = segment.getData();
+        long[] timestamps = GorillaCodec.decodeTimestamps(data);
+        int[] slots = slotsOf(segment.getMetricMask());
+        List<TelemetrySample> samples = new ArrayList<>(timestamps.length);
+        for (long timestamp : timestamps) {
+            samples.add(new TelemetrySample(segment.getDeviceId(), timestamp));
+        }
+        for (int c = 0; c < slots.length; c++) {
+            double[] column = GorillaCodec.decodeColumn(data, c);
+            for (int i = 0; i < column.length; i++) {
+                if (!Double.isNaN(column[i])) {
+                    samples.get(i).set(slots[c], column[i]);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private void persist(SegmentBuilder builder) {
+        try {
+            segmentRepository.save(builder.toSegment());
+        } catch (Exception e) {
+            log.error("写入压缩分段失败: 设备{}, {}个样本, {}", builder.deviceId, builder.count, e.getMessage());
+        }
+    }
+
+    private static int[] slotsOf(long mask) {
+        int[] slots = new int[Long.bitCount(mask)];
+        int index = 0;
+        for (int slot = 0; slot < TelemetryMetric.count(); slot++) {
+            if ((mask & (1L << slot)) != 0) {
+                slots[index++] = slot;
+            }
+        }
+        return slots;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 一台设备当前时间块的列式缓冲
+     */
+    private static class SegmentBuilder {
+
+        private final long deviceId;
+        private final long chunkStart;
+        private long[] timestamps = new long[64];
+        private final double[][] columns = new double[TelemetryMetric.count()][];
+        private long mask;
+        private int count;
+
+        SegmentBuilder(long deviceId, long chunkStart) {
+            this.deviceId = deviceId;
+            this.chunkStart = chunkStart;
+        }
+
+        void append(TelemetrySample sample) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                for (int slot = 0; slot < columns.length; slot++) {
+                    if (columns[slot] != null) {
+                        columns[slot] = Arrays.copyOf(columns[slot], count * 2);
+                    }
+                }
+            }
+            timestamps[count] = sample.getTimestamp();
+            for (int slot = 0; slot < columns.length; slot++) {
+                double value = sample.get(TelemetryMetric.ofSlot(slot));
+                if (Double.isNaN(value)) {
+                    if (columns[slot] != null) {
+                        columns[slot][count] = Double.NaN;
+                    }
+                    continue;
+                }
+                if (columns[slot] == null) {
+                    // 新出现的测点，之前的样本补NaN
+                    columns[slot] = new double[timestamps.length];
+                    Arrays.fill(columns[slot], 0, count, Double.NaN);
+                    mask |= 1L << slot;
+                }
+                columns[slot][count] = value;
+            }
+            count++;
+        }
+
+        byte[] encode() {
+            int[] slots = slotsOf(mask);
+            double[][] selected = new double[slots.length][];
+            for (int c = 0; c < slots.length; c++) {
+                selected[c] = columns[slots[c]];
+            }
+            return GorillaCodec.encode(timestamps, selected, count);
+        }
+
+        TelemetrySegment toSegment() {
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                first = Math.min(first, timestamps[i]);
+                last = Math.max(last, timestamps[i]);
+            }
+            TelemetrySegment segment = new TelemetrySegment();
+            segment.setDeviceId(deviceId);
+            segment.setStartTime(toTime(first));
+            segment.setEndTime(toTime(last));
+            segment.setSampleCount(count);
+            segment.setMetricMask(mask);
+            segment.setData(encode());
+            return segment;
+        }
+    }
+
+    /**
+     * 按列收集解码结果，只解码需要的测点列
+     */
+    private static class ColumnCollector {
+
+        private final long wanted;
+        private final List<Long> timestamps = new ArrayList<>();
+        private final Map<Integer, List<Double>> columns = new LinkedHashMap<>();
+
+        ColumnCollector(long wanted) {
+            this.wanted = wanted;
+        }
+
+        void addSegment(long mask, byte[] data, long from, long to) {
+            long[] segmentTimes = GorillaCodec.decodeTimestamps(data);
+            int base = timestamps.size();
+            int[] rows = new int[segmentTimes.length];
+            int selected = 0;
+            for (int i = 0; i < segmentTimes.length; i++) {
+                if (segmentTimes[i] >= from && segmentTimes[i] <= to) {
+                    rows[selected++] = i;
+                    timestamps.add(segmentTimes[i]);
+                }
+            }
+            if (selected == 0) {
+                return;
+            }
+
+            int[] slots = slotsOf(mask);
+            for (int c = 0; c < slots.length; c++) {
+                if ((wanted & (1L << slots[c])) == 0) {
+                    continue;
+                }
+                double[] column = GorillaCodec.decodeColumn(data, c);
+                List<Double> target = column(slots[c], base);
+                for (int r = 0; r < selected; r++) {
+                    double value = column[rows[r]];
+                    target.add(Double.isNaN(value) ? null : value);
+                }
+            }
+            // 本分段没有的测点补null，保持各列与时间戳等长
+            for (List<Double> target : columns.values()) {
+                while (target.size() < timestamps.size()) {
+                    target.add(null);
+                }
+            }
+        }
+
+        private List<Double> column(int slot, int fill) {
+            return columns.computeIfAbsent(slot, s -> {
+                List<Double> list = new ArrayList<>();
+                for (int i = 0; i < fill; i++) {
+                    list.add(null);
+                }
+                return list;
+            });
+        }
+
+        Map<String, List<Double>> values() {
+            Map<String, List<Double>> result = new LinkedHashMap<>();
+            for (int slot = 0; slot < TelemetryMetric.count(); slot++) {
+                List<Double> column = columns.get(slot);
+                if (column != null) {
+                    result.put(TelemetryMetric.ofSlot(slot).getFieldName(), column);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.DeadbandProperties;
+import org.example.virtualpowerplantback.dto.DeadbandStats;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按变化上报（死区过滤）
+ * 每台设备保存上次入库样本的测点值，新样本只有在某个测点与其差值超过该测点死区、
+ * 测点集合发生变化，或距上次入库超过最长静默时间时才入库和推送；
+ * 与上次入库值而不是上次读取值比较，缓慢漂移累计超过死区后同样会入库
+ */
+@Service
+@Slf4j
+public class DeadbandFilter {
+
+    private final boolean enabled;
+
+    private final long maxSilenceMillis;
+
+    // 槽位 -> 死区
+    private final double[] deadbands = new double[TelemetryMetric.count()];
+
+    // 设备ID -> 上次入库的样本值
+    private final Map<Long, Baseline> baselines = new ConcurrentHashMap<>();
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public DeadbandFilter(DeadbandProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.maxSilenceMillis = Math.max(0, properties.getMaxSilenceSeconds()) * 1000L;
+        Arrays.fill(deadbands, Math.max(0, properties.getDefaultDeadband()));
+        properties.getMetrics().forEach((name, deadband) -> {
+            TelemetryMetric metric = TelemetryMetric.byName(name);
+            if (metric == null) {
+                throw new RuntimeException("死区配置中存在未知测点: " + name);
+            }
+            deadbands[metric.slot()] = Math.max(0, deadband);
+        });
+        if (enabled) {
+            log.info("死区过滤已启用: 测点死区{}, 最长静默{}秒", properties.getMetrics(), properties.getMaxSilenceSeconds());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 判断样本是否需要入库，需要时以其作为新的比较基准
+     */
+    public boolean accept(TelemetrySample sample) {
+        if (!enabled || sample.isError()) {
+            stored.incrementAndGet();
+            return true;
+        }
+        boolean[] changed = new boolean[1];
+        baselines.compute(sample.getDeviceId(), (id, baseline) -> {
+            if (baseline == null || exceeds(baseline, sample)) {
+                changed[0] = true;
+                return new Baseline(sample);
+            }
+            return baseline;
+        });
+        (changed[0] ? stored : suppressed).incrementAndGet();
+        return changed[0];
+    }
+
+    /**
+     * 移除设备的比较基准，下一条样本一定入库
+     */
+    public void evict(Long deviceId) {
+        baselines.remove(deviceId);
+    }
+
+    /**
+     * 获取过滤统计
+     */
+    public DeadbandStats getStats() {
+        long storedCount = stored.get();
+        long suppressedCount = suppressed.get();
+        long total = storedCount + suppressedCount;
+        return new DeadbandStats(enabled, baselines.size(), storedCount, suppressedCount,
+                total > 0 ? (double) suppressedCount / total : 0);
+    }
+
+    private boolean exceeds(Baseline baseline, TelemetrySample sample) {
+        if (baseline.mask != sample.getPresentMask()) {
+            return true;
+        }
+        if (maxSilenceMillis > 0 && sample.getTimestamp() - baseline.timestamp >= maxSilenceMillis) {
+            return true;
+        }
+        for (int slot = 0; slot < deadbands.length; slot++) {
+            if ((baseline.mask & (1L << slot)) == 0) {
+                continue;
+            }
+            double current = sample.get(TelemetryMetric.ofSlot(slot));
+            double previous = baseline.values[slot];
+            if (deadbands[slot] == 0
+                    ? Double.compare(current, previous) != 0
+                    : Math.abs(current - previous) > deadbands[slot]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 上次入库样本的测点值
+     */
+    private static class Baseline {
+
+        private final long timestamp;
+        private final long mask;
+        private final double[] values = new double[TelemetryMetric.count()];
+
+        Baseline(TelemetrySample sample) {
+            this.timestamp = sample.getTimestamp();
+            this.mask = sample.getPresentMask();
+            for (int slot = 0; slot < values.length; slot++) {
+                values[slot] = sample.get(TelemetryMetric.ofSlot(slot));
+            }
+        }
+    }
+}
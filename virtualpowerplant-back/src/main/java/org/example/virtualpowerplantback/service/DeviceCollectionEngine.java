@@ -0,0 +1,224 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.CollectionPassResult;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 设备并发采集引擎
+ * 按网关（ipAddress:port）分组，每个网关最多同时占用 perGatewayConcurrency 个采集通道，
+ * 所有通道共享一个大小为 maxConcurrency 的线程池，从而同时限制全局并发和单网关并发。
+ * 全量采集与单设备提交进入同一个网关通道队列，两者重叠时单网关并发仍不超过上限。
+ * 一轮采集超时返回后，未完成的网关继续在后台采集，期间后续轮次跳过这些网关，避免同一网关被重复轮询
+ */
+@Service
+@Slf4j
+public class DeviceCollectionEngine {
+
+    private final int maxConcurrency;
+
+    private final int perGatewayConcurrency;
+
+    private final long passTimeoutSeconds;
+
+    private final ExecutorService executor;
+
+    // 网关 -> 单设备采集任务的等待队列
+    private final Map<String, GatewayLane> gatewayLanes = new ConcurrentHashMap<>();
+
+    // 全量采集中尚未完成的网关
+    private final Set<String> busyGateways = ConcurrentHashMap.newKeySet();
+
+    public DeviceCollectionEngine(VppMetrics metrics,
+                                  @Value("${vpp.collection.max-concurrency:64}") int maxConcurrency,
+                                  @Value("${vpp.collection.per-gateway-concurrency:8}") int perGatewayConcurrency,
+                                  @Value("${vpp.collection.pass-timeout:1800}") long passTimeoutSeconds) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.perGatewayConcurrency = Math.max(1, perGatewayConcurrency);
+        this.passTimeoutSeconds = passTimeoutSeconds;
+        this.executor = Executors.newFixedThreadPool(this.maxConcurrency,
+                new CustomizableThreadFactory("vpp-collect-"));
+        metrics.registerQueueDepth("collection", this, DeviceCollectionEngine::getPendingTasks);
+    }
+
+    /**
+     * 并发执行一轮采集
+     *
+     * @param devices 待采集设备
+     * @param task    单设备采集任务，返回true表示采集成功
+     */
+    public CollectionPassResult runPass(List<VppDevice> devices, Predicate<VppDevice> task) {
+        LocalDateTime startTime = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        Map<String, List<VppDevice>> gateways = groupByGateway(devices);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger failure = new AtomicInteger();
+        int skipped = 0;
+
+        List<CompletableFuture<Void>> gatewayPasses = new ArrayList<>();
+        for (Map.Entry<String, List<VppDevice>> entry : gateways.entrySet()) {
+            String gateway = entry.getKey();
+            List<VppDevice> gatewayDevices = entry.getValue();
+            if (!busyGateways.add(gateway)) {
+                skipped += gatewayDevices.size();
+                continue;
+            }
+            List<CompletableFuture<Void>> results = new ArrayList<>(gatewayDevices.size());
+            for (VppDevice device : gatewayDevices) {
+                results.add(submit(device, task).thenAccept(ok -> (ok ? success : failure).incrementAndGet()));
+            }
+            // 网关的所有设备结束后才释放，完成回调执行完毕后该 future 才完成
+            gatewayPasses.add(CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new))
+                    .whenComplete((result, error) -> busyGateways.remove(gateway)));
+        }
+        if (skipped > 0) {
+            log.warn("{}台设备所属网关仍在执行上一轮采集，本轮跳过", skipped);
+        }
+
+        try {
+            CompletableFuture.allOf(gatewayPasses.toArray(CompletableFuture<?>[]::new))
+                    .get(passTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("采集任务被中断");
+        } catch (TimeoutException e) {
+            log.warn("本轮采集超过{}秒仍未完成，剩余设备将在后台继续采集，完成前后续轮次跳过这些网关",
+                    passTimeoutSeconds);
+        } catch (ExecutionException e) {
+            log.error("采集任务执行异常: {}", e.getMessage());
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int finished = success.get() + failure.get();
+        double devicesPerSecond = elapsedMillis > 0 ? finished * 1000.0 / elapsedMillis : finished;
+
+        return new CollectionPassResult(startTime, devices.size(), gateways.size(),
+                success.get(), failure.get(), skipped, elapsedMillis, devicesPerSecond);
+    }
+
+    /**
+     * 提交单个设备的采集任务，与全量采集共用网关通道，同一网关同时运行的通道不超过 perGatewayConcurrency 个
+     *
+     * @return 采集是否成功，任务异常时为false
+     */
+    public CompletableFuture<Boolean> submit(VppDevice device, Predicate<VppDevice> task) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        GatewayLane lane = gatewayLanes.computeIfAbsent(gatewayKey(device), k -> new GatewayLane());
+        lane.queue.add(new PendingTask(device, task, future));
+        startLane(lane);
+        return future;
+    }
+
+    private void startLane(GatewayLane lane) {
+        while (!lane.queue.isEmpty()) {
+            int active = lane.active.get();
+            if (active >= perGatewayConcurrency) {
+                return;
+            }
+            if (lane.active.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(() -> runLane(lane));
+                } catch (RejectedExecutionException e) {
+                    lane.active.decrementAndGet();
+                    PendingTask pending;
+                    while ((pending = lane.queue.poll()) != null) {
+                        pending.future.complete(false);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private void runLane(GatewayLane lane) {
+        try {
+            PendingTask pending;
+            while ((pending = lane.queue.poll()) != null) {
+                try {
+                    pending.future.complete(pending.task.test(pending.device));
+                } catch (Exception e) {
+                    log.error("采集设备数据失败: {} - {}", pending.device.getName(), e.getMessage());
+                    pending.future.complete(false);
+                }
+            }
+        } finally {
+            lane.active.decrementAndGet();
+            // 退出前新加入的任务
+            startLane(lane);
+        }
+    }
+
+    /**
+     * 按网关地址分组
+     */
+    private Map<String, List<VppDevice>> groupByGateway(List<VppDevice> devices) {
+        Map<String, List<VppDevice>> gateways = new LinkedHashMap<>();
+        for (VppDevice device : devices) {
+            gateways.computeIfAbsent(gatewayKey(device), k -> new ArrayList<>()).add(device);
+        }
+        return gateways;
+    }
+
+    /**
+     * 网关标识
+     */
+    public static String gatewayKey(VppDevice device) {
+        return "%s:%d".formatted(device.getIpAddress(), device.getPort());
+    }
+
+    /**
+     * 按网关排队、尚未开始采集的设备数
+     */
+    public int getPendingTasks() {
+        int pending = 0;
+        for (GatewayLane lane : gatewayLanes.values()) {
+            pending += lane.queue.size();
+        }
+        return pending;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getPerGatewayConcurrency() {
+        return perGatewayConcurrency;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record PendingTask(VppDevice device, Predicate<VppDevice> task, CompletableFuture<Boolean> future) {
+    }
+
+    private static class GatewayLane {
+        private final Queue<PendingTask> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger active = new AtomicInteger();
+    }
+}
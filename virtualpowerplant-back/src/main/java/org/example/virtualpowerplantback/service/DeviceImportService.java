@@ -0,0 +1,388 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.DeviceDTO;
+import org.example.virtualpowerplantback.dto.DeviceImportResult;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 设备批量导入
+ * 以流的方式逐行读取 CSV 或 JSON 数组，按批校验 DeviceDTO；重复设备（同一网关同一从站）
+ * 先在文件内去重，再对每批涉及的IP地址用一次 IN 查询与已有设备比对，最后以JDBC批量插入。
+ * 每一行都有独立的结果，校验失败的行不影响其他行；每批插入在同一事务中执行，
+ * 写入数据库失败时整批回滚，该批各行均标记为失败
+ */
+@Service
+@Slf4j
+public class DeviceImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO vpp_device (name, ip_address, port, slave_id, device_type, "
+            + "model, group_name, rated_capacity, status, enabled, description, create_time, update_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // CSV表头（不区分大小写）-> DeviceDTO字段
+    private static final Map<String, String> CSV_FIELDS = new HashMap<>();
+
+    static {
+        for (String field : List.of("name", "ipAddress", "port", "slaveId", "deviceType", "model",
+                "groupName", "ratedCapacity", "enabled", "description")) {
+            CSV_FIELDS.put(field.toLowerCase(Locale.ROOT), field);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final TransactionTemplate batchTransaction;
+
+    private final int batchSize;
+
+    private final int maxRows;
+
+    public DeviceImportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Validator validator,
+                               DeviceRegistry deviceRegistry, PlatformTransactionManager transactionManager,
+                               @Value("${vpp.device-import.batch-size:1000}") int batchSize,
+                               @Value("${vpp.device-import.max-rows:100000}") int maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.deviceRegistry = deviceRegistry;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRows = Math.max(1, maxRows);
+    }
+
+    /**
+     * 导入CSV：首行为表头，列名与 DeviceDTO 字段名一致（name、ipAddress、port、slaveId、deviceType、
+     * model、groupName、ratedCapacity、enabled、description），空单元格使用默认值
+     */
+    public DeviceImportResult importCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new RuntimeException("CSV内容为空");
+        }
+        // 去掉Excel导出时附带的BOM
+        if (headerLine.startsWith("\uFEFF")) {
+            headerLine = headerLine.substring(1);
+        }
+        List<String> header = parseCsvLine(headerLine);
+        String[] fields = new String[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            fields[i] = CSV_FIELDS.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            if (fields[i] == null) {
+                throw new RuntimeException("CSV表头包含未知列: " + header.get(i));
+            }
+        }
+
+        Batch batch = new Batch();
+        String line;
+        int row = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            List<String> cells = parseCsvLine(line);
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.length && i < cells.size(); i++) {
+                String cell = cells.get(i).trim();
+                if (!cell.isEmpty()) {
+                    values.put(fields[i], cell);
+                }
+            }
+            try {
+                batch.add(row, objectMapper.convertValue(values, DeviceDTO.class));
+            } catch (IllegalArgumentException e) {
+                batch.reject(row, values.get("name"), "字段格式错误: " + rootMessage(e));
+            }
+        }
+        return batch.finish();
+    }
+
+    /**
+     * 导入JSON数组，元素为 DeviceDTO
+     */
+    public DeviceImportResult importJson(InputStream in) throws IOException {
+        Batch batch = new Batch();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("JSON内容必须是设备数组");
+            }
+            int row = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RuntimeException("JSON数组未结束");
+                }
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    batch.reject(row, null, "元素必须是设备对象");
+                    continue;
+                }
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    batch.add(row, objectMapper.treeToValue(node, DeviceDTO.class));
+                } catch (IOException | IllegalArgumentException e) {
+                    batch.reject(row, node.path("name").asText(null), "字段格式错误: " + rootMessage(e));
+                }
+            }
+        }
+        return batch.finish();
+    }
+
+    /**
+     * 解析一行CSV，支持双引号包裹的字段和 "" 转义（不支持字段内换行）
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * 查询已存在的网关从站，返回 ip:port:slaveId 集合
+     */
+    Set<String> findExistingKeys(Collection<String> ipAddresses) {
+        String placeholders = ipAddresses.stream().map(ip -> "?").collect(Collectors.joining(", "));
+        Set<String> keys = new HashSet<>();
+        jdbcTemplate.query("SELECT ip_address, port, slave_id FROM vpp_device WHERE ip_address IN (" + placeholders + ")",
+                rs -> {
+                    keys.add(key(rs.getString(1), rs.getInt(2), rs.getInt(3)));
+                }, ipAddresses.toArray());
+        return keys;
+    }
+
+    /**
+     * 批量插入设备，返回按顺序生成的ID（驱动未返回时为null）
+     */
+    List<Long> insertDevices(List<DeviceDTO> devices) {
+        LocalDateTime now = LocalDateTime.now();
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, devices.get(i), now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return devices.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keyList = keyHolder.getKeyList();
+        List<Long> ids = new ArrayList<>(devices.size());
+        for (int i = 0; i < devices.size(); i++) {
+            Object key = i < keyList.size() && !keyList.get(i).isEmpty()
+                    ? keyList.get(i).values().iterator().next() : null;
+            ids.add(key instanceof Number number ? number.longValue() : null);
+        }
+        return ids;
+    }
+
+    private static void bind(PreparedStatement ps, DeviceDTO dto, LocalDateTime now) throws SQLException {
+        ps.setString(1, dto.getName());
+        ps.setString(2, dto.getIpAddress());
+        ps.setInt(3, dto.getPort());
+        ps.setInt(4, dto.getSlaveId());
+        ps.setString(5, dto.getDeviceType().name());
+        ps.setString(6, dto.getModel());
+        ps.setString(7, dto.getGroupName());
+        if (dto.getRatedCapacity() != null) {
+            ps.setBigDecimal(8, dto.getRatedCapacity());
+        } else {
+            ps.setNull(8, Types.DECIMAL);
+        }
+        ps.setString(9, (dto.getStatus() != null ? dto.getStatus() : VppDevice.DeviceStatus.OFFLINE).name());
+        ps.setBoolean(10, dto.getEnabled() == null || dto.getEnabled());
+        ps.setString(11, dto.getDescription());
+        ps.setTimestamp(12, Timestamp.valueOf(now));
+        ps.setTimestamp(13, Timestamp.valueOf(now));
+    }
+
+    private static String key(String ipAddress, int port, int slaveId) {
+        return ipAddress + ":" + port + ":" + slaveId;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String message = root.getMessage();
+        // Jackson 的错误信息包含源位置等多行内容，只保留第一行
+        int newline = message != null ? message.indexOf('\n') : -1;
+        return newline >= 0 ? message.substring(0, newline) : message;
+    }
+
+    /**
+     * 一次导入的批处理状态
+     */
+    private class Batch {
+
+        private final long start = System.currentTimeMillis();
+        private final List<DeviceImportResult.RowResult> results = new ArrayList<>();
+        private final List<Integer> pendingRows = new ArrayList<>();
+        private final List<DeviceDTO> pending = new ArrayList<>();
+        // 文件内已出现的网关从站 -> 行号
+        private final Map<String, Integer> seen = new HashMap<>();
+        private int rows;
+
+        void add(int row, DeviceDTO dto) {
+            checkLimit();
+            Set<ConstraintViolation<DeviceDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                results.add(failure(row, dto.getName(), violations.stream()
+                        .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "))));
+                return;
+            }
+            Integer firstRow = seen.putIfAbsent(key(dto.getIpAddress(), dto.getPort(), dto.getSlaveId()), row);
+            if (firstRow != null) {
+                results.add(failure(row, dto.getName(), "与第" + firstRow + "行的网关地址和从站ID重复"));
+                return;
+            }
+            pendingRows.add(row);
+            pending.add(dto);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(int row, String name, String message) {
+            checkLimit();
+            results.add(failure(row, name, message));
+        }
+
+        DeviceImportResult finish() {
+            flush();
+            results.sort(Comparator.comparingInt(DeviceImportResult.RowResult::getRow));
+            int created = (int) results.stream().filter(DeviceImportResult.RowResult::isSuccess).count();
+            if (created > 0) {
+                // 批量插入绕过了实体保存，整体重新加载设备注册表
+                deviceRegistry.invalidateAll();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("批量导入设备完成: 共{}行, 成功{}, 失败{}, 耗时{}ms",
+                    results.size(), created, results.size() - created, elapsed);
+            return new DeviceImportResult(results.size(), created, results.size() - created, elapsed, results);
+        }
+
+        private void checkLimit() {
+            if (++rows > maxRows) {
+                throw new RuntimeException("单次导入最多" + maxRows + "行");
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Set<String> existing = findExistingKeys(pending.stream()
+                    .map(DeviceDTO::getIpAddress).collect(Collectors.toCollection(HashSet::new)));
+
+            List<Integer> insertRows = new ArrayList<>();
+            List<DeviceDTO> insert = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                DeviceDTO dto = pending.get(i);
+                if (existing.contains(key(dto.getIpAddress(), dto.getPort(), dto.getSlaveId()))) {
+                    results.add(failure(pendingRows.get(i), dto.getName(), "该IP地址和端口下已存在相同从站ID的设备"));
+                } else {
+                    insertRows.add(pendingRows.get(i));
+                    insert.add(dto);
+                }
+            }
+            pending.clear();
+            pendingRows.clear();
+            if (insert.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<Long> ids = batchTransaction.execute(status -> insertDevices(insert));
+                for (int i = 0; i < insert.size(); i++) {
+                    results.add(new DeviceImportResult.RowResult(insertRows.get(i), insert.get(i).getName(),
+                            true, ids.get(i), null));
+                }
+            } catch (DataAccessException e) {
+                log.error("批量插入设备失败，已回滚: {}条, {}", insert.size(), e.getMessage());
+                for (int i = 0; i < insert.size(); i++) {
+                    results.add(failure(insertRows.get(i), insert.get(i).getName(),
+                            "写入数据库失败: " + rootMessage(e)));
+                }
+            }
+        }
+
+        private DeviceImportResult.RowResult failure(int row, String name, String message) {
+            return new DeviceImportResult.RowResult(row, name, false, null, message);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.DeviceStatusEvent;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备在线状态跟踪
+ * 在内存中维护每台设备的状态与最后通信时间：只有状态真正变化时才立即写库，
+ * 心跳时间先标记为脏，由定时任务合并成一条批量UPDATE写入，避免每次采集都重写整行设备记录
+ */
+@Service
+@Slf4j
+public class DeviceLivenessTracker {
+
+    private final VppDeviceRepository deviceRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TelemetryStreamService telemetryStream;
+
+    private final int flushChunkSize;
+
+    private final Map<Long, Liveness> states = new ConcurrentHashMap<>();
+
+    // 有待写入心跳时间的设备ID
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public DeviceLivenessTracker(VppDeviceRepository deviceRepository, JdbcTemplate jdbcTemplate,
+                                 TelemetryStreamService telemetryStream,
+                                 @Value("${vpp.liveness.flush-chunk-size:500}") int flushChunkSize) {
+        this.deviceRepository = deviceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.telemetryStream = telemetryStream;
+        this.flushChunkSize = Math.max(1, flushChunkSize);
+    }
+
+    /**
+     * 记录一次通信成功
+     */
+    public void recordSuccess(VppDevice device, LocalDateTime time) {
+        record(device, VppDevice.DeviceStatus.ONLINE, time);
+    }
+
+    /**
+     * 记录一次通信失败，设备转为离线，最后通信时间保持不变
+     */
+    public void recordFailure(VppDevice device) {
+        record(device, VppDevice.DeviceStatus.OFFLINE, null);
+    }
+
+    /**
+     * 设备被修改或删除时丢弃内存状态，下次采集时以数据库为准重新建立
+     */
+    public void evict(Long deviceId) {
+        states.remove(deviceId);
+        dirty.remove(deviceId);
+    }
+
+    /**
+     * 内存中的设备状态，未跟踪时返回null
+     */
+    public VppDevice.DeviceStatus statusOf(Long deviceId) {
+        Liveness liveness = states.get(deviceId);
+        return liveness != null ? liveness.status : null;
+    }
+
+    /**
+     * 内存中的最后通信时间（可能比数据库更新），未跟踪时返回null
+     */
+    public LocalDateTime lastCommunicationOf(Long deviceId) {
+        Liveness liveness = states.get(deviceId);
+        return liveness != null ? liveness.lastCommunicationTime : null;
+    }
+
+    private void record(VppDevice device, VppDevice.DeviceStatus status, LocalDateTime time) {
+        // 首次跟踪时以设备当前（数据库中）的状态为基准
+        VppDevice.DeviceStatus persisted = device.getStatus();
+        if (time != null) {
+            device.setLastCommunicationTime(time);
+        }
+        device.setStatus(status);
+        if (device.getId() == null) {
+            return;
+        }
+
+        Liveness liveness = states.computeIfAbsent(device.getId(),
+                id -> new Liveness(persisted, device.getLastCommunicationTime()));
+        boolean transition;
+        synchronized (liveness) {
+            transition = liveness.status != status;
+            liveness.status = status;
+            if (time != null) {
+                liveness.lastCommunicationTime = time;
+            }
+        }
+
+        if (transition) {
+            // 状态变化立即写库，顺带写入最新通信时间
+            dirty.remove(device.getId());
+            deviceRepository.updateStatus(device.getId(), status, device.getLastCommunicationTime(),
+                    LocalDateTime.now());
+            log.info("设备状态变化: {} -> {}", device.getName(), status.getDescription());
+            telemetryStream.publishStatus(new DeviceStatusEvent(device.getId(), device.getName(),
+                    device.getDeviceType(), status, device.getLastCommunicationTime()));
+        } else if (time != null) {
+            dirty.add(device.getId());
+        }
+    }
+
+    /**
+     * 定时把积累的心跳时间合并写入数据库
+     */
+    @Scheduled(fixedDelayString = "${vpp.liveness.flush-interval:60000}")
+    public void flushHeartbeats() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> pending = new ArrayList<>();
+        Iterator<Long> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            Long id = iterator.next();
+            iterator.remove();
+            LocalDateTime time = lastCommunicationOf(id);
+            if (time != null) {
+                pending.add(new Object[]{id, Timestamp.valueOf(time)});
+            }
+        }
+
+        int updated = 0;
+        for (int from = 0; from < pending.size(); from += flushChunkSize) {
+            updated += updateChunk(pending.subList(from, Math.min(pending.size(), from + flushChunkSize)));
+        }
+        log.debug("批量写入设备心跳时间: {}个设备, 更新{}行", pending.size(), updated);
+    }
+
+    /**
+     * 一条 UPDATE ... CASE 语句写入一批设备的最后通信时间
+     */
+    private int updateChunk(List<Object[]> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE vpp_device SET last_communication_time = CASE id");
+        List<Object> args = new ArrayList<>(chunk.size() * 3);
+        for (Object[] row : chunk) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(row[0]);
+            args.add(row[1]);
+        }
+        sql.append(" END WHERE id IN (");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(chunk.get(i)[0]);
+        }
+        sql.append(')');
+
+        try {
+            return jdbcTemplate.update(sql.toString(), args.toArray());
+        } catch (Exception e) {
+            // 写入失败时放回脏集合，下个周期重试
+            chunk.forEach(row -> dirty.add((Long) row[0]));
+            log.error("批量写入设备心跳时间失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushHeartbeats();
+    }
+
+    private static class Liveness {
+
+        private VppDevice.DeviceStatus status;
+
+        private volatile LocalDateTime lastCommunicationTime;
+
+        private Liveness(VppDevice.DeviceStatus status, LocalDateTime lastCommunicationTime) {
+            this.status = status;
+            this.lastCommunicationTime = lastCommunicationTime;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 设备注册表
+ * 在内存中保存全部设备配置，并按设备ID、网关地址（ip:port）和设备类型建立索引；
+ * 采集路径和查询接口从这里读取设备，不再每次 findById。
+ * 索引是不可变快照，读取无锁；新增、修改、删除、启停设备时由写路径更新快照，
+ * 另按 vpp.registry.reload-interval 定时整体重新加载，以同步其他实例或直接改库的变更
+ */
+@Service
+@Slf4j
+public class DeviceRegistry {
+
+    private final VppDeviceRepository deviceRepository;
+
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    public DeviceRegistry(VppDeviceRepository deviceRepository) {
+        this.deviceRepository = deviceRepository;
+    }
+
+    /**
+     * 按ID获取设备
+     */
+    public Optional<VppDevice> get(Long id) {
+        return id != null ? Optional.ofNullable(snapshot().byId.get(id)) : Optional.empty();
+    }
+
+    /**
+     * 获取全部设备，按ID排序
+     */
+    public List<VppDevice> getAll() {
+        return snapshot().all;
+    }
+
+    /**
+     * 获取已启用的设备
+     */
+    public List<VppDevice> getEnabled() {
+        return snapshot().enabled;
+    }
+
+    /**
+     * 获取指定类型的设备
+     */
+    public List<VppDevice> getByType(VppDevice.DeviceType type) {
+        return snapshot().byType.getOrDefault(type, List.of());
+    }
+
+    /**
+     * 获取同一网关（ip:port）下的设备
+     */
+    public List<VppDevice> getByEndpoint(String ipAddress, Integer port) {
+        return snapshot().byEndpoint.getOrDefault(endpoint(ipAddress, port), List.of());
+    }
+
+    /**
+     * 按网关地址和从站ID获取设备
+     */
+    public Optional<VppDevice> getByEndpoint(String ipAddress, Integer port, Integer slaveId) {
+        return getByEndpoint(ipAddress, port).stream()
+                .filter(device -> device.getSlaveId().equals(slaveId))
+                .findFirst();
+    }
+
+    /**
+     * 设备保存后更新注册表
+     */
+    public void put(VppDevice device) {
+        if (device.getId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            Snapshot current = snapshot();
+            Map<Long, VppDevice> devices = new HashMap<>(current.byId);
+            devices.put(device.getId(), device);
+            snapshot = new Snapshot(devices.values());
+        }
+    }
+
+    /**
+     * 设备删除后从注册表移除
+     */
+    public void remove(Long id) {
+        synchronized (lock) {
+            Snapshot current = snapshot();
+            if (!current.byId.containsKey(id)) {
+                return;
+            }
+            Map<Long, VppDevice> devices = new HashMap<>(current.byId);
+            devices.remove(id);
+            snapshot = new Snapshot(devices.values());
+        }
+    }
+
+    /**
+     * 丢弃全部缓存，下次读取时重新加载（批量导入等绕过实体保存的写入之后调用）
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * 定时从数据库整体重新加载
+     */
+    @Scheduled(fixedDelayString = "${vpp.registry.reload-interval:300000}",
+            initialDelayString = "${vpp.registry.reload-interval:300000}")
+    public void reload() {
+        long start = System.currentTimeMillis();
+        // 查询在锁内执行，避免与并发的 put/remove 交错后用旧数据覆盖
+        synchronized (lock) {
+            snapshot = new Snapshot(deviceRepository.findAll());
+        }
+        log.debug("设备注册表已重新加载: {}个设备, 耗时{}ms", snapshot().all.size(), System.currentTimeMillis() - start);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                List<VppDevice> devices = deviceRepository.findAll();
+                snapshot = new Snapshot(devices);
+                log.info("设备注册表已加载: {}个设备", devices.size());
+            }
+            return snapshot;
+        }
+    }
+
+    private static String endpoint(String ipAddress, Integer port) {
+        return ipAddress + ":" + port;
+    }
+
+    /**
+     * 不可变的索引快照
+     */
+    private static class Snapshot {
+
+        private final Map<Long, VppDevice> byId = new LinkedHashMap<>();
+        private final List<VppDevice> all;
+        private final List<VppDevice> enabled;
+        private final Map<String, List<VppDevice>> byEndpoint = new HashMap<>();
+        private final Map<VppDevice.DeviceType, List<VppDevice>> byType = new EnumMap<>(VppDevice.DeviceType.class);
+
+        Snapshot(Collection<VppDevice> devices) {
+            List<VppDevice> sorted = new ArrayList<>(devices);
+            sorted.sort(Comparator.comparing(VppDevice::getId));
+            List<VppDevice> enabledDevices = new ArrayList<>();
+            for (VppDevice device : sorted) {
+                byId.put(device.getId(), device);
+                if (Boolean.TRUE.equals(device.getEnabled())) {
+                    enabledDevices.add(device);
+                }
+                byEndpoint.computeIfAbsent(endpoint(device.getIpAddress(), device.getPort()),
+                        k -> new ArrayList<>()).add(device);
+                if (device.getDeviceType() != null) {
+                    byType.computeIfAbsent(device.getDeviceType(), k -> new ArrayList<>()).add(device);
+                }
+            }
+            this.all = Collections.unmodifiableList(sorted);
+            this.enabled = Collections.unmodifiableList(enabledDevices);
+            byEndpoint.replaceAll((k, list) -> Collections.unmodifiableList(list));
+            byType.replaceAll((k, list) -> Collections.unmodifiableList(list));
+        }
+    }
+}
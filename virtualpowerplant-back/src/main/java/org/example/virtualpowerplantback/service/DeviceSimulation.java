@@ -0,0 +1,298 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.VppDevice;
+
+import java.util.SplittableRandom;
+import java.util.TimeZone;
+
+/**
+ * 单台设备的有状态模拟
+ * 按样本时间推进设备状态：电表电能单调累加，储能SOC按充放电功率积分，光伏跟随日照曲线和云量，
+ * 风机风速为均值回归的随机过程并按功率曲线出力，负荷跟随日负荷曲线。
+ * 相同种子、相同时间序列得到完全相同的结果；实例不是线程安全的，由调用方保证同一时刻只有一个线程推进
+ */
+public final class DeviceSimulation {
+
+    private static final double HOUR_MILLIS = 3_600_000.0;
+
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000};
+
+    /**
+     * 储能默认容量（kWh）与额定充放电功率（W）
+     */
+    private static final double STORAGE_DEFAULT_CAPACITY = 20.0;
+    private static final double STORAGE_RATED_POWER = 5000.0;
+
+    /**
+     * 风机功率曲线：切入、额定、切出风速（m/s）与额定功率（W）
+     */
+    private static final double CUT_IN_SPEED = 3.0;
+    private static final double RATED_SPEED = 12.0;
+    private static final double CUT_OUT_SPEED = 25.0;
+    private static final double WIND_RATED_POWER = 10000.0;
+
+    private final VppDevice.DeviceType type;
+
+    private final SplittableRandom random;
+
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    private final double capacityKwh;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    // 各类设备的状态量
+    private double energyKwh;
+    private double soc;
+    private double storagePower;
+    private double cloud;
+    private double windSpeed;
+    private double noise;
+    private double frequency;
+    private double temperature;
+    private double value1;
+    private double value2;
+
+    public DeviceSimulation(VppDevice.DeviceType type, double capacityKwh, long seed) {
+        this.type = type != null ? type : VppDevice.DeviceType.ELECTRIC_METER;
+        this.random = new SplittableRandom(seed);
+        this.capacityKwh = capacityKwh > 0 ? capacityKwh : STORAGE_DEFAULT_CAPACITY;
+        this.energyKwh = random.nextDouble(0, 100_000);
+        this.soc = random.nextDouble(30, 80);
+        this.cloud = random.nextDouble(0.6, 1.0);
+        this.windSpeed = random.nextDouble(4, 10);
+        this.frequency = 50.0;
+        this.temperature = 25.0;
+        this.value1 = random.nextDouble(0, 1000);
+        this.value2 = random.nextDouble(0, 1000);
+    }
+
+    public VppDevice.DeviceType getType() {
+        return type;
+    }
+
+    /**
+     * 推进到指定时间并将该时刻的测点写入样本（覆盖样本原有内容）
+     */
+    public void next(long timestamp, TelemetrySample sample) {
+        double hours = lastTimestamp == Long.MIN_VALUE ? 0 : Math.max(0, timestamp - lastTimestamp) / HOUR_MILLIS;
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+        double hourOfDay = hourOfDay(timestamp);
+
+        sample.clear();
+        sample.setTimestamp(timestamp);
+        switch (type) {
+            case ELECTRIC_METER -> meter(sample, hours, hourOfDay);
+            case ENERGY_STORAGE -> storage(sample, hours, hourOfDay);
+            case SOLAR_PANEL -> solar(sample, hours, hourOfDay);
+            case INVERTER -> inverter(sample, hours, hourOfDay);
+            case WIND_TURBINE -> wind(sample, hours, hourOfDay);
+            case LOAD_CONTROLLER -> loadController(sample, hours, hourOfDay);
+            default -> generic(sample, hours);
+        }
+    }
+
+    /**
+     * 电表：功率跟随日负荷曲线，电能按功率积分单调递增，内部按kWh累计、按MWh上报
+     */
+    private void meter(TelemetrySample sample, double hours, double hourOfDay) {
+        noise = meanRevert(noise, 0, 0.08, 0.5, hours);
+        double power = clamp(10000.0 * (0.1 + 0.7 * loadShape(hourOfDay)) * (1 + noise), 100, 10000);
+        energyKwh += power * hours / 1000.0;
+        double voltage = 220.0 + random.nextDouble(-2, 2);
+        double powerFactor = clamp(0.92 + noise * 0.3, 0.8, 1.0);
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(power / (voltage * powerFactor), 3));
+        sample.set(TelemetryMetric.POWER, round(power, 2));
+        sample.set(TelemetryMetric.ENERGY, round(energyKwh / 1000.0, 3));
+        sample.set(TelemetryMetric.FREQUENCY, round(gridFrequency(hours), 2));
+        sample.set(TelemetryMetric.POWER_FACTOR, round(powerFactor, 3));
+    }
+
+    /**
+     * 储能：白天光伏大发时充电、晚高峰放电；功率为正表示放电
+     * 上一时段的功率在本时段内保持不变，SOC按该功率积分后再决定新的充放电指令
+     * 状态代码: 0=待机, 1=充电, 2=放电
+     */
+    private void storage(TelemetrySample sample, double hours, double hourOfDay) {
+        soc = clamp(soc - storagePower * hours / 1000.0 / capacityKwh * 100.0, 0, 100);
+        double target;
+        if (hourOfDay >= 10 && hourOfDay < 15) {
+            target = -STORAGE_RATED_POWER * 0.8;
+        } else if (hourOfDay >= 18 && hourOfDay < 22) {
+            target = STORAGE_RATED_POWER * 0.9;
+        } else {
+            target = 0;
+        }
+        if ((target > 0 && soc <= 10) || (target < 0 && soc >= 95)) {
+            target = 0;
+        }
+        double power = target == 0 ? 0 : clamp(target * (1 + random.nextDouble(-0.05, 0.05)),
+                -STORAGE_RATED_POWER, STORAGE_RATED_POWER);
+        storagePower = power;
+
+        double voltage = 46.0 + 8.0 * soc / 100.0 + random.nextDouble(-0.2, 0.2);
+        temperature = meanRevert(temperature, 25.0 + 12.0 * Math.abs(power) / STORAGE_RATED_POWER, 0.3, 0.5, hours);
+        int status = power < 0 ? 1 : power > 0 ? 2 : 0;
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(power / voltage, 3));
+        sample.set(TelemetryMetric.POWER, round(power, 2));
+        sample.set(TelemetryMetric.SOC, round(soc, 1));
+        sample.set(TelemetryMetric.TEMPERATURE, round(temperature, 1));
+        sample.set(TelemetryMetric.STATUS_CODE, status);
+    }
+
+    /**
+     * 光伏：出力 = 额定功率 × 日照 × 云量 × 温度折减
+     */
+    private void solar(TelemetrySample sample, double hours, double hourOfDay) {
+        double irradiance = irradiance(hourOfDay, hours);
+        double panelTemperature = ambient(hourOfDay) + 25.0 * irradiance;
+        double power = 3000.0 * irradiance * (1 - 0.004 * (panelTemperature - 25.0));
+        double voltage = irradiance > 0 ? 30.0 + 6.0 * Math.sqrt(irradiance) + random.nextDouble(-0.3, 0.3) : 0;
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(voltage > 0 ? power / voltage : 0, 3));
+        sample.set(TelemetryMetric.POWER, round(Math.max(0, power), 2));
+        sample.set(TelemetryMetric.TEMPERATURE, round(panelTemperature, 1));
+    }
+
+    /**
+     * 逆变器：接在光伏之后，输出随日照变化，无输出时待机
+     * 状态代码: 0=正常, 1=待机
+     */
+    private void inverter(TelemetrySample sample, double hours, double hourOfDay) {
+        double power = 6000.0 * irradiance(hourOfDay, hours) * 0.97;
+        double voltage = 220.0 + random.nextDouble(-3, 3);
+        temperature = meanRevert(temperature, ambient(hourOfDay) + 30.0 * power / 6000.0, 0.2, 0.5, hours);
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(power / voltage, 3));
+        sample.set(TelemetryMetric.POWER, round(power, 2));
+        sample.set(TelemetryMetric.FREQUENCY, round(gridFrequency(hours), 2));
+        sample.set(TelemetryMetric.TEMPERATURE, round(temperature, 1));
+        sample.set(TelemetryMetric.STATUS_CODE, power > 1 ? 0 : 1);
+    }
+
+    /**
+     * 风机：风速为均值回归的随机过程，出力按功率曲线计算
+     * 状态代码: 0=发电, 1=低于切入风速待机, 2=超过切出风速停机
+     */
+    private void wind(TelemetrySample sample, double hours, double hourOfDay) {
+        windSpeed = Math.max(0, meanRevert(windSpeed, 7.0, 2.5, 2.0, hours));
+        double power = windPower(windSpeed);
+        double voltage = power > 0 ? 380.0 + random.nextDouble(-5, 5) : 0;
+        int status = windSpeed < CUT_IN_SPEED ? 1 : windSpeed >= CUT_OUT_SPEED ? 2 : 0;
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(voltage > 0 ? power / voltage : 0, 3));
+        sample.set(TelemetryMetric.POWER, round(power, 2));
+        sample.set(TelemetryMetric.WIND_SPEED, round(windSpeed, 1));
+        sample.set(TelemetryMetric.TEMPERATURE, round(ambient(hourOfDay), 1));
+        sample.set(TelemetryMetric.STATUS_CODE, status);
+    }
+
+    /**
+     * 负荷控制器：负荷跟随日负荷曲线
+     * 状态代码: 0=自动
+     */
+    private void loadController(TelemetrySample sample, double hours, double hourOfDay) {
+        noise = meanRevert(noise, 0, 0.05, 0.5, hours);
+        double power = clamp(1000.0 + 14000.0 * loadShape(hourOfDay) * (1 + noise), 1000, 15000);
+        double voltage = 220.0 + random.nextDouble(-2, 2);
+
+        sample.set(TelemetryMetric.VOLTAGE, round(voltage, 1));
+        sample.set(TelemetryMetric.CURRENT, round(power / voltage, 3));
+        sample.set(TelemetryMetric.POWER, round(power, 2));
+        sample.set(TelemetryMetric.FREQUENCY, round(gridFrequency(hours), 2));
+        sample.set(TelemetryMetric.LOAD_RATE, round(power / 15000.0 * 100.0, 1));
+        sample.set(TelemetryMetric.STATUS_CODE, 0);
+    }
+
+    private void generic(TelemetrySample sample, double hours) {
+        value1 = clamp(meanRevert(value1, 500, 200, 1.0, hours), 0, 999);
+        value2 = clamp(meanRevert(value2, 500, 200, 1.0, hours), 0, 999);
+        sample.set(TelemetryMetric.VALUE1, Math.round(value1));
+        sample.set(TelemetryMetric.VALUE2, Math.round(value2));
+        sample.set(TelemetryMetric.STATUS_CODE, 0);
+    }
+
+    /**
+     * 风机功率曲线：切入到额定风速之间按风速三次方插值，额定到切出风速满发
+     */
+    static double windPower(double speed) {
+        if (speed < CUT_IN_SPEED || speed >= CUT_OUT_SPEED) {
+            return 0;
+        }
+        if (speed >= RATED_SPEED) {
+            return WIND_RATED_POWER;
+        }
+        double cutIn3 = CUT_IN_SPEED * CUT_IN_SPEED * CUT_IN_SPEED;
+        double rated3 = RATED_SPEED * RATED_SPEED * RATED_SPEED;
+        return WIND_RATED_POWER * (speed * speed * speed - cutIn3) / (rated3 - cutIn3);
+    }
+
+    /**
+     * 晴空日照曲线（6点日出、18点日落，正午最强）乘以缓慢变化的云量
+     */
+    private double irradiance(double hourOfDay, double hours) {
+        cloud = clamp(meanRevert(cloud, 0.8, 0.15, 1.0, hours), 0.2, 1.0);
+        if (hourOfDay <= 6 || hourOfDay >= 18) {
+            return 0;
+        }
+        return Math.sin(Math.PI * (hourOfDay - 6) / 12.0) * cloud;
+    }
+
+    /**
+     * 日负荷曲线（0~1）：凌晨低谷，早高峰、晚高峰
+     */
+    private static double loadShape(double hourOfDay) {
+        double morning = Math.exp(-Math.pow((hourOfDay - 9.0) / 2.0, 2));
+        double evening = Math.exp(-Math.pow((hourOfDay - 19.5) / 2.5, 2));
+        return clamp(0.25 + 0.5 * morning + 0.75 * evening, 0, 1);
+    }
+
+    /**
+     * 环境温度：日最低约凌晨5点15°C，最高约下午3点30°C
+     */
+    private static double ambient(double hourOfDay) {
+        return 22.5 - 7.5 * Math.cos(2 * Math.PI * (hourOfDay - 5.0) / 24.0);
+    }
+
+    private double gridFrequency(double hours) {
+        frequency = meanRevert(frequency, 50.0, 0.03, 0.05, hours);
+        return frequency;
+    }
+
+    /**
+     * 均值回归过程（Ornstein-Uhlenbeck）的精确离散化
+     *
+     * @param sigma 平稳标准差
+     * @param tau   回归时间常数（小时）
+     */
+    private double meanRevert(double value, double mean, double sigma, double tau, double hours) {
+        if (hours <= 0) {
+            return value;
+        }
+        double decay = Math.exp(-hours / tau);
+        return mean + (value - mean) * decay + sigma * Math.sqrt(1 - decay * decay) * random.nextGaussian();
+    }
+
+    private double hourOfDay(long timestamp) {
+        long local = timestamp + timeZone.getOffset(timestamp);
+        return Math.floorMod(local, 86_400_000L) / HOUR_MILLIS;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round(double value, int scale) {
+        double factor = POWERS_OF_TEN[scale];
+        return Math.round(value * factor) / factor;
+    }
+}
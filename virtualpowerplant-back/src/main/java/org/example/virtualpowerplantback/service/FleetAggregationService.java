@@ -0,0 +1,298 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.AggregationProperties;
+import org.example.virtualpowerplantback.dto.FleetSeries;
+import org.example.virtualpowerplantback.dto.FleetSnapshot;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 虚拟电厂整体增量汇总
+ * 每台设备只保留最近一次成功采集的贡献值（功率、储能可用电量、额定容量），
+ * 新样本到达时从所属设备类型和分组的合计中减去旧贡献、加上新贡献，
+ * 快照查询只读取各合计而不再对 device_data 求和；通信失败或停用的设备移出合计。
+ * 非有限值（NaN、Infinity）不计入合计，增量加减累积的浮点误差按固定周期由各设备贡献值重新求和消除。
+ * 汇总曲线按固定周期对合计采样，保存在内存环形缓冲中
+ */
+@Service
+@Slf4j
+public class FleetAggregationService {
+
+    private final AggregationProperties properties;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final LatestValueCache latestValueCache;
+
+    // 设备ID -> 当前计入合计的贡献值
+    private final Map<Long, Contribution> contributions = new ConcurrentHashMap<>();
+
+    private final Map<VppDevice.DeviceType, Accumulator> byType = new EnumMap<>(VppDevice.DeviceType.class);
+
+    private final Map<String, Accumulator> byGroup = new ConcurrentHashMap<>();
+
+    private final Deque<FleetSeries.Point> history = new ArrayDeque<>();
+
+    // 增量更新共享读锁，重新求和时独占写锁
+    private final ReadWriteLock resumLock = new ReentrantReadWriteLock();
+
+    public FleetAggregationService(AggregationProperties properties, DeviceRegistry deviceRegistry,
+                                   LatestValueCache latestValueCache) {
+        this.properties = properties;
+        this.deviceRegistry = deviceRegistry;
+        this.latestValueCache = latestValueCache;
+        for (VppDevice.DeviceType type : VppDevice.DeviceType.values()) {
+            byType.put(type, new Accumulator());
+        }
+    }
+
+    /**
+     * 启动后用最新数据缓存中的记录初始化合计，避免首轮轮询完成前合计为空
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int count = 0;
+        for (VppDevice device : deviceRegistry.getEnabled()) {
+            DeviceData data = latestValueCache.get(device.getId());
+            if (data != null && data.getPower() != null) {
+                update(device, data.getPower().doubleValue(),
+                        data.getSoc() != null ? data.getSoc().doubleValue() : Double.NaN);
+                count++;
+            }
+        }
+        log.info("整体汇总初始化完成: {}个设备", count);
+    }
+
+    /**
+     * 计入一台设备的最新样本
+     */
+    public void accept(VppDevice device, TelemetrySample sample) {
+        if (sample.isError() || !sample.has(TelemetryMetric.POWER)) {
+            return;
+        }
+        update(device, sample.get(TelemetryMetric.POWER), sample.get(TelemetryMetric.SOC));
+    }
+
+    /**
+     * 将设备移出合计（通信失败、停用、删除或分组变化时）
+     */
+    public void evict(Long deviceId) {
+        resumLock.readLock().lock();
+        try {
+            contributions.computeIfPresent(deviceId, (id, old) -> {
+                apply(old, -1);
+                return null;
+            });
+        } finally {
+            resumLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取当前整体汇总快照
+     */
+    public FleetSnapshot getSnapshot() {
+        resumLock.readLock().lock();
+        try {
+            return snapshot();
+        } finally {
+            resumLock.readLock().unlock();
+        }
+    }
+
+    private FleetSnapshot snapshot() {
+        Map<VppDevice.DeviceType, FleetSnapshot.Totals> types = new EnumMap<>(VppDevice.DeviceType.class);
+        long devices = 0;
+        double generation = 0;
+        for (Map.Entry<VppDevice.DeviceType, Accumulator> entry : byType.entrySet()) {
+            FleetSnapshot.Totals totals = entry.getValue().toTotals();
+            if (totals.getDevices() == 0) {
+                continue;
+            }
+            types.put(entry.getKey(), totals);
+            devices += totals.getDevices();
+            if (properties.getGenerationTypes().contains(entry.getKey())) {
+                generation += totals.getPower();
+            }
+        }
+
+        Map<String, FleetSnapshot.Totals> groups = new TreeMap<>();
+        byGroup.forEach((group, accumulator) -> {
+            FleetSnapshot.Totals totals = accumulator.toTotals();
+            if (totals.getDevices() > 0) {
+                groups.put(group, totals);
+            }
+        });
+
+        Accumulator load = byType.get(VppDevice.DeviceType.LOAD_CONTROLLER);
+        Accumulator storage = byType.get(VppDevice.DeviceType.ENERGY_STORAGE);
+        return new FleetSnapshot(LocalDateTime.now(), devices, round(generation), round(load.power.sum()),
+                round(storage.power.sum()), round(storage.availableEnergy.sum()), round(storage.capacity.sum()),
+                types, groups);
+    }
+
+    /**
+     * 获取时间范围内的汇总曲线
+     */
+    public FleetSeries getSeries(LocalDateTime startTime, LocalDateTime endTime) {
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+        if (startTime == null) {
+            startTime = endTime.minusDays(1);
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        List<FleetSeries.Point> points = new ArrayList<>();
+        synchronized (history) {
+            for (FleetSeries.Point point : history) {
+                if (!point.getTime().isBefore(startTime) && !point.getTime().isAfter(endTime)) {
+                    points.add(point);
+                }
+            }
+        }
+        return new FleetSeries(startTime, endTime, points);
+    }
+
+    /**
+     * 定时对当前合计采样，形成汇总曲线
+     */
+    @Scheduled(fixedDelayString = "${vpp.aggregation.sample-interval:60000}")
+    public void sample() {
+        FleetSnapshot snapshot = getSnapshot();
+        Map<VppDevice.DeviceType, Double> powerByType = new EnumMap<>(VppDevice.DeviceType.class);
+        snapshot.getByType().forEach((type, totals) -> powerByType.put(type, totals.getPower()));
+        FleetSeries.Point point = new FleetSeries.Point(snapshot.getTime(), snapshot.getGenerationPower(),
+                snapshot.getControllableLoad(), snapshot.getStoragePower(), snapshot.getStorageAvailableEnergy(),
+                powerByType);
+        synchronized (history) {
+            history.addLast(point);
+            while (history.size() > Math.max(1, properties.getHistorySize())) {
+                history.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * 由各设备当前贡献值重新计算全部合计，消除增量加减累积的浮点误差
+     */
+    @Scheduled(fixedDelayString = "${vpp.aggregation.resum-interval:300000}",
+            initialDelayString = "${vpp.aggregation.resum-interval:300000}")
+    public void resum() {
+        resumLock.writeLock().lock();
+        try {
+            byType.values().forEach(Accumulator::reset);
+            byGroup.clear();
+            contributions.values().forEach(contribution -> apply(contribution, 1));
+        } finally {
+            resumLock.writeLock().unlock();
+        }
+        log.debug("整体汇总重新求和完成: {}个设备", contributions.size());
+    }
+
+    private void update(VppDevice device, double power, double soc) {
+        if (!Double.isFinite(power)) {
+            log.debug("设备{}功率为非有限值{}，不计入整体汇总", device.getId(), power);
+            return;
+        }
+        double capacity = toDouble(device.getRatedCapacity());
+        double availableEnergy = device.getDeviceType() == VppDevice.DeviceType.ENERGY_STORAGE && !Double.isNaN(soc)
+                ? capacity * Math.max(0, Math.min(100, soc)) / 100.0
+                : 0;
+        Contribution next = new Contribution(device.getDeviceType(), normalizeGroup(device.getGroupName()),
+                power, availableEnergy, capacity);
+        resumLock.readLock().lock();
+        try {
+            contributions.compute(device.getId(), (id, old) -> {
+                if (old != null) {
+                    apply(old, -1);
+                }
+                apply(next, 1);
+                return next;
+            });
+        } finally {
+            resumLock.readLock().unlock();
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution.type != null) {
+            byType.get(contribution.type).add(contribution, sign);
+        }
+        if (contribution.group != null) {
+            byGroup.computeIfAbsent(contribution.group, g -> new Accumulator()).add(contribution, sign);
+        }
+    }
+
+    private static String normalizeGroup(String group) {
+        return group == null || group.isBlank() ? null : group.trim();
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    /**
+     * 一台设备当前计入合计的值
+     */
+    private record Contribution(VppDevice.DeviceType type, String group, double power,
+                                double availableEnergy, double capacity) {
+    }
+
+    /**
+     * 一个设备类型或分组的累加器
+     */
+    private static class Accumulator {
+
+        private final LongAdder devices = new LongAdder();
+        private final DoubleAdder power = new DoubleAdder();
+        private final DoubleAdder availableEnergy = new DoubleAdder();
+        private final DoubleAdder capacity = new DoubleAdder();
+
+        void add(Contribution contribution, int sign) {
+            devices.add(sign);
+            power.add(sign * contribution.power);
+            availableEnergy.add(sign * contribution.availableEnergy);
+            capacity.add(sign * contribution.capacity);
+        }
+
+        void reset() {
+            devices.reset();
+            power.reset();
+            availableEnergy.reset();
+            capacity.reset();
+        }
+
+        FleetSnapshot.Totals toTotals() {
+            return new FleetSnapshot.Totals(devices.sum(), round(power.sum()),
+                    round(availableEnergy.sum()), round(capacity.sum()));
+        }
+    }
+}
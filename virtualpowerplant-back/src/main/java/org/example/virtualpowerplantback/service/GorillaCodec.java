@@ -0,0 +1,294 @@
+package org.example.virtualpowerplantback.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Gorilla风格的列式时序压缩
+ * 时间戳使用二阶差分（delta-of-delta）变长编码，数值列使用与前值异或后只保存有效位的编码；
+ * 每列单独编码并在头部记录起始位偏移，读取时可以只解码需要的列
+ * <p>
+ * 格式：[样本数 int][列数 int][时间戳列及各数值列的起始位偏移 int...][位流]
+ */
+public final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * 编码一个分段
+     *
+     * @param timestamps 毫秒时间戳
+     * @param columns    数值列，每列长度不小于 count，缺失值用NaN表示
+     * @param count      样本数
+     */
+    public static byte[] encode(long[] timestamps, double[][] columns, int count) {
+        BitWriter writer = new BitWriter(Math.max(64, count * (columns.length + 1) * 2));
+        int[] offsets = new int[columns.length + 1];
+
+        offsets[0] = writer.bitLength();
+        encodeTimestamps(writer, timestamps, count);
+        for (int c = 0; c < columns.length; c++) {
+            offsets[c + 1] = writer.bitLength();
+            encodeValues(writer, columns[c], count);
+        }
+
+        byte[] bits = writer.toByteArray();
+        ByteBuffer out = ByteBuffer.allocate(8 + offsets.length * 4 + bits.length);
+        out.putInt(count);
+        out.putInt(columns.length);
+        for (int offset : offsets) {
+            out.putInt(offset);
+        }
+        out.put(bits);
+        return out.array();
+    }
+
+    /**
+     * 分段中的样本数
+     */
+    public static int count(byte[] data) {
+        return ByteBuffer.wrap(data).getInt(0);
+    }
+
+    /**
+     * 分段中的数值列数
+     */
+    public static int columnCount(byte[] data) {
+        return ByteBuffer.wrap(data).getInt(4);
+    }
+
+    /**
+     * 解码时间戳列
+     */
+    public static long[] decodeTimestamps(byte[] data) {
+        int count = count(data);
+        BitReader reader = reader(data, 0);
+        long[] timestamps = new long[count];
+        if (count == 0) {
+            return timestamps;
+        }
+
+        timestamps[0] = reader.readBits(64);
+        if (count == 1) {
+            return timestamps;
+        }
+        long delta = reader.readBits(64);
+        timestamps[1] = timestamps[0] + delta;
+        for (int i = 2; i < count; i++) {
+            long deltaOfDelta;
+            if (reader.readBit() == 0) {
+                deltaOfDelta = 0;
+            } else if (reader.readBit() == 0) {
+                deltaOfDelta = signExtend(reader.readBits(7), 7);
+            } else if (reader.readBit() == 0) {
+                deltaOfDelta = signExtend(reader.readBits(9), 9);
+            } else if (reader.readBit() == 0) {
+                deltaOfDelta = signExtend(reader.readBits(12), 12);
+            } else {
+                deltaOfDelta = reader.readBits(64);
+            }
+            delta += deltaOfDelta;
+            timestamps[i] = timestamps[i - 1] + delta;
+        }
+        return timestamps;
+    }
+
+    /**
+     * 解码第 column 个数值列（从0开始）
+     */
+    public static double[] decodeColumn(byte[] data, int column) {
+        int count = count(data);
+        BitReader reader = reader(data, column + 1);
+        double[] values = new double[count];
+        if (count == 0) {
+            return values;
+        }
+
+        long previous = reader.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (reader.readBit() == 1) {
+                if (reader.readBit() == 1) {
+                    leading = (int) reader.readBits(5);
+                    int significant = (int) reader.readBits(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                long xor = reader.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    private static BitReader reader(byte[] data, int stream) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int columns = buffer.getInt(4);
+        int headerBytes = 8 + (columns + 1) * 4;
+        int bitOffset = buffer.getInt(8 + stream * 4);
+        return new BitReader(data, headerBytes, bitOffset);
+    }
+
+    private static void encodeTimestamps(BitWriter writer, long[] timestamps, int count) {
+        if (count == 0) {
+            return;
+        }
+        writer.writeBits(timestamps[0], 64);
+        if (count == 1) {
+            return;
+        }
+        long delta = timestamps[1] - timestamps[0];
+        writer.writeBits(delta, 64);
+        for (int i = 2; i < count; i++) {
+            long current = timestamps[i] - timestamps[i - 1];
+            long deltaOfDelta = current - delta;
+            delta = current;
+            // 各档位宽度按补码取值范围划分，解码时符号扩展
+            if (deltaOfDelta == 0) {
+                writer.writeBit(0);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+                writer.writeBits(0b10, 2);
+                writer.writeBits(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+                writer.writeBits(0b110, 3);
+                writer.writeBits(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+                writer.writeBits(0b1110, 4);
+                writer.writeBits(deltaOfDelta, 12);
+            } else {
+                writer.writeBits(0b1111, 4);
+                writer.writeBits(deltaOfDelta, 64);
+            }
+        }
+    }
+
+    private static void encodeValues(BitWriter writer, double[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writer.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                writer.writeBit(0);
+                continue;
+            }
+            writer.writeBit(1);
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // 有效位落在上一个窗口内，复用窗口
+                writer.writeBit(0);
+                writer.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                writer.writeBit(1);
+                writer.writeBits(leading, 5);
+                writer.writeBits(significant == 64 ? 0 : significant, 6);
+                writer.writeBits(xor >>> trailing, significant);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * 按位写入，高位在前
+     */
+    private static class BitWriter {
+
+        private byte[] buffer;
+        private int bitLength;
+
+        BitWriter(int initialBytes) {
+            buffer = new byte[initialBytes];
+        }
+
+        void writeBit(int bit) {
+            ensureCapacity(1);
+            if (bit != 0) {
+                buffer[bitLength >>> 3] |= (byte) (0x80 >>> (bitLength & 7));
+            }
+            bitLength++;
+        }
+
+        void writeBits(long value, int bits) {
+            ensureCapacity(bits);
+            // 按字节内剩余位数成块写入
+            while (bits > 0) {
+                int free = 8 - (bitLength & 7);
+                int take = Math.min(free, bits);
+                int chunk = (int) (value >>> (bits - take)) & ((1 << take) - 1);
+                buffer[bitLength >>> 3] |= (byte) (chunk << (free - take));
+                bitLength += take;
+                bits -= take;
+            }
+        }
+
+        int bitLength() {
+            return bitLength;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (bitLength + 7) >>> 3);
+        }
+
+        private void ensureCapacity(int bits) {
+            int required = (bitLength + bits + 7) >>> 3;
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+            }
+        }
+    }
+
+    /**
+     * 按位读取，高位在前
+     */
+    private static class BitReader {
+
+        private final byte[] data;
+        private final int baseByte;
+        private int position;
+
+        BitReader(byte[] data, int baseByte, int bitOffset) {
+            this.data = data;
+            this.baseByte = baseByte;
+            this.position = bitOffset;
+        }
+
+        int readBit() {
+            int bit = (data[baseByte + (position >>> 3)] >>> (7 - (position & 7))) & 1;
+            position++;
+            return bit;
+        }
+
+        long readBits(int bits) {
+            long value = 0;
+            while (bits > 0) {
+                int available = 8 - (position & 7);
+                int take = Math.min(available, bits);
+                int chunk = ((data[baseByte + (position >>> 3)] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                position += take;
+                bits -= take;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.HistoryPage;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.repository.DeviceDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 历史数据分页与流式导出服务
+ * 分页按 (collect_time, id) 键集翻页；导出在只读事务内逐行读取结果集并直接写入响应流，
+ * 每写一批就清空持久化上下文，内存占用与导出行数无关
+ */
+@Service
+@Slf4j
+public class HistoryExportService {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // 每导出多少行清空一次持久化上下文并刷新输出
+    private static final int FLUSH_EVERY = 1000;
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 可导出的列
+     */
+    public enum Column {
+        DEVICE_ID("deviceId", DeviceData::getDeviceId),
+        DEVICE_NAME("deviceName", DeviceData::getDeviceName),
+        COLLECT_TIME("collectTime", DeviceData::getCollectTime),
+        VOLTAGE("voltage", DeviceData::getVoltage),
+        CURRENT("current", DeviceData::getCurrent),
+        POWER("power", DeviceData::getPower),
+        ENERGY("energy", DeviceData::getEnergy),
+        FREQUENCY("frequency", DeviceData::getFrequency),
+        POWER_FACTOR("powerFactor", DeviceData::getPowerFactor),
+        TEMPERATURE("temperature", DeviceData::getTemperature),
+        SOC("soc", DeviceData::getSoc),
+        STATUS_CODE("statusCode", DeviceData::getStatusCode),
+        RAW_DATA("rawData", DeviceData::getRawData);
+
+        /**
+         * 未指定列时的默认导出列（不含原始数据）
+         */
+        public static final List<Column> DEFAULTS = Arrays.stream(values())
+                .filter(column -> column != RAW_DATA)
+                .toList();
+
+        private final String fieldName;
+        private final Function<DeviceData, Object> getter;
+
+        Column(String fieldName, Function<DeviceData, Object> getter) {
+            this.fieldName = fieldName;
+            this.getter = getter;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public Object valueOf(DeviceData data) {
+            return getter.apply(data);
+        }
+
+        public static Column byFieldName(String fieldName) {
+            for (Column column : values()) {
+                if (column.fieldName.equalsIgnoreCase(fieldName)) {
+                    return column;
+                }
+            }
+            throw new RuntimeException("不支持的导出列: " + fieldName);
+        }
+    }
+
+    private final DeviceDataRepository deviceDataRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final JsonFactory jsonFactory = new JsonFactory().setRootValueSeparator(null);
+
+    private final int maxPageSize;
+
+    public HistoryExportService(DeviceDataRepository deviceDataRepository, EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${vpp.history.max-page-size:5000}") int maxPageSize) {
+        this.deviceDataRepository = deviceDataRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * 键集分页查询，首页不传 afterTime/afterId，从 startTime 开始
+     */
+    public HistoryPage getPage(Long deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                               LocalDateTime afterTime, Long afterId, Integer limit) {
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+        if (afterTime == null) {
+            afterTime = startTime != null ? startTime : endTime.minusDays(1);
+            // 包含起始时间上的记录
+            afterId = 0L;
+        } else if (afterId == null) {
+            afterId = Long.MAX_VALUE;
+        }
+        int size = Math.max(1, Math.min(limit != null ? limit : 1000, maxPageSize));
+
+        // 多取一条用于判断是否还有下一页
+        List<DeviceData> rows = deviceDataRepository.findPageAfter(deviceId, afterTime, afterId, endTime,
+                Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = new ArrayList<>(rows.subList(0, size));
+        }
+        DeviceData last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        return new HistoryPage(rows, hasMore,
+                last != null ? last.getCollectTime() : null,
+                last != null ? last.getId() : null);
+    }
+
+    /**
+     * 解析列名，为空时使用默认列
+     */
+    public static List<Column> parseColumns(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Column.DEFAULTS;
+        }
+        return names.stream().map(String::trim).filter(name -> !name.isEmpty()).map(Column::byFieldName).toList();
+    }
+
+    /**
+     * 将多个设备在时间范围内的历史数据逐行写入输出流
+     *
+     * @return 导出的行数
+     */
+    public long export(Collection<Long> deviceIds, LocalDateTime startTime, LocalDateTime endTime,
+                       Format format, List<Column> columns, OutputStream out) {
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            throw new RuntimeException("请指定要导出的设备");
+        }
+        LocalDateTime end = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime start = startTime != null ? startTime : end.minusDays(1);
+        long begin = System.currentTimeMillis();
+
+        Long rows = readOnlyTransaction.execute(status -> {
+            try (Stream<DeviceData> stream =
+                         deviceDataRepository.streamByDeviceIdsAndTimeRange(deviceIds, start, end)) {
+                return format == Format.CSV
+                        ? writeCsv(stream.iterator(), columns, out)
+                        : writeNdjson(stream.iterator(), columns, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("导出历史数据完成: 设备{}, {}行, 耗时{}ms", deviceIds, rows, System.currentTimeMillis() - begin);
+        return rows != null ? rows : 0;
+    }
+
+    private long writeNdjson(Iterator<DeviceData> rows, List<Column> columns, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (rows.hasNext()) {
+                DeviceData data = rows.next();
+                generator.writeStartObject();
+                for (Column column : columns) {
+                    generator.writeFieldName(column.getFieldName());
+                    writeJsonValue(generator, column.valueOf(data));
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.flush();
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<DeviceData> rows, List<Column> columns, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM，便于Excel正确识别中文设备名称
+        writer.write('\uFEFF');
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(i).getFieldName());
+        }
+        writer.write('\n');
+
+        while (rows.hasNext()) {
+            DeviceData data = rows.next();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, columns.get(i).valueOf(data));
+            }
+            writer.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof BigDecimal decimal) {
+            generator.writeNumber(decimal);
+        } else if (value instanceof Long number) {
+            generator.writeNumber(number);
+        } else if (value instanceof Integer number) {
+            generator.writeNumber(number);
+        } else if (value instanceof LocalDateTime time) {
+            generator.writeString(TIME_FORMAT.format(time));
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal decimal) {
+            writer.write(decimal.toPlainString());
+            return;
+        }
+        String text = value instanceof LocalDateTime time ? TIME_FORMAT.format(time) : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
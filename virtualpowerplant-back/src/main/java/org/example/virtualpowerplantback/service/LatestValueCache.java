@@ -0,0 +1,91 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.repository.DeviceDataRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备最新数据缓存
+ * 采集路径每产生一条记录就更新缓存，启动时从数据库预热一次，
+ * 之后 /latest 与 /{id}/latest 直接从内存返回，不再查询 device_data
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LatestValueCache {
+
+    private final DeviceDataRepository deviceDataRepository;
+
+    private final Map<Long, DeviceData> latest = new ConcurrentHashMap<>();
+
+    private volatile boolean warmed;
+
+    /**
+     * 启动完成后从数据库加载每台设备的最新记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void warmUp() {
+        if (warmed) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<DeviceData> rows = deviceDataRepository.findLatestDataForAllDevices();
+        rows.forEach(this::update);
+        warmed = true;
+        log.info("最新数据缓存预热完成: {}个设备, 耗时{}ms", rows.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 写入一条采集记录，仅当其采集时间不早于缓存中的记录时替换
+     */
+    public void update(DeviceData data) {
+        if (data.getDeviceId() == null || data.getCollectTime() == null) {
+            return;
+        }
+        latest.merge(data.getDeviceId(), data, (current, incoming) ->
+                incoming.getCollectTime().isBefore(current.getCollectTime()) ? current : incoming);
+    }
+
+    /**
+     * 获取设备最新数据，没有数据时返回null
+     */
+    public DeviceData get(Long deviceId) {
+        if (!warmed) {
+            warmUp();
+        }
+        return latest.get(deviceId);
+    }
+
+    /**
+     * 获取所有设备的最新数据，按设备ID排序
+     */
+    public List<DeviceData> getAll() {
+        if (!warmed) {
+            warmUp();
+        }
+        List<DeviceData> all = new ArrayList<>(latest.values());
+        all.sort(Comparator.comparing(DeviceData::getDeviceId));
+        return all;
+    }
+
+    /**
+     * 设备删除后移除其缓存
+     */
+    public void evict(Long deviceId) {
+        latest.remove(deviceId);
+    }
+
+    public int size() {
+        return latest.size();
+    }
+}
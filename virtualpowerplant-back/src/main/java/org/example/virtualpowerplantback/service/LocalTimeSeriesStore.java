@@ -0,0 +1,574 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.LocalStoreProperties;
+import org.example.virtualpowerplantback.dto.LocalStoreStats;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.DeviceDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 嵌入式追加写本地时序存储
+ * 样本以 [长度][CRC32C][设备ID][时间戳][测点掩码][测点值...] 的记录顺序追加到内存映射的分段文件，
+ * 内存中按设备维护 时间戳 -> 记录位置 的索引用于范围查询；启动时顺序扫描分段重建索引，
+ * 遇到长度或校验和不合法的记录即视为崩溃时写了一半的尾部并截断
+ * <p>
+ * PRIMARY 模式作为热数据主存储；BUFFER 模式作为持久化缓冲，按写入顺序回放到 device_data，
+ * 数据库慢或不可用时采集不受影响，恢复后从检查点继续回放
+ */
+@Service
+@Slf4j
+public class LocalTimeSeriesStore {
+
+    private static final String SEGMENT_PREFIX = "seg-";
+
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private static final String CHECKPOINT_FILE = "replay.checkpoint";
+
+    // 记录头：payload长度 + CRC32C
+    private static final int HEADER_BYTES = 8;
+
+    // payload固定部分：设备ID、时间戳、测点掩码
+    private static final int FIXED_PAYLOAD_BYTES = 24;
+
+    private final LocalStoreProperties properties;
+
+    private final DeviceDataRepository deviceDataRepository;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final boolean rawJson;
+
+    // 分段序号 -> 分段
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // 设备ID -> 时间索引
+    private final Map<Long, DeviceIndex> indexes = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final Object replayLock = new Object();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong replayFailures = new AtomicLong();
+
+    private long recovered;
+
+    private int truncatedSegments;
+
+    private Path directory;
+
+    private volatile Segment active;
+
+    // 回放检查点：下一条待回放记录所在的分段序号与段内偏移
+    private volatile long checkpointSegment;
+    private volatile int checkpointOffset;
+
+    public LocalTimeSeriesStore(LocalStoreProperties properties,
+                                DeviceDataRepository deviceDataRepository,
+                                DeviceRegistry deviceRegistry,
+                                @Value("${vpp.telemetry.raw-json:true}") boolean rawJson) {
+        this.properties = properties;
+        this.deviceDataRepository = deviceDataRepository;
+        this.deviceRegistry = deviceRegistry;
+        this.rawJson = rawJson;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled() && active != null;
+    }
+
+    public boolean isPrimary() {
+        return isEnabled() && properties.getMode() == LocalStoreProperties.Mode.PRIMARY;
+    }
+
+    /**
+     * 打开存储目录，扫描已有分段重建索引并截断损坏的尾部
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        directory = Paths.get(properties.getDirectory());
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.map(file, sequenceOf(file), 0);
+            recover(segment);
+            segments.put(segment.sequence, segment);
+        }
+
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        loadCheckpoint();
+        log.info("本地时序存储已打开: 模式{}, 目录{}, 分段{}个, 恢复样本{}条, 截断损坏尾部{}处",
+                properties.getMode(), directory.toAbsolutePath(), segments.size(), recovered, truncatedSegments);
+    }
+
+    /**
+     * 追加一个样本
+     */
+    public void append(TelemetrySample sample) {
+        long mask = sample.getPresentMask();
+        int payload = FIXED_PAYLOAD_BYTES + Long.bitCount(mask) * 8;
+        int size = HEADER_BYTES + payload;
+
+        synchronized (writeLock) {
+            Segment segment = active;
+            if (segment.writePosition + size > segment.capacity) {
+                segment.buffer.force();
+                segment = roll();
+            }
+            int offset = segment.writePosition;
+            MappedByteBuffer buffer = segment.buffer;
+            int position = offset + HEADER_BYTES;
+            buffer.putLong(position, sample.getDeviceId());
+            buffer.putLong(position + 8, sample.getTimestamp());
+            buffer.putLong(position + 16, mask);
+            position += FIXED_PAYLOAD_BYTES;
+            for (int slot = 0; slot < TelemetryMetric.count(); slot++) {
+                if ((mask & (1L << slot)) != 0) {
+                    buffer.putDouble(position, sample.get(TelemetryMetric.ofSlot(slot)));
+                    position += 8;
+                }
+            }
+            buffer.putInt(offset + 4, crc(buffer, offset + HEADER_BYTES, payload));
+            // 长度最后写入，崩溃时半条记录的长度为0或校验和不匹配
+            buffer.putInt(offset, payload);
+
+            segment.writePosition = offset + size;
+            segment.maxTimestamp = Math.max(segment.maxTimestamp, sample.getTimestamp());
+            index(sample.getDeviceId(), sample.getTimestamp(), segment.sequence, offset);
+        }
+        appended.incrementAndGet();
+    }
+
+    /**
+     * 按时间范围读取设备样本，按采集时间升序
+     */
+    public List<TelemetrySample> scan(long deviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        return scan(deviceId, toMillis(startTime), toMillis(endTime));
+    }
+
+    public List<TelemetrySample> scan(long deviceId, long fromMillis, long toMillis) {
+        DeviceIndex index = indexes.get(deviceId);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        long[] positions = index.range(fromMillis, toMillis);
+        List<TelemetrySample> samples = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            Segment segment = segments.get(position >>> 32);
+            if (segment != null) {
+                samples.add(read(segment.buffer, (int) position));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * 定时将映射内存刷到磁盘
+     */
+    @Scheduled(fixedDelayString = "${vpp.local-store.force-interval:1000}")
+    public void force() {
+        Segment segment = active;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * BUFFER模式下按写入顺序回放到 device_data，写入成功后推进检查点
+     */
+    @Scheduled(fixedDelayString = "${vpp.local-store.replay-interval:1000}")
+    public void replay() {
+        if (!isEnabled() || properties.getMode() != LocalStoreProperties.Mode.BUFFER) {
+            return;
+        }
+        synchronized (replayLock) {
+            int batchSize = Math.max(1, properties.getReplayBatchSize());
+            while (true) {
+                long sequence = checkpointSegment;
+                int offset = checkpointOffset;
+                List<TelemetrySample> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize) {
+                    Segment segment = segments.get(sequence);
+                    if (segment == null) {
+                        Long next = segments.higherKey(sequence);
+                        if (next == null) {
+                            break;
+                        }
+                        sequence = next;
+                        offset = 0;
+                        continue;
+                    }
+                    // 先判断是否已封存，封存分段的写位置不再变化
+                    boolean sealed = segment != active;
+                    if (offset >= segment.writePosition) {
+                        Long next = sealed ? segments.higherKey(sequence) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        sequence = next;
+                        offset = 0;
+                        continue;
+                    }
+                    batch.add(read(segment.buffer, offset));
+                    offset += HEADER_BYTES + segment.buffer.getInt(offset);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                try {
+                    deviceDataRepository.saveAll(toDeviceData(batch));
+                } catch (Exception e) {
+                    replayFailures.incrementAndGet();
+                    log.warn("本地存储回放失败，{}条样本稍后重试: {}", batch.size(), e.getMessage());
+                    break;
+                }
+                replayed.addAndGet(batch.size());
+                saveCheckpoint(sequence, offset);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+
+            // 检查点之前的封存分段已全部回放
+            for (Segment segment : new ArrayList<>(segments.headMap(checkpointSegment, false).values())) {
+                if (segment != active) {
+                    deleteSegment(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * PRIMARY模式下删除超出保留期的封存分段
+     */
+    @Scheduled(fixedDelayString = "${vpp.local-store.cleanup-interval:600000}")
+    public void cleanup() {
+        if (!isPrimary()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - properties.getRetentionHours() * 3_600_000L;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment != active && segment.maxTimestamp < cutoff) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        force();
+    }
+
+    /**
+     * 获取存储统计
+     */
+    public LocalStoreStats getStats() {
+        long records = 0;
+        for (DeviceIndex index : indexes.values()) {
+            records += index.size();
+        }
+        long backlog = 0;
+        if (properties.getMode() == LocalStoreProperties.Mode.BUFFER) {
+            for (Segment segment : segments.tailMap(checkpointSegment, true).values()) {
+                backlog += segment.writePosition - (segment.sequence == checkpointSegment ? checkpointOffset : 0);
+            }
+        }
+        return new LocalStoreStats(properties.getMode().name(), segments.size(), indexes.size(), records,
+                appended.get(), recovered, truncatedSegments, replayed.get(), backlog, replayFailures.get());
+    }
+
+    private List<DeviceData> toDeviceData(List<TelemetrySample> batch) {
+        Map<Long, String> names = new HashMap<>();
+        List<DeviceData> rows = new ArrayList<>(batch.size());
+        for (TelemetrySample sample : batch) {
+            String name = names.computeIfAbsent(sample.getDeviceId(),
+                    id -> deviceRegistry.get(id).map(VppDevice::getName).orElse(null));
+            rows.add(VppDeviceService.toDeviceData(sample, name, rawJson));
+        }
+        return rows;
+    }
+
+    private Segment roll() {
+        long sequence = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        try {
+            Segment segment = Segment.map(file, sequence, properties.segmentBytes());
+            segments.put(sequence, segment);
+            active = segment;
+            log.debug("本地时序存储新建分段: {}", file.getFileName());
+            return segment;
+        } catch (IOException e) {
+            throw new RuntimeException("创建本地存储分段失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 顺序扫描分段重建索引，遇到不完整或校验失败的记录时清零其后的内容
+     */
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segment.capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            boolean valid = length >= FIXED_PAYLOAD_BYTES
+                    && (length - FIXED_PAYLOAD_BYTES) % 8 == 0
+                    && offset + HEADER_BYTES + length <= segment.capacity
+                    && crc(buffer, offset + HEADER_BYTES, length) == buffer.getInt(offset + 4);
+            if (!valid) {
+                log.warn("本地存储分段{}在偏移{}处记录损坏，截断其后内容", segment.path.getFileName(), offset);
+                for (int i = offset; i < segment.capacity; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+                truncatedSegments++;
+                break;
+            }
+            long deviceId = buffer.getLong(offset + HEADER_BYTES);
+            long timestamp = buffer.getLong(offset + HEADER_BYTES + 8);
+            index(deviceId, timestamp, segment.sequence, offset);
+            segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+            recovered++;
+            offset += HEADER_BYTES + length;
+        }
+        segment.writePosition = offset;
+    }
+
+    private void deleteSegment(Segment segment) {
+        segments.remove(segment.sequence);
+        indexes.values().forEach(index -> index.removeSegment(segment.sequence));
+        indexes.values().removeIf(index -> index.size() == 0);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("删除本地存储分段{}失败: {}", segment.path.getFileName(), e.getMessage());
+        }
+    }
+
+    private void index(long deviceId, long timestamp, long sequence, int offset) {
+        indexes.computeIfAbsent(deviceId, id -> new DeviceIndex()).add(timestamp, (sequence << 32) | offset);
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(file)) {
+            String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split("\\s+");
+            checkpointSegment = Long.parseLong(parts[0]);
+            checkpointOffset = Integer.parseInt(parts[1]);
+        } else {
+            checkpointSegment = segments.firstKey();
+            checkpointOffset = 0;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免崩溃时检查点损坏
+     */
+    private void saveCheckpoint(long sequence, int offset) {
+        checkpointSegment = sequence;
+        checkpointOffset = offset;
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temp, sequence + " " + offset, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 检查点落后只会导致重启后重复回放
+            log.warn("保存本地存储回放检查点失败: {}", e.getMessage());
+        }
+    }
+
+    private static TelemetrySample read(MappedByteBuffer buffer, int offset) {
+        int position = offset + HEADER_BYTES;
+        TelemetrySample sample = new TelemetrySample(buffer.getLong(position), buffer.getLong(position + 8));
+        long mask = buffer.getLong(position + 16);
+        position += FIXED_PAYLOAD_BYTES;
+        for (int slot = 0; slot < TelemetryMetric.count(); slot++) {
+            if ((mask & (1L << slot)) != 0) {
+                sample.set(slot, buffer.getDouble(position));
+                position += 8;
+            }
+        }
+        return sample;
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 内存映射的分段文件
+     */
+    private static class Segment {
+
+        private final long sequence;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private volatile int writePosition;
+        private volatile long maxTimestamp = Long.MIN_VALUE;
+
+        private Segment(long sequence, Path path, MappedByteBuffer buffer, int capacity) {
+            this.sequence = sequence;
+            this.path = path;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /**
+         * 映射分段文件，size 为0时按现有文件大小映射；通道关闭后映射仍然有效
+         */
+        static Segment map(Path path, long sequence, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                int capacity = size > 0 ? size : (int) channel.size();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                return new Segment(sequence, path, buffer, capacity);
+            }
+        }
+    }
+
+    /**
+     * 单台设备的 时间戳 -> 记录位置（分段序号<<32 | 段内偏移）索引
+     * 样本通常按时间递增追加，出现乱序时在下次查询前重新排序
+     */
+    private static class DeviceIndex {
+
+        private long[] timestamps = new long[64];
+        private long[] positions = new long[64];
+        private int size;
+        private boolean sorted = true;
+
+        synchronized void add(long timestamp, long position) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            positions[size] = position;
+            size++;
+        }
+
+        synchronized long[] range(long from, long to) {
+            if (!sorted) {
+                sort();
+            }
+            int low = lowerBound(from);
+            int high = lowerBound(to == Long.MAX_VALUE ? to : to + 1);
+            return Arrays.copyOfRange(positions, low, Math.max(low, high));
+        }
+
+        synchronized void removeSegment(long sequence) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (positions[i] >>> 32 != sequence) {
+                    timestamps[kept] = timestamps[i];
+                    positions[kept] = positions[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int lowerBound(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> timestamps[a] != timestamps[b]
+                    ? Long.compare(timestamps[a], timestamps[b]) : Long.compare(positions[a], positions[b]));
+            long[] sortedTimes = new long[timestamps.length];
+            long[] sortedPositions = new long[positions.length];
+            for (int i = 0; i < size; i++) {
+                sortedTimes[i] = timestamps[order[i]];
+                sortedPositions[i] = positions[order[i]];
+            }
+            timestamps = sortedTimes;
+            positions = sortedPositions;
+            sorted = true;
+        }
+    }
+}
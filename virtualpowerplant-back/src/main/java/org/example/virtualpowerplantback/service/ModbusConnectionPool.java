@@ -0,0 +1,354 @@
+package org.example.virtualpowerplantback.service;
+
+import com.digitalpetri.modbus.ModbusResponseException;
+import com.digitalpetri.modbus.master.ModbusTcpMaster;
+import com.digitalpetri.modbus.master.ModbusTcpMasterConfig;
+import com.digitalpetri.modbus.requests.ModbusRequest;
+import com.digitalpetri.modbus.requests.ReadHoldingRegistersRequest;
+import com.digitalpetri.modbus.responses.ModbusResponse;
+import io.netty.util.ReferenceCountUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.GatewayProperties;
+import org.example.virtualpowerplantback.dto.GatewayStats;
+import org.example.virtualpowerplantback.dto.ModbusPoolStats;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modbus TCP长连接池
+ * 每个网关（ip:port）保持一条长连接，连接失败按指数退避重连，
+ * 定期对空闲连接做保活探测，长时间未使用的连接自动回收。
+ * 同一网关下不同从站的请求共用该连接并以流水线方式发送，
+ * 由ModbusTcpMaster按事务ID匹配响应，连接池只限制每个网关的未完成请求数
+ */
+@Service
+@Slf4j
+public class ModbusConnectionPool {
+
+    @Value("${vpp.modbus.connect-timeout:5000}")
+    private int connectTimeout;
+
+    @Value("${vpp.modbus.read-timeout:3000}")
+    private int readTimeout;
+
+    @Value("${vpp.modbus.pool.idle-timeout:600000}")
+    private long idleTimeout;
+
+    @Value("${vpp.modbus.pool.keepalive-interval:60000}")
+    private long keepaliveInterval;
+
+    @Value("${vpp.modbus.pool.backoff-initial:1000}")
+    private long backoffInitial;
+
+    @Value("${vpp.modbus.pool.backoff-max:60000}")
+    private long backoffMax;
+
+    // 连续超时达到该次数后认为连接已失效
+    @Value("${vpp.modbus.pool.max-consecutive-timeouts:3}")
+    private int maxConsecutiveTimeouts;
+
+    private final GatewayProperties gatewayProperties;
+
+    private final VppMetrics metrics;
+
+    private final Map<String, PooledConnection> connections = new ConcurrentHashMap<>();
+
+    private final AtomicLong connectAttempts = new AtomicLong();
+    private final AtomicLong connectFailures = new AtomicLong();
+    private final AtomicLong reuseHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong probeFailures = new AtomicLong();
+
+    public ModbusConnectionPool(GatewayProperties gatewayProperties, VppMetrics metrics) {
+        this.gatewayProperties = gatewayProperties;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 通过设备所在网关的共享连接发送请求
+     * 网关未完成请求数达到上限时最多等待一个读取超时周期
+     *
+     * @throws IllegalStateException 网关处于重连退避期
+     */
+    public <T extends ModbusResponse> CompletableFuture<T> send(VppDevice device, ModbusRequest request)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        PooledConnection connection = acquire(device);
+
+        if (!connection.outstanding.tryAcquire(readTimeout, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("网关%s未完成请求数已达上限%d".formatted(
+                    connection.key, connection.maxOutstanding));
+        }
+
+        connection.requestStarted();
+        CompletableFuture<T> future;
+        try {
+            future = connection.master.sendRequest(request, device.getSlaveId());
+        } catch (RuntimeException e) {
+            connection.requestFinished();
+            throw e;
+        }
+
+        return future.whenComplete((response, error) -> {
+            connection.requestFinished();
+            if (error == null) {
+                connection.consecutiveTimeouts.set(0);
+            } else {
+                reportFailure(connection, error);
+            }
+        });
+    }
+
+    /**
+     * 获取设备所在网关的可用连接，必要时建立连接
+     *
+     * @throws IllegalStateException 网关处于重连退避期
+     */
+    private PooledConnection acquire(VppDevice device)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        String key = DeviceCollectionEngine.gatewayKey(device);
+        PooledConnection connection = connections.computeIfAbsent(key,
+                k -> new PooledConnection(k, createClient(device.getIpAddress(), device.getPort()),
+                        gatewayProperties.maxOutstandingFor(k)));
+        connection.touch(device.getSlaveId());
+
+        if (connection.connected) {
+            reuseHits.incrementAndGet();
+            return connection;
+        }
+
+        synchronized (connection) {
+            if (connection.connected) {
+                reuseHits.incrementAndGet();
+                return connection;
+            }
+
+            long waitMillis = connection.nextRetryAt - System.currentTimeMillis();
+            if (waitMillis > 0) {
+                throw new IllegalStateException("网关%s连接失败，%dms后重试".formatted(key, waitMillis));
+            }
+
+            connectAttempts.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                connection.master.connect().get(connectTimeout, TimeUnit.MILLISECONDS);
+                metrics.recordConnect(key, System.nanoTime() - start, true);
+                connection.markConnected();
+                log.info("已建立Modbus长连接: {}", key);
+                return connection;
+            } catch (ExecutionException | TimeoutException e) {
+                metrics.recordConnect(key, System.nanoTime() - start, false);
+                connectFailures.incrementAndGet();
+                long backoff = connection.markConnectFailed(backoffInitial, backoffMax);
+                log.warn("连接网关失败: {}, {}ms后重试, 错误: {}", key, backoff, e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 请求失败，根据异常类型判断连接是否需要重建
+     */
+    private void reportFailure(PooledConnection connection, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof ModbusResponseException) {
+            // 设备返回异常码说明链路正常
+            connection.consecutiveTimeouts.set(0);
+        } else if (cause instanceof IOException) {
+            invalidate(connection, "链路异常: " + cause.getMessage());
+        } else if (connection.consecutiveTimeouts.incrementAndGet() >= maxConsecutiveTimeouts) {
+            invalidate(connection, "连续超时" + connection.consecutiveTimeouts.get() + "次");
+        }
+    }
+
+    /**
+     * 定期回收空闲连接，并对空闲的已连接网关发送保活探测
+     */
+    @Scheduled(fixedDelayString = "${vpp.modbus.pool.health-check-interval:30000}")
+    public void healthCheck() {
+        long now = System.currentTimeMillis();
+        connections.values().forEach(connection -> {
+            long idle = now - connection.lastUsed;
+            if (idle >= idleTimeout) {
+                if (connections.remove(connection.key, connection)) {
+                    evictions.incrementAndGet();
+                    connection.close();
+                    log.debug("回收空闲Modbus连接: {}", connection.key);
+                }
+            } else if (connection.connected && idle >= keepaliveInterval) {
+                probe(connection);
+            }
+        });
+    }
+
+    /**
+     * 保活探测：读取一个保持寄存器，异步处理结果，不阻塞调度线程
+     */
+    private void probe(PooledConnection connection) {
+        connection.master.<ModbusResponse>sendRequest(new ReadHoldingRegistersRequest(0, 1), connection.lastSlaveId)
+                .orTimeout(readTimeout, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    ReferenceCountUtil.release(response);
+                    if (error != null && !(unwrap(error) instanceof ModbusResponseException)) {
+                        probeFailures.incrementAndGet();
+                        invalidate(connection, "保活探测失败: " + unwrap(error).getMessage());
+                    }
+                });
+    }
+
+    /**
+     * 获取连接池统计
+     */
+    public ModbusPoolStats getStats() {
+        long now = System.currentTimeMillis();
+        int connected = 0;
+        int backingOff = 0;
+        for (PooledConnection connection : connections.values()) {
+            if (connection.connected) {
+                connected++;
+            } else if (connection.nextRetryAt > now) {
+                backingOff++;
+            }
+        }
+        return new ModbusPoolStats(connections.size(), connected, backingOff,
+                connectAttempts.get(), connectFailures.get(), reuseHits.get(),
+                evictions.get(), probeFailures.get());
+    }
+
+    /**
+     * 获取各网关连接的运行状态
+     */
+    public List<GatewayStats> getGatewayStats() {
+        return connections.values().stream()
+                .map(c -> new GatewayStats(c.key, c.connected, c.inFlight.get(), c.peakInFlight.get(),
+                        c.maxOutstanding, c.slaveIds.size(), c.requestCount.get()))
+                .sorted(Comparator.comparing(GatewayStats::getGateway))
+                .toList();
+    }
+
+    /**
+     * 关闭所有连接
+     */
+    @PreDestroy
+    public void closeAll() {
+        connections.values().forEach(PooledConnection::close);
+        connections.clear();
+        log.info("已关闭所有Modbus连接");
+    }
+
+    private void invalidate(PooledConnection connection, String reason) {
+        if (connection.connected) {
+            log.warn("Modbus连接失效，将重新建立: {} - {}", connection.key, reason);
+            connection.connected = false;
+            connection.consecutiveTimeouts.set(0);
+            connection.master.disconnect();
+        }
+    }
+
+    private ModbusTcpMaster createClient(String ipAddress, int port) {
+        ModbusTcpMasterConfig config = new ModbusTcpMasterConfig.Builder(ipAddress)
+                .setPort(port)
+                .setTimeout(Duration.ofMillis(readTimeout))
+                .build();
+        return new ModbusTcpMaster(config);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof ClosedChannelException) {
+            return new IOException("连接已关闭", cause);
+        }
+        return cause;
+    }
+
+    /**
+     * 池中的单条网关连接
+     */
+    private static class PooledConnection {
+
+        private final String key;
+        private final ModbusTcpMaster master;
+        private final int maxOutstanding;
+        private final Semaphore outstanding;
+        private final AtomicInteger consecutiveTimeouts = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final AtomicLong requestCount = new AtomicLong();
+        private final Set<Integer> slaveIds = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean connected;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile int lastSlaveId = 1;
+        private volatile long nextRetryAt;
+        private int connectFailureCount;
+
+        PooledConnection(String key, ModbusTcpMaster master, int maxOutstanding) {
+            this.key = key;
+            this.master = master;
+            this.maxOutstanding = maxOutstanding;
+            this.outstanding = new Semaphore(maxOutstanding);
+        }
+
+        void touch(int slaveId) {
+            lastUsed = System.currentTimeMillis();
+            lastSlaveId = slaveId;
+            slaveIds.add(slaveId);
+        }
+
+        void requestStarted() {
+            requestCount.incrementAndGet();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+
+        void requestFinished() {
+            inFlight.decrementAndGet();
+            outstanding.release();
+        }
+
+        void markConnected() {
+            connected = true;
+            connectFailureCount = 0;
+            nextRetryAt = 0;
+            consecutiveTimeouts.set(0);
+        }
+
+        long markConnectFailed(long backoffInitial, long backoffMax) {
+            connectFailureCount++;
+            long backoff = Math.min(backoffMax, backoffInitial << Math.min(connectFailureCount - 1, 20));
+            nextRetryAt = System.currentTimeMillis() + backoff;
+            return backoff;
+        }
+
+        void close() {
+            connected = false;
+            try {
+                master.disconnect();
+            } catch (Exception e) {
+                log.warn("关闭Modbus连接时出错: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package org.example.virtualpowerplantback.service;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.SlaveSimulatorProperties;
+import org.example.virtualpowerplantback.dto.RegisterBlock;
+import org.example.virtualpowerplantback.dto.RegisterReadPlan;
+import org.example.virtualpowerplantback.dto.SlaveSimulatorStats;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内嵌Modbus TCP从站模拟器
+ * 在本机连续端口上模拟多个网关，每个网关下挂若干从站；按 IP、端口、单元ID 找到已登记的设备，
+ * 以其型号的寄存器映射和模拟数据响应读请求，未登记的单元ID按默认设备类型响应，
+ * 每个端口和单元ID各有独立的虚拟设备与模拟状态，互不共享数据和锁。
+ * 可配置响应延迟、抖动、丢包和异常响应，用于在真实通信模式下压测连接池、并发与超时处理
+ */
+@Service
+@Slf4j
+public class ModbusSlaveSimulator implements SmartLifecycle {
+
+    private static final int MBAP_LENGTH = 7;
+
+    private static final int ILLEGAL_FUNCTION = 1;
+    private static final int ILLEGAL_DATA_ADDRESS = 2;
+    private static final int ILLEGAL_DATA_VALUE = 3;
+
+    private final SlaveSimulatorProperties properties;
+
+    private final DeviceRegistry deviceRegistry;
+
+    private final RegisterMapService registerMapService;
+
+    private final DataSimulatorService dataSimulatorService;
+
+    // 端口与单元ID -> 未登记从站的虚拟设备
+    private final Map<Long, VppDevice> virtualDevices = new ConcurrentHashMap<>();
+
+    private final List<Channel> serverChannels = new ArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong exceptions = new AtomicLong();
+
+    private EventLoopGroup bossGroup;
+
+    private EventLoopGroup workerGroup;
+
+    private volatile boolean running;
+
+    public ModbusSlaveSimulator(SlaveSimulatorProperties properties,
+                                DeviceRegistry deviceRegistry,
+                                RegisterMapService registerMapService,
+                                DataSimulatorService dataSimulatorService) {
+        this.properties = properties;
+        this.deviceRegistry = deviceRegistry;
+        this.registerMapService = registerMapService;
+        this.dataSimulatorService = dataSimulatorService;
+    }
+
+    @Override
+    public void start() {
+        if (running || !properties.isEnabled()) {
+            return;
+        }
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("vpp-slave-boss"));
+        workerGroup = new NioEventLoopGroup(properties.getWorkerThreads(), new DefaultThreadFactory("vpp-slave"));
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        initPipeline(ch.pipeline(), ch.localAddress().getPort());
+                    }
+                });
+        try {
+            for (int i = 0; i < properties.getPorts(); i++) {
+                int port = properties.getBasePort() + i;
+                serverChannels.add(bootstrap.bind(properties.getBindAddress(), port).sync().channel());
+            }
+        } catch (Exception e) {
+            closeChannels();
+            throw new RuntimeException("Modbus从站模拟器启动失败: " + e.getMessage(), e);
+        }
+        running = true;
+        log.info("Modbus从站模拟器已启动: {}:{}-{}, 每端口{}个从站, 延迟{}ms±{}ms, 丢包率{}, 异常率{}",
+                properties.getBindAddress(), properties.getBasePort(),
+                properties.getBasePort() + properties.getPorts() - 1, properties.getUnitsPerPort(),
+                properties.getLatencyMillis(), properties.getJitterMillis(),
+                properties.getDropRate(), properties.getExceptionRate());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        closeChannels();
+        log.info("Modbus从站模拟器已停止");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 先于采集组件启动、后于其停止
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    /**
+     * 获取模拟器统计
+     */
+    public SlaveSimulatorStats getStats() {
+        return new SlaveSimulatorStats(running, properties.getPorts(), properties.getUnitsPerPort(),
+                connections.get(), requests.get(), responses.get(), dropped.get(), exceptions.get());
+    }
+
+    /**
+     * 按MBAP长度字段拆帧，再交给从站处理器
+     */
+    void initPipeline(ChannelPipeline pipeline, int port) {
+        pipeline.addLast(new LengthFieldBasedFrameDecoder(MBAP_LENGTH + 253, 4, 2));
+        pipeline.addLast(new SlaveHandler(port));
+    }
+
+    /**
+     * 处理一帧请求，返回完整响应帧；返回null表示按丢包率丢弃
+     */
+    ByteBuf respond(ByteBuf frame, int port, ByteBuf out) {
+        int base = frame.readerIndex();
+        if (frame.readableBytes() < MBAP_LENGTH + 1) {
+            dropped.incrementAndGet();
+            return null;
+        }
+        int transactionId = frame.getUnsignedShort(base);
+        int unitId = frame.getUnsignedByte(base + 6);
+        int functionCode = frame.getUnsignedByte(base + MBAP_LENGTH);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (properties.getDropRate() > 0 && random.nextDouble() < properties.getDropRate()) {
+            dropped.incrementAndGet();
+            return null;
+        }
+        if (unitId < 1 || unitId > properties.getUnitsPerPort()) {
+            // 网关下不存在该从站时不响应，由主站超时
+            dropped.incrementAndGet();
+            return null;
+        }
+
+        RegisterPoint.RegisterTable table = switch (functionCode) {
+            case 0x01 -> RegisterPoint.RegisterTable.COIL;
+            case 0x02 -> RegisterPoint.RegisterTable.DISCRETE_INPUT;
+            case 0x03 -> RegisterPoint.RegisterTable.HOLDING;
+            case 0x04 -> RegisterPoint.RegisterTable.INPUT;
+            default -> null;
+        };
+        if (table == null || frame.readableBytes() < MBAP_LENGTH + 5) {
+            return exception(out, transactionId, unitId, functionCode, ILLEGAL_FUNCTION);
+        }
+        if (properties.getExceptionRate() > 0 && random.nextDouble() < properties.getExceptionRate()) {
+            return exception(out, transactionId, unitId, functionCode, properties.getExceptionCode());
+        }
+
+        int start = frame.getUnsignedShort(base + MBAP_LENGTH + 1);
+        int quantity = frame.getUnsignedShort(base + MBAP_LENGTH + 3);
+        if (quantity < 1 || quantity > table.getMaxQuantity()) {
+            return exception(out, transactionId, unitId, functionCode, ILLEGAL_DATA_VALUE);
+        }
+        if (start + quantity > 0x10000) {
+            return exception(out, transactionId, unitId, functionCode, ILLEGAL_DATA_ADDRESS);
+        }
+
+        byte[] data = new byte[table.isBitTable() ? (quantity + 7) / 8 : quantity * 2];
+        fill(deviceAt(port, unitId), table, start, data);
+
+        out.writeShort(transactionId);
+        out.writeShort(0);
+        out.writeShort(3 + data.length);
+        out.writeByte(unitId);
+        out.writeByte(functionCode);
+        out.writeByte(data.length);
+        out.writeBytes(data);
+        responses.incrementAndGet();
+        return out;
+    }
+
+    private VppDevice deviceAt(int port, int unitId) {
+        return deviceRegistry.getByEndpoint(properties.getBindAddress(), port, unitId)
+                .orElseGet(() -> virtualDevice(port, unitId));
+    }
+
+    /**
+     * 未登记从站的虚拟设备，ID取负值以免与已登记设备的模拟状态冲突
+     */
+    private VppDevice virtualDevice(int port, int unitId) {
+        return virtualDevices.computeIfAbsent(-((long) port * 256 + unitId), id -> {
+            VppDevice device = new VppDevice();
+            device.setId(id);
+            device.setName("模拟从站" + port + "/" + unitId);
+            device.setIpAddress(properties.getBindAddress());
+            device.setPort(port);
+            device.setSlaveId(unitId);
+            device.setDeviceType(properties.getDefaultDeviceType());
+            return device;
+        });
+    }
+
+    /**
+     * 按设备型号的点位布局把一次模拟采样编码到响应数据中，未映射的地址为0
+     */
+    private void fill(VppDevice device, RegisterPoint.RegisterTable table, int start, byte[] data) {
+        RegisterReadPlan plan = registerMapService.planFor(device);
+        TelemetrySample sample = dataSimulatorService.simulateDeviceData(device);
+        int end = start + (table.isBitTable() ? data.length * 8 : data.length / 2);
+        for (RegisterBlock block : plan.getBlocks()) {
+            if (block.getTable() != table
+                    || block.getStartAddress() >= end
+                    || block.getStartAddress() + block.getQuantity() <= start) {
+                continue;
+            }
+            for (RegisterPoint point : block.getPoints()) {
+                TelemetryMetric metric = TelemetryMetric.byName(point.getName());
+                if (metric != null && sample.has(metric)) {
+                    RegisterCodec.encode(point, sample.get(metric), data, start);
+                }
+            }
+        }
+    }
+
+    private ByteBuf exception(ByteBuf out, int transactionId, int unitId, int functionCode, int code) {
+        out.writeShort(transactionId);
+        out.writeShort(0);
+        out.writeShort(3);
+        out.writeByte(unitId);
+        out.writeByte(functionCode | 0x80);
+        out.writeByte(code);
+        exceptions.incrementAndGet();
+        return out;
+    }
+
+    private void closeChannels() {
+        for (Channel channel : serverChannels) {
+            channel.close().syncUninterruptibly();
+        }
+        serverChannels.clear();
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+            workerGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+            bossGroup = null;
+            workerGroup = null;
+        }
+    }
+
+    /**
+     * 单个连接的请求处理，响应在连接所在的事件循环上按配置的延迟发送
+     */
+    private class SlaveHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        private final int port;
+
+        SlaveHandler(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            connections.incrementAndGet();
+            super.channelActive(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            connections.decrementAndGet();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            requests.incrementAndGet();
+            ByteBuf out = ctx.alloc().buffer(MBAP_LENGTH + 3 + 250);
+            ByteBuf response;
+            try {
+                response = respond(frame, port, out);
+            } catch (RuntimeException e) {
+                out.release();
+                throw e;
+            }
+            if (response == null) {
+                out.release();
+                return;
+            }
+
+            long delay = properties.getLatencyMillis();
+            if (properties.getJitterMillis() > 0) {
+                delay += ThreadLocalRandom.current().nextLong(properties.getJitterMillis() + 1);
+            }
+            if (delay > 0) {
+                ctx.executor().schedule(() -> ctx.writeAndFlush(response), delay, TimeUnit.MILLISECONDS);
+            } else {
+                ctx.writeAndFlush(response);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Modbus从站模拟器连接异常，关闭连接: {}", cause.getMessage());
+            ctx.close();
+        }
+    }
+}
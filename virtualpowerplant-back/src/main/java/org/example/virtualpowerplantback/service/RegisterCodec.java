@@ -0,0 +1,235 @@
+package org.example.virtualpowerplantback.service;
+
+import io.netty.buffer.ByteBuf;
+import org.example.virtualpowerplantback.dto.RegisterBlock;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 寄存器块规划与解码工具
+ */
+public final class RegisterCodec {
+
+    private RegisterCodec() {
+    }
+
+    /**
+     * 将点位按寄存器表分组，地址相邻或空洞不超过 maxGap 的点位合并为一次块读取，
+     * 单块长度不超过该寄存器表的PDU上限（寄存器125个，线圈/离散输入2000个）
+     */
+    public static List<RegisterBlock> planBlocks(List<RegisterPoint> points, int maxGap) {
+        Map<RegisterPoint.RegisterTable, List<RegisterPoint>> byTable =
+                new EnumMap<>(RegisterPoint.RegisterTable.class);
+        for (RegisterPoint point : points) {
+            byTable.computeIfAbsent(point.getTable(), k -> new ArrayList<>()).add(point);
+        }
+
+        List<RegisterBlock> blocks = new ArrayList<>();
+        byTable.forEach((table, tablePoints) -> {
+            tablePoints.sort(Comparator.comparingInt(RegisterPoint::getAddress));
+
+            List<RegisterPoint> current = new ArrayList<>();
+            int blockStart = 0;
+            int blockEnd = 0;
+            for (RegisterPoint point : tablePoints) {
+                int start = point.getAddress();
+                int end = start + length(point);
+                if (!current.isEmpty()
+                        && start - blockEnd <= maxGap
+                        && Math.max(blockEnd, end) - blockStart <= table.getMaxQuantity()) {
+                    current.add(point);
+                    blockEnd = Math.max(blockEnd, end);
+                    continue;
+                }
+                if (!current.isEmpty()) {
+                    blocks.add(block(table, blockStart, blockEnd, current));
+                }
+                current = new ArrayList<>();
+                current.add(point);
+                blockStart = start;
+                blockEnd = end;
+            }
+            if (!current.isEmpty()) {
+                blocks.add(block(table, blockStart, blockEnd, current));
+            }
+        });
+        return blocks;
+    }
+
+    private static RegisterBlock block(RegisterPoint.RegisterTable table, int start, int end,
+                                       List<RegisterPoint> points) {
+        int[] slots = new int[points.size()];
+        for (int i = 0; i < slots.length; i++) {
+            TelemetryMetric metric = TelemetryMetric.byName(points.get(i).getName());
+            slots[i] = metric != null ? metric.slot() : -1;
+        }
+        return new RegisterBlock(table, start, end - start, points, slots);
+    }
+
+    /**
+     * 将块响应中的所有点位直接解码到样本槽位，未知测点和数据不足的点位被跳过
+     */
+    public static void decodeBlock(RegisterBlock block, ByteBuf buffer, TelemetrySample sample) {
+        List<RegisterPoint> points = block.getPoints();
+        int[] slots = block.getSlots();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0) {
+                continue;
+            }
+            double value = decode(points.get(i), buffer, block.getStartAddress());
+            if (!Double.isNaN(value)) {
+                sample.set(slots[i], value);
+            }
+        }
+    }
+
+    /**
+     * 从块读取响应中解码一个点位
+     *
+     * @param buffer     块响应数据（寄存器表为每寄存器2字节，位表为按位打包）
+     * @param blockStart 块起始地址
+     * @return 乘以缩放系数后的值；数据不足时返回NaN
+     */
+    public static double decode(RegisterPoint point, ByteBuf buffer, int blockStart) {
+        int offset = point.getAddress() - blockStart;
+
+        if (point.getTable().isBitTable()) {
+            int byteIndex = offset / 8;
+            if (offset < 0 || byteIndex >= buffer.readableBytes()) {
+                return Double.NaN;
+            }
+            int bit = (buffer.getUnsignedByte(buffer.readerIndex() + byteIndex) >> (offset % 8)) & 1;
+            return scale(point, bit);
+        }
+
+        int index = offset * 2;
+        if (offset < 0 || index + length(point) * 2 > buffer.readableBytes()) {
+            return Double.NaN;
+        }
+        index += buffer.readerIndex();
+
+        return switch (point.getDataType()) {
+            case INT16 -> scale(point, (short) read16(buffer, index, point.getEndianness()));
+            case UINT16, BOOL -> scale(point, read16(buffer, index, point.getEndianness()));
+            case INT32 -> scale(point, read32(buffer, index, point.getEndianness()));
+            case UINT32 -> scale(point, read32(buffer, index, point.getEndianness()) & 0xFFFFFFFFL);
+            case FLOAT32 -> scale(point, Float.intBitsToFloat(read32(buffer, index, point.getEndianness())));
+        };
+    }
+
+    /**
+     * 将点位值编码到块响应中，是 decode 的逆过程（供从站模拟器使用）
+     *
+     * @param buffer     块响应数据，按 decode 相同的布局写入
+     * @param blockStart 块起始地址
+     */
+    public static void encode(RegisterPoint point, double value, byte[] buffer, int blockStart) {
+        int offset = point.getAddress() - blockStart;
+
+        if (point.getTable().isBitTable()) {
+            int byteIndex = offset / 8;
+            if (offset < 0 || byteIndex >= buffer.length) {
+                return;
+            }
+            if (Math.round(unscale(point, value)) != 0) {
+                buffer[byteIndex] |= (byte) (1 << (offset % 8));
+            } else {
+                buffer[byteIndex] &= (byte) ~(1 << (offset % 8));
+            }
+            return;
+        }
+
+        int index = offset * 2;
+        if (offset < 0 || index + length(point) * 2 > buffer.length) {
+            return;
+        }
+        double raw = unscale(point, value);
+
+        switch (point.getDataType()) {
+            case INT16, UINT16, BOOL -> write16(buffer, index, (int) Math.round(raw), point.getEndianness());
+            case INT32, UINT32 -> write32(buffer, index, (int) Math.round(raw), point.getEndianness());
+            case FLOAT32 -> write32(buffer, index, Float.floatToIntBits((float) raw), point.getEndianness());
+        }
+    }
+
+    private static int length(RegisterPoint point) {
+        return point.getTable().isBitTable() ? 1 : point.length();
+    }
+
+    private static double scale(RegisterPoint point, double raw) {
+        Double scale = point.getScale();
+        return scale != null ? raw * scale : raw;
+    }
+
+    private static double unscale(RegisterPoint point, double value) {
+        Double scale = point.getScale();
+        return scale != null && scale != 0 ? value / scale : value;
+    }
+
+    /**
+     * 读取16位值，BADC/DCBA表示字内字节交换
+     */
+    private static int read16(ByteBuf buffer, int index, RegisterPoint.Endianness endianness) {
+        int hi = buffer.getUnsignedByte(index);
+        int lo = buffer.getUnsignedByte(index + 1);
+        return switch (endianness) {
+            case ABCD, CDAB -> (hi << 8) | lo;
+            case BADC, DCBA -> (lo << 8) | hi;
+        };
+    }
+
+    /**
+     * 按字节序读取32位值，报文中的字节依次记为 w0 w1 w2 w3
+     */
+    private static int read32(ByteBuf buffer, int index, RegisterPoint.Endianness endianness) {
+        int w0 = buffer.getUnsignedByte(index);
+        int w1 = buffer.getUnsignedByte(index + 1);
+        int w2 = buffer.getUnsignedByte(index + 2);
+        int w3 = buffer.getUnsignedByte(index + 3);
+        return switch (endianness) {
+            case ABCD -> (w0 << 24) | (w1 << 16) | (w2 << 8) | w3;
+            case CDAB -> (w2 << 24) | (w3 << 16) | (w0 << 8) | w1;
+            case BADC -> (w1 << 24) | (w0 << 16) | (w3 << 8) | w2;
+            case DCBA -> (w3 << 24) | (w2 << 16) | (w1 << 8) | w0;
+        };
+    }
+
+    private static void write16(byte[] buffer, int index, int value, RegisterPoint.Endianness endianness) {
+        byte hi = (byte) (value >> 8);
+        byte lo = (byte) value;
+        switch (endianness) {
+            case ABCD, CDAB -> {
+                buffer[index] = hi;
+                buffer[index + 1] = lo;
+            }
+            case BADC, DCBA -> {
+                buffer[index] = lo;
+                buffer[index + 1] = hi;
+            }
+        }
+    }
+
+    /**
+     * 按字节序写入32位值，与 read32 的字节排列一一对应
+     */
+    private static void write32(byte[] buffer, int index, int value, RegisterPoint.Endianness endianness) {
+        byte a = (byte) (value >> 24);
+        byte b = (byte) (value >> 16);
+        byte c = (byte) (value >> 8);
+        byte d = (byte) value;
+        byte[] order = switch (endianness) {
+            case ABCD -> new byte[]{a, b, c, d};
+            case CDAB -> new byte[]{c, d, a, b};
+            case BADC -> new byte[]{b, a, d, c};
+            case DCBA -> new byte[]{d, c, b, a};
+        };
+        System.arraycopy(order, 0, buffer, index, 4);
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.RegisterMapProperties;
+import org.example.virtualpowerplantback.dto.RegisterBlock;
+import org.example.virtualpowerplantback.dto.RegisterReadPlan;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.RegisterPointRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 寄存器映射服务
+ * 按设备型号加载点位定义（数据库优先，其次 application.yml），并编译为合并后的块读取计划
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RegisterMapService {
+
+    private final RegisterMapProperties properties;
+    private final RegisterPointRepository registerPointRepository;
+
+    // 已编译的读取计划，key为设备型号
+    private final Map<String, RegisterReadPlan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 获取设备的读取计划
+     */
+    public RegisterReadPlan planFor(VppDevice device) {
+        return plans.computeIfAbsent(modelOf(device), this::compile);
+    }
+
+    /**
+     * 获取所有已知型号的读取计划
+     */
+    public List<RegisterReadPlan> getAllPlans() {
+        TreeSet<String> models = new TreeSet<>(properties.getModels().keySet());
+        models.addAll(registerPointRepository.findDistinctModels());
+        return models.stream()
+                .map(model -> plans.computeIfAbsent(model, this::compile))
+                .toList();
+    }
+
+    /**
+     * 清空已编译的计划，下次读取时重新加载点位定义
+     */
+    public void reload() {
+        plans.clear();
+        log.info("寄存器映射已重新加载");
+    }
+
+    /**
+     * 设备型号，未配置时使用设备类型名称
+     */
+    public static String modelOf(VppDevice device) {
+        if (device.getModel() != null && !device.getModel().isBlank()) {
+            return device.getModel();
+        }
+        return device.getDeviceType().name();
+    }
+
+    private RegisterReadPlan compile(String model) {
+        List<RegisterPoint> points = registerPointRepository.findByModel(model);
+        if (points.isEmpty()) {
+            points = properties.pointsOf(model);
+        }
+
+        for (RegisterPoint point : points) {
+            if (point.getAddress() == null || point.getAddress() < 0 || point.getAddress() > 0xFFFF) {
+                throw new RuntimeException("型号%s的点位%s地址无效".formatted(model, point.getName()));
+            }
+            if (TelemetryMetric.byName(point.getName()) == null) {
+                log.warn("型号{}的点位{}不是已知测点，读取时将被忽略", model, point.getName());
+            }
+        }
+
+        List<RegisterBlock> blocks = RegisterCodec.planBlocks(points, properties.getMaxGap());
+        log.info("设备型号{}的寄存器映射: {}个点位合并为{}次块读取", model, points.size(), blocks.size());
+        return new RegisterReadPlan(model, points.size(), blocks);
+    }
+}
@@ -0,0 +1,304 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.config.RetentionProperties;
+import org.example.virtualpowerplantback.dto.RetentionResult;
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 历史数据保留策略
+ * device_data 按天做 RANGE 分区时，过期数据通过 DROP PARTITION 整块删除；
+ * 未分区（或非MySQL）时按时间索引分批 DELETE ... LIMIT，每批单独提交，
+ * 避免一次大事务长时间锁表；保留期可按设备类型和汇总分辨率分别配置。
+ * 定时清理在独立线程中执行，分批删除期间不占用共享的调度线程
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RetentionService {
+
+    // TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719528L;
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private static final String MAX_PARTITION = "pmax";
+
+    // 按设备ID删除时每条语句包含的设备数
+    private static final int DEVICE_ID_CHUNK = 500;
+
+    private final RetentionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final DeviceRegistry deviceRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("vpp-retention-"));
+
+    private volatile RetentionResult lastResult;
+
+    /**
+     * 启动时按配置将 device_data 转换为分区表，并预建未来几天的分区
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparePartitions() {
+        if (properties.getMode() == RetentionProperties.Mode.DELETE) {
+            return;
+        }
+        try {
+            if (listPartitions().isEmpty() && properties.getMode() == RetentionProperties.Mode.PARTITION) {
+                convertToPartitioned();
+            }
+            if (!listPartitions().isEmpty()) {
+                ensureFuturePartitions(new RetentionResult());
+            }
+        } catch (DataAccessException e) {
+            log.warn("device_data 分区不可用，将使用分批删除: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时触发清理，交给清理线程执行后立即返回
+     */
+    @Scheduled(cron = "${vpp.retention.cron:0 0 2 * * ?}")
+    public void scheduleEnforce() {
+        try {
+            executor.execute(() -> {
+                try {
+                    enforce();
+                } catch (Exception e) {
+                    log.error("历史数据清理失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("清理线程已关闭，跳过本次清理");
+        }
+    }
+
+    /**
+     * 执行一次历史数据清理（在调用线程中同步执行）
+     */
+    public RetentionResult enforce() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("上一次历史数据清理尚未完成，跳过本次清理");
+            return lastResult;
+        }
+        long start = System.currentTimeMillis();
+        RetentionResult result = new RetentionResult();
+        result.setStartTime(LocalDateTime.now());
+        try {
+            LocalDate today = LocalDate.now();
+            int maxRawDays = properties.maxRawDays();
+            LocalDate cutoff = today.minusDays(maxRawDays);
+
+            List<String[]> partitions = properties.getMode() == RetentionProperties.Mode.DELETE
+                    ? Collections.emptyList() : safeListPartitions();
+            if (!partitions.isEmpty()) {
+                result.setPartitioned(true);
+                ensureFuturePartitions(result);
+                dropExpiredPartitions(partitions, cutoff, result);
+            } else {
+                result.setDeletedRawRows(deleteInChunks(
+                        "DELETE FROM device_data WHERE collect_time < ? LIMIT ?",
+                        Timestamp.valueOf(cutoff.atStartOfDay())));
+            }
+
+            // 保留期短于整体保留期的设备类型单独分批删除
+            for (VppDevice.DeviceType type : VppDevice.DeviceType.values()) {
+                int days = properties.rawDaysFor(type);
+                if (days < maxRawDays) {
+                    result.setDeletedRawRows(result.getDeletedRawRows()
+                            + deleteRawForType(type, today.minusDays(days)));
+                }
+            }
+
+            result.setDeletedSegments(deleteInChunks(
+                    "DELETE FROM telemetry_segment WHERE end_time < ? LIMIT ?",
+                    Timestamp.valueOf(cutoff.atStartOfDay())));
+
+            for (DeviceDataRollup.Resolution resolution : DeviceDataRollup.Resolution.values()) {
+                int days = properties.getRollupDays().getOrDefault(resolution, 0);
+                if (days > 0) {
+                    result.setDeletedRollupRows(result.getDeletedRollupRows() + deleteInChunks(
+                            "DELETE FROM device_data_rollup WHERE resolution = ? AND bucket_start < ? LIMIT ?",
+                            resolution.name(), Timestamp.valueOf(today.minusDays(days).atStartOfDay())));
+                }
+            }
+
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+            lastResult = result;
+            log.info("历史数据清理完成: 分区模式{}, 删除分区{}, 删除原始数据{}行, 删除汇总数据{}行, 删除压缩分段{}个, 耗时{}ms",
+                    result.isPartitioned(), result.getDroppedPartitions(), result.getDeletedRawRows(),
+                    result.getDeletedRollupRows(), result.getDeletedSegments(), result.getElapsedMillis());
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 最近一次清理结果
+     */
+    public RetentionResult getLastResult() {
+        return lastResult;
+    }
+
+    private long deleteRawForType(VppDevice.DeviceType type, LocalDate cutoff) {
+        List<Long> ids = deviceRegistry.getByType(type).stream().map(VppDevice::getId).toList();
+        long deleted = 0;
+        for (int from = 0; from < ids.size(); from += DEVICE_ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + DEVICE_ID_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            List<Object> args = new ArrayList<>(chunk);
+            args.add(Timestamp.valueOf(cutoff.atStartOfDay()));
+            deleted += deleteInChunks("DELETE FROM device_data WHERE device_id IN (" + placeholders
+                    + ") AND collect_time < ? LIMIT ?", args.toArray());
+        }
+        return deleted;
+    }
+
+    /**
+     * 反复执行带 LIMIT 的删除语句直到删完，最后一个参数为批大小
+     */
+    private long deleteInChunks(String sql, Object... args) {
+        Object[] params = new Object[args.length + 1];
+        System.arraycopy(args, 0, params, 0, args.length);
+        params[args.length] = properties.getDeleteChunkSize();
+
+        long total = 0;
+        while (true) {
+            int deleted = jdbcTemplate.update(sql, params);
+            total += deleted;
+            if (deleted < properties.getDeleteChunkSize()) {
+                return total;
+            }
+            try {
+                Thread.sleep(properties.getChunkPauseMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
+
+    /**
+     * 查询 device_data 的分区，返回 [分区名, 上界]，未分区时为空
+     */
+    private List<String[]> listPartitions() {
+        return jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'device_data' "
+                        + "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)});
+    }
+
+    private List<String[]> safeListPartitions() {
+        try {
+            return listPartitions();
+        } catch (DataAccessException e) {
+            log.debug("无法查询 device_data 分区信息: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 将 device_data 转换为按天RANGE分区，已有数据全部落入 p_history 分区
+     * 分区键必须包含在主键中，因此主键改为 (id, collect_time)
+     */
+    private void convertToPartitioned() {
+        LocalDate today = LocalDate.now();
+        log.info("开始将 device_data 转换为按天分区表");
+        jdbcTemplate.execute("ALTER TABLE device_data DROP PRIMARY KEY, ADD PRIMARY KEY (id, collect_time)");
+        jdbcTemplate.execute("ALTER TABLE device_data PARTITION BY RANGE (TO_DAYS(collect_time)) ("
+                + "PARTITION p_history VALUES LESS THAN (" + toDays(today) + "), "
+                + partitionDefinition(today) + ", "
+                + "PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        log.info("device_data 已转换为按天分区表");
+    }
+
+    /**
+     * 从 pmax 中拆出截至 今天+partitionAheadDays 的日分区
+     */
+    private void ensureFuturePartitions(RetentionResult result) {
+        List<String[]> partitions = listPartitions();
+        boolean hasMax = partitions.stream().anyMatch(p -> MAX_PARTITION.equals(p[0]));
+        if (!hasMax) {
+            log.warn("device_data 没有 {} 分区，无法自动创建日分区", MAX_PARTITION);
+            return;
+        }
+
+        long highest = partitions.stream()
+                .filter(p -> !"MAXVALUE".equalsIgnoreCase(p[1]))
+                .mapToLong(p -> Long.parseLong(p[1]))
+                .max()
+                .orElse(toDays(LocalDate.now()));
+        LocalDate next = LocalDate.ofEpochDay(highest - TO_DAYS_EPOCH);
+        LocalDate last = LocalDate.now().plusDays(properties.getPartitionAheadDays());
+        if (next.isAfter(last)) {
+            return;
+        }
+
+        List<String> definitions = new ArrayList<>();
+        for (LocalDate day = next; !day.isAfter(last); day = day.plusDays(1)) {
+            definitions.add(partitionDefinition(day));
+            result.getCreatedPartitions().add(PARTITION_NAME.format(day));
+        }
+        jdbcTemplate.execute("ALTER TABLE device_data REORGANIZE PARTITION " + MAX_PARTITION + " INTO ("
+                + String.join(", ", definitions) + ", PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE)");
+        log.info("device_data 新建分区: {}", result.getCreatedPartitions());
+    }
+
+    /**
+     * 删除上界不晚于截止日期的分区，即其中所有数据都早于截止日期
+     */
+    private void dropExpiredPartitions(List<String[]> partitions, LocalDate cutoff, RetentionResult result) {
+        long cutoffDays = toDays(cutoff);
+        for (String[] partition : partitions) {
+            if ("MAXVALUE".equalsIgnoreCase(partition[1])) {
+                continue;
+            }
+            if (Long.parseLong(partition[1]) <= cutoffDays) {
+                result.getDroppedPartitions().add(partition[0]);
+            }
+        }
+        if (!result.getDroppedPartitions().isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE device_data DROP PARTITION "
+                    + String.join(", ", result.getDroppedPartitions()));
+        }
+    }
+
+    private static String partitionDefinition(LocalDate day) {
+        return "PARTITION " + PARTITION_NAME.format(day) + " VALUES LESS THAN (" + toDays(day.plusDays(1)) + ")";
+    }
+
+    private static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+}
@@ -0,0 +1,284 @@
+package org.example.virtualpowerplantback.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.RollupSeries;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+import org.example.virtualpowerplantback.repository.DeviceDataRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 降采样汇总服务
+ * 采集到的样本先在内存中按 设备/分辨率/时间桶/测点 累加，定时以增量方式
+ * INSERT ... ON DUPLICATE KEY UPDATE 合并进 device_data_rollup，
+ * 历史曲线查询根据 maxPoints 自动选择分辨率。
+ * NaN、Infinity 不计入汇总；写入失败的时间桶放回内存重试，超过重试次数后丢弃，避免数据库长时间不可用时内存持续增长
+ */
+@Service
+@Slf4j
+public class RollupService {
+
+    private static final String UPSERT_SQL = "INSERT INTO device_data_rollup (device_id, resolution, bucket_start, "
+            + "metric, min_value, max_value, sum_value, last_sample_value, last_sample_time, sample_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "min_value = LEAST(min_value, VALUES(min_value)), "
+            + "max_value = GREATEST(max_value, VALUES(max_value)), "
+            + "sum_value = sum_value + VALUES(sum_value), "
+            + "last_sample_value = IF(VALUES(last_sample_time) >= last_sample_time, "
+            + "VALUES(last_sample_value), last_sample_value), "
+            + "last_sample_time = GREATEST(last_sample_time, VALUES(last_sample_time)), "
+            + "sample_count = sample_count + VALUES(sample_count)";
+
+    private static final DeviceDataRollup.Resolution[] RESOLUTIONS = DeviceDataRollup.Resolution.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DeviceDataRollupRepository rollupRepository;
+
+    private final int batchSize;
+
+    private final int defaultMaxPoints;
+
+    private final int maxRetries;
+
+    // 尚未写入数据库的增量
+    private volatile Map<BucketKey, Accumulator> pending = new ConcurrentHashMap<>();
+
+    // 累加时持读锁，刷新时持写锁交换增量表
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public RollupService(JdbcTemplate jdbcTemplate, DeviceDataRollupRepository rollupRepository,
+                         @Value("${vpp.rollup.batch-size:1000}") int batchSize,
+                         @Value("${vpp.rollup.default-max-points:500}") int defaultMaxPoints,
+                         @Value("${vpp.rollup.max-retries:30}") int maxRetries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.defaultMaxPoints = Math.max(1, defaultMaxPoints);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * 将一个样本计入所有分辨率的时间桶
+     */
+    public void accept(TelemetrySample sample) {
+        if (sample.isError() || sample.getPresentMask() == 0) {
+            return;
+        }
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(sample.getTimestamp()),
+                ZoneId.systemDefault());
+
+        swapLock.readLock().lock();
+        try {
+            Map<BucketKey, Accumulator> target = pending;
+            for (DeviceDataRollup.Resolution resolution : RESOLUTIONS) {
+                LocalDateTime bucket = resolution.bucketOf(time);
+                for (int slot = 0; slot < TelemetryMetric.count(); slot++) {
+                    TelemetryMetric metric = TelemetryMetric.ofSlot(slot);
+                    double value = sample.get(metric);
+                    if (!sample.has(metric) || !Double.isFinite(value)) {
+                        continue;
+                    }
+                    target.computeIfAbsent(new BucketKey(sample.getDeviceId(), resolution, bucket, slot),
+                                    k -> new Accumulator())
+                            .add(value, time);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定时将内存中的增量合并进汇总表
+     */
+    @Scheduled(fixedDelayString = "${vpp.rollup.flush-interval:10000}")
+    public void flush() {
+        Map<BucketKey, Accumulator> snapshot;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            snapshot = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        List<Map.Entry<BucketKey, Accumulator>> entries = new ArrayList<>(snapshot.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<BucketKey, Accumulator>> chunk =
+                    entries.subList(from, Math.min(entries.size(), from + batchSize));
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, chunk, chunk.size(), (ps, entry) -> {
+                    BucketKey key = entry.getKey();
+                    Accumulator acc = entry.getValue();
+                    ps.setLong(1, key.deviceId());
+                    ps.setString(2, key.resolution().name());
+                    ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart()));
+                    ps.setString(4, TelemetryMetric.ofSlot(key.slot()).getFieldName());
+                    ps.setDouble(5, acc.min);
+                    ps.setDouble(6, acc.max);
+                    ps.setDouble(7, acc.sum);
+                    ps.setDouble(8, acc.last);
+                    ps.setTimestamp(9, Timestamp.valueOf(acc.lastTime));
+                    ps.setLong(10, acc.count);
+                });
+            } catch (Exception e) {
+                // 写入失败的增量放回内存，下个周期重试，超过重试次数的丢弃
+                int discarded = 0;
+                for (Map.Entry<BucketKey, Accumulator> entry : chunk) {
+                    if (!requeue(entry.getKey(), entry.getValue())) {
+                        discarded++;
+                    }
+                }
+                if (discarded > 0) {
+                    log.error("写入汇总数据失败，{}条增量已重试{}次，丢弃: {}", discarded, maxRetries, e.getMessage());
+                }
+                if (discarded < chunk.size()) {
+                    log.error("写入汇总数据失败，{}条增量待重试: {}", chunk.size() - discarded, e.getMessage());
+                }
+            }
+        }
+        log.debug("汇总数据写入完成: {}个时间桶", entries.size());
+    }
+
+    /**
+     * 查询降采样后的历史曲线
+     *
+     * @param maxPoints 单个测点最多返回的点数，按此选择满足条件的最细分辨率
+     * @param metrics   需要的测点，为空时返回全部测点
+     */
+    public RollupSeries getSeries(Long deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                  Integer maxPoints, Collection<String> metrics) {
+        if (endTime == null) {
+            endTime = LocalDateTime.now();
+        }
+        if (startTime == null) {
+            startTime = endTime.minusDays(1);
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+
+        DeviceDataRollup.Resolution resolution = chooseResolution(startTime, endTime,
+                maxPoints != null && maxPoints > 0 ? maxPoints : defaultMaxPoints);
+        LocalDateTime from = resolution.bucketOf(startTime);
+
+        List<DeviceDataRollup> rows = metrics == null || metrics.isEmpty()
+                ? rollupRepository.findSeries(deviceId, resolution, from, endTime)
+                : rollupRepository.findSeries(deviceId, resolution, metrics, from, endTime);
+
+        List<RollupSeries.Point> points = new ArrayList<>(rows.size());
+        for (DeviceDataRollup row : rows) {
+            Double avg = row.getSampleCount() > 0 ? row.getSumValue() / row.getSampleCount() : null;
+            points.add(new RollupSeries.Point(row.getBucketStart(), row.getMetric(), row.getMinValue(),
+                    row.getMaxValue(), avg, row.getLastValue(), row.getSampleCount()));
+        }
+        return new RollupSeries(deviceId, resolution, startTime, endTime, points);
+    }
+
+    /**
+     * 选择时间桶数量不超过 maxPoints 的最细分辨率，都不满足时使用日分辨率
+     */
+    public static DeviceDataRollup.Resolution chooseResolution(LocalDateTime startTime, LocalDateTime endTime,
+                                                               int maxPoints) {
+        long span = Duration.between(startTime, endTime).getSeconds();
+        for (DeviceDataRollup.Resolution resolution : RESOLUTIONS) {
+            long buckets = (span + resolution.getSeconds() - 1) / resolution.getSeconds();
+            if (buckets <= maxPoints) {
+                return resolution;
+            }
+        }
+        return DeviceDataRollup.Resolution.DAY_1;
+    }
+
+    /**
+     * 尚未写入数据库的时间桶数量
+     */
+    public int pendingBuckets() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 将写入失败的增量放回内存，已达重试次数时返回false
+     */
+    private boolean requeue(BucketKey key, Accumulator failed) {
+        if (failed.attempts >= maxRetries) {
+            return false;
+        }
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(key, k -> new Accumulator()).merge(failed);
+            return true;
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private record BucketKey(long deviceId, DeviceDataRollup.Resolution resolution,
+                             LocalDateTime bucketStart, int slot) {
+    }
+
+    /**
+     * 单个时间桶的增量
+     */
+    private static class Accumulator {
+
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private double last;
+        private LocalDateTime lastTime;
+        private long count;
+        // 已写入失败的次数
+        private int attempts;
+
+        synchronized void add(double value, LocalDateTime time) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            if (lastTime == null || !time.isBefore(lastTime)) {
+                last = value;
+                lastTime = time;
+            }
+        }
+
+        synchronized void merge(Accumulator other) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            count += other.count;
+            attempts = Math.max(attempts, other.attempts + 1);
+            if (lastTime == null || !other.lastTime.isBefore(lastTime)) {
+                last = other.last;
+                lastTime = other.lastTime;
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.DeviceStatusEvent;
+import org.example.virtualpowerplantback.dto.StreamStats;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 实时遥测推送（Server-Sent Events）
+ * 采集路径产生的数据和状态变化按设备ID/设备类型分发给订阅者；每个订阅者只保存每台设备最新一条
+ * 待发送的值，发送跟不上时旧值被新值覆盖（合并），内存占用与设备数成正比而不是无界队列。
+ * 事件只序列化一次，由固定数量的分发线程依次排空有待发送数据的订阅者
+ */
+@Service
+@Slf4j
+public class TelemetryStreamService {
+
+    public static final String EVENT_TELEMETRY = "telemetry";
+
+    public static final String EVENT_STATUS = "status";
+
+    private final ObjectMapper objectMapper;
+
+    private final long emitterTimeout;
+
+    private final int maxSubscribers;
+
+    private final ExecutorService dispatcher;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // 未指定过滤条件的订阅者
+    private final Set<Subscriber> allDevices = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> byDevice = new ConcurrentHashMap<>();
+
+    private final Map<VppDevice.DeviceType, Set<Subscriber>> byType = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+
+    public TelemetryStreamService(ObjectMapper objectMapper,
+                                  @Value("${vpp.stream.emitter-timeout:1800000}") long emitterTimeout,
+                                  @Value("${vpp.stream.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${vpp.stream.dispatch-threads:4}") int dispatchThreads) {
+        this.objectMapper = objectMapper;
+        this.emitterTimeout = emitterTimeout;
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, dispatchThreads),
+                new CustomizableThreadFactory("vpp-stream-"));
+    }
+
+    /**
+     * 新建订阅，设备ID和设备类型都为空时订阅全部设备，否则订阅两者的并集
+     */
+    public SseEmitter subscribe(Collection<Long> deviceIds, Collection<VppDevice.DeviceType> deviceTypes) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("实时推送订阅数已达上限: " + maxSubscribers);
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(emitter, deviceIds, deviceTypes);
+        subscribers.add(subscriber);
+        if (subscriber.isUnfiltered()) {
+            allDevices.add(subscriber);
+        } else {
+            subscriber.deviceIds.forEach(id ->
+                    byDevice.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(subscriber));
+            subscriber.deviceTypes.forEach(type ->
+                    byType.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        log.debug("新增实时推送订阅: 设备{}, 类型{}, 当前订阅数{}", deviceIds, deviceTypes, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * 推送一条采集数据
+     */
+    public void publishData(DeviceData data, VppDevice.DeviceType deviceType) {
+        if (subscribers.isEmpty() || data.getDeviceId() == null) {
+            return;
+        }
+        String json = toJson(data);
+        if (json == null) {
+            return;
+        }
+        published.incrementAndGet();
+        for (Set<Subscriber> targets : targetsOf(data.getDeviceId(), deviceType)) {
+            for (Subscriber subscriber : targets) {
+                subscriber.offer(subscriber.pendingData, data.getDeviceId(), json);
+            }
+        }
+    }
+
+    /**
+     * 推送一次设备在线状态变化
+     */
+    public void publishStatus(DeviceStatusEvent event) {
+        if (subscribers.isEmpty() || event.getDeviceId() == null) {
+            return;
+        }
+        String json = toJson(event);
+        if (json == null) {
+            return;
+        }
+        published.incrementAndGet();
+        for (Set<Subscriber> targets : targetsOf(event.getDeviceId(), event.getDeviceType())) {
+            for (Subscriber subscriber : targets) {
+                subscriber.offer(subscriber.pendingStatus, event.getDeviceId(), json);
+            }
+        }
+    }
+
+    /**
+     * 定时发送心跳注释，保持连接并及时发现已断开的客户端
+     * 发送可能阻塞，交给分发线程执行，不占用共享的调度线程
+     */
+    @Scheduled(fixedDelayString = "${vpp.stream.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                dispatcher.execute(() -> sendHeartbeat(subscriber));
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取推送统计
+     */
+    public StreamStats getStats() {
+        return new StreamStats(subscribers.size(), published.get(), sent.get(), conflated.get(), disconnected.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * 订阅了该设备的订阅者集合；同时按设备ID和设备类型匹配的订阅者只出现一次，
+     * 避免同一条数据被投递两次并误计为合并
+     */
+    private List<Set<Subscriber>> targetsOf(Long deviceId, VppDevice.DeviceType deviceType) {
+        Set<Subscriber> deviceTargets = byDevice.getOrDefault(deviceId, Set.of());
+        Set<Subscriber> typeTargets = deviceType != null ? byType.getOrDefault(deviceType, Set.of()) : Set.of();
+        if (!deviceTargets.isEmpty() && !typeTargets.isEmpty()) {
+            typeTargets = typeTargets.stream()
+                    .filter(subscriber -> !deviceTargets.contains(subscriber))
+                    .collect(Collectors.toSet());
+        }
+        return List.of(allDevices, deviceTargets, typeTargets);
+    }
+
+    private void sendHeartbeat(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return;
+        }
+        try {
+            subscriber.emitter.send(SseEmitter.event().comment("ping"));
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber);
+        }
+    }
+
+    /**
+     * 依次发送订阅者所有待发送的事件，发送失败时关闭订阅
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            sendPending(subscriber, subscriber.pendingStatus, EVENT_STATUS);
+            sendPending(subscriber, subscriber.pendingData, EVENT_TELEMETRY);
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // 排空期间又有新数据到达
+        if (!subscriber.isIdle()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void sendPending(Subscriber subscriber, Map<Long, String> pending, String eventName) throws IOException {
+        Iterator<Long> iterator = pending.keySet().iterator();
+        while (iterator.hasNext() && !subscriber.closed) {
+            String json = pending.remove(iterator.next());
+            if (json != null) {
+                subscriber.emitter.send(SseEmitter.event().name(eventName).data(json, MediaType.APPLICATION_JSON));
+                sent.incrementAndGet();
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.closed || !subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (Exception e) {
+            log.debug("关闭实时推送连接失败: {}", e.getMessage());
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        allDevices.remove(subscriber);
+        subscriber.deviceIds.forEach(id -> removeFrom(byDevice, id, subscriber));
+        subscriber.deviceTypes.forEach(type -> removeFrom(byType, type, subscriber));
+        disconnected.incrementAndGet();
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            log.error("实时推送事件序列化失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 一个SSE订阅者，按设备保存待发送的最新事件
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<Long> deviceIds;
+        private final Set<VppDevice.DeviceType> deviceTypes;
+        private final Map<Long, String> pendingData = new ConcurrentHashMap<>();
+        private final Map<Long, String> pendingStatus = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Collection<Long> deviceIds, Collection<VppDevice.DeviceType> deviceTypes) {
+            this.emitter = emitter;
+            this.deviceIds = deviceIds != null ? Set.copyOf(deviceIds) : Set.of();
+            this.deviceTypes = deviceTypes != null ? Set.copyOf(deviceTypes) : Set.of();
+        }
+
+        boolean isUnfiltered() {
+            return deviceIds.isEmpty() && deviceTypes.isEmpty();
+        }
+
+        boolean isIdle() {
+            return pendingData.isEmpty() && pendingStatus.isEmpty();
+        }
+
+        void offer(Map<Long, String> pending, Long deviceId, String json) {
+            if (pending.put(deviceId, json) != null) {
+                conflated.incrementAndGet();
+            }
+            schedule(this);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package org.example.virtualpowerplantback.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.TelemetryWriterStats;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 遥测数据异步批量写入管道
+ * 采集结果进入按设备ID分片的有界队列，每个分片由单独的写线程按批大小或刷新间隔
+ * 以JDBC批量插入 device_data，同一设备的记录总在同一分片内，因此写入顺序与采集顺序一致
+ */
+@Service
+@Slf4j
+public class TelemetryWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL = "INSERT INTO device_data (device_id, device_name, voltage, current, "
+            + "power, energy, frequency, power_factor, temperature, soc, status_code, raw_data, collect_time, "
+            + "create_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum BackpressurePolicy {
+        /**
+         * 阻塞采集线程，超过等待时间后丢弃当前记录
+         */
+        BLOCK,
+        /**
+         * 直接丢弃当前记录
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃分片中最早的记录，保留最新数据
+         */
+        DROP_OLDEST
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final VppMetrics metrics;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final BackpressurePolicy backpressurePolicy;
+
+    private final long offerTimeoutMillis;
+
+    private final int maxRetries;
+
+    private final long shutdownTimeoutMillis;
+
+    private final List<BlockingQueue<DeviceData>> shards = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile int lastBatchSize;
+
+    private volatile long lastBatchMillis;
+
+    private volatile boolean running;
+
+    public TelemetryWriter(JdbcTemplate jdbcTemplate,
+                           VppMetrics metrics,
+                           @Value("${vpp.telemetry.writer.queue-capacity:65536}") int queueCapacity,
+                           @Value("${vpp.telemetry.writer.shards:4}") int shardCount,
+                           @Value("${vpp.telemetry.writer.batch-size:1000}") int batchSize,
+                           @Value("${vpp.telemetry.writer.flush-interval:500}") long flushIntervalMillis,
+                           @Value("${vpp.telemetry.writer.backpressure:BLOCK}") BackpressurePolicy backpressurePolicy,
+                           @Value("${vpp.telemetry.writer.offer-timeout:1000}") long offerTimeoutMillis,
+                           @Value("${vpp.telemetry.writer.max-retries:3}") int maxRetries,
+                           @Value("${vpp.telemetry.writer.shutdown-timeout:30000}") long shutdownTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.backpressurePolicy = backpressurePolicy;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        int count = Math.max(1, shardCount);
+        int shardCapacity = Math.max(this.batchSize, queueCapacity / count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayBlockingQueue<>(shardCapacity));
+        }
+        metrics.registerQueueDepth("telemetry-writer", this, TelemetryWriter::getQueued);
+    }
+
+    /**
+     * 提交一条采集记录，由后台线程批量写入
+     * 管道未运行（启动前或关闭后）时同步写入，保证不丢数据
+     *
+     * @return true表示已接收，false表示按背压策略被丢弃
+     */
+    public boolean submit(DeviceData data) {
+        if (data.getCreateTime() == null) {
+            data.setCreateTime(LocalDateTime.now());
+        }
+        if (!running) {
+            writeBatch(List.of(data));
+            accepted.incrementAndGet();
+            return true;
+        }
+
+        BlockingQueue<DeviceData> queue = shardOf(data.getDeviceId());
+        if (queue.offer(data)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+
+        switch (backpressurePolicy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(data, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        accepted.incrementAndGet();
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(data)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                accepted.incrementAndGet();
+                return true;
+            }
+            case DROP_NEWEST -> {
+            }
+        }
+
+        long total = dropped.incrementAndGet();
+        if (total % 1000 == 1) {
+            log.warn("遥测写入队列已满，累计丢弃{}条记录", total);
+        }
+        return false;
+    }
+
+    /**
+     * 各分片排队等待写入的记录总数
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (BlockingQueue<DeviceData> queue : shards) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * 获取写入管道统计
+     */
+    public TelemetryWriterStats getStats() {
+        int queued = 0;
+        int capacity = 0;
+        for (BlockingQueue<DeviceData> queue : shards) {
+            queued += queue.size();
+            capacity += queue.size() + queue.remainingCapacity();
+        }
+        return new TelemetryWriterStats(backpressurePolicy.name(), queued, capacity, accepted.get(),
+                written.get(), dropped.get(), failed.get(), batches.get(), lastBatchSize, lastBatchMillis);
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        ThreadFactory threadFactory = new CustomizableThreadFactory("vpp-telemetry-writer-");
+        for (BlockingQueue<DeviceData> queue : shards) {
+            Thread worker = threadFactory.newThread(() -> runShard(queue));
+            workers.add(worker);
+            worker.start();
+        }
+        log.info("遥测写入管道已启动: {}个分片, 批大小{}, 刷新间隔{}ms, 背压策略{}",
+                shards.size(), batchSize, flushIntervalMillis, backpressurePolicy);
+    }
+
+    /**
+     * 停止接收新的异步写入，等待各分片把已排队的记录写完
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+
+        int remaining = shards.stream().mapToInt(BlockingQueue::size).sum();
+        if (remaining > 0) {
+            log.warn("遥测写入管道关闭超时，{}条记录未写入", remaining);
+        }
+        log.info("遥测写入管道已关闭，累计写入{}条记录", written.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在Web服务器等组件之前停止，并在数据源关闭之前完成排空
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE;
+    }
+
+    private BlockingQueue<DeviceData> shardOf(Long deviceId) {
+        int index = deviceId == null ? 0 : (int) Math.floorMod(deviceId, (long) shards.size());
+        return shards.get(index);
+    }
+
+    /**
+     * 分片写线程：取到第一条记录后，在刷新间隔内尽量凑满一个批次再写入；
+     * 停止信号到达后继续写完队列中剩余的记录
+     */
+    private void runShard(BlockingQueue<DeviceData> queue) {
+        List<DeviceData> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                DeviceData first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    DeviceData next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("遥测写线程被中断，{}条记录未写入", queue.size() + batch.size());
+                return;
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                log.error("遥测写线程异常，丢弃{}条记录", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 以一次JDBC批量执行写入，失败时按退避重试
+     */
+    public boolean writeBatch(List<DeviceData> batch) {
+        return writeBatch(batch, true);
+    }
+
+    /**
+     * 以一次JDBC批量执行写入，失败时按退避重试
+     *
+     * @param live false表示回填的历史数据，不计入采集到入库的时延指标
+     * @return 是否写入成功
+     */
+    public boolean writeBatch(List<DeviceData> batch, boolean live) {
+        long start = System.currentTimeMillis();
+        for (int attempt = 0; ; attempt++) {
+            long attemptStart = System.nanoTime();
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), TelemetryWriter::bind);
+                metrics.recordInsert(batch.size(), System.nanoTime() - attemptStart, true);
+                if (live) {
+                    recordSampleAge(batch);
+                }
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                lastBatchSize = batch.size();
+                lastBatchMillis = System.currentTimeMillis() - start;
+                log.debug("批量写入{}条遥测记录，耗时{}ms", batch.size(), lastBatchMillis);
+                return true;
+            } catch (DataAccessException e) {
+                metrics.recordInsert(batch.size(), System.nanoTime() - attemptStart, false);
+                if (attempt >= maxRetries) {
+                    failed.addAndGet(batch.size());
+                    log.error("批量写入遥测记录失败，丢弃{}条记录: {}", batch.size(), e.getMessage());
+                    return false;
+                }
+                log.warn("批量写入遥测记录失败，第{}次重试: {}", attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(Math.min(5000L, 200L << attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failed.addAndGet(batch.size());
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                // 绑定参数等非数据库异常重试无意义，直接计入失败
+                metrics.recordInsert(batch.size(), System.nanoTime() - attemptStart, false);
+                failed.addAndGet(batch.size());
+                log.error("批量写入遥测记录异常，丢弃{}条记录", batch.size(), e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 记录每条记录从采集到入库完成的时延
+     */
+    private void recordSampleAge(List<DeviceData> batch) {
+        long now = System.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        for (DeviceData data : batch) {
+            metrics.recordSampleAge(now - data.getCollectTime().atZone(zone).toInstant().toEpochMilli());
+        }
+    }
+
+    private static void bind(PreparedStatement ps, DeviceData data) throws SQLException {
+        ps.setLong(1, data.getDeviceId());
+        ps.setString(2, data.getDeviceName());
+        setDecimal(ps, 3, data.getVoltage());
+        setDecimal(ps, 4, data.getCurrent());
+        setDecimal(ps, 5, data.getPower());
+        setDecimal(ps, 6, data.getEnergy());
+        setDecimal(ps, 7, data.getFrequency());
+        setDecimal(ps, 8, data.getPowerFactor());
+        setDecimal(ps, 9, data.getTemperature());
+        setDecimal(ps, 10, data.getSoc());
+        if (data.getStatusCode() != null) {
+            ps.setInt(11, data.getStatusCode());
+        } else {
+            ps.setNull(11, Types.INTEGER);
+        }
+        ps.setString(12, data.getRawData());
+        ps.setTimestamp(13, Timestamp.valueOf(data.getCollectTime()));
+        ps.setTimestamp(14, Timestamp.valueOf(data.getCreateTime()));
+    }
+
+    private static void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value != null) {
+            ps.setBigDecimal(index, value);
+        } else {
+            ps.setNull(index, Types.DECIMAL);
+        }
+    }
+}
@@ -1,22 +1,28 @@
 package org.example.virtualpowerplantback.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.virtualpowerplantback.dto.CircuitState;
+import org.example.virtualpowerplantback.dto.CollectionPassResult;
+import org.example.virtualpowerplantback.dto.CompactSeries;
+import org.example.virtualpowerplantback.dto.RollupSeries;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
 import org.example.virtualpowerplantback.entity.DeviceData;
 import org.example.virtualpowerplantback.entity.VppDevice;
 import org.example.virtualpowerplantback.repository.DeviceDataRepository;
 import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 虚拟电厂设备管理服务
@@ -27,22 +33,45 @@ import java.util.Optional;
 public class VppDeviceService {
     
     private final VppDeviceRepository deviceRepository;
+    private final DeviceRegistry deviceRegistry;
     private final DeviceDataRepository deviceDataRepository;
     private final ModbusService modbusService;
-    private final ObjectMapper objectMapper;
+    private final DeviceCollectionEngine collectionEngine;
+    private final TelemetryWriter telemetryWriter;
+    private final DeviceLivenessTracker livenessTracker;
+    private final LatestValueCache latestValueCache;
+    private final RollupService rollupService;
+    private final CompactTelemetryStore compactTelemetryStore;
+    private final LocalTimeSeriesStore localStore;
+    private final TelemetryStreamService telemetryStream;
+    private final DeadbandFilter deadbandFilter;
+    private final FleetAggregationService fleetAggregation;
+    private final CircuitBreakerService circuitBreaker;
+    private final VppMetrics metrics;
     
     /**
-     * 获取所有设备
+     * 是否在 device_data.raw_data 中保存JSON原文，启用压缩存储后可关闭
+     */
+    @Value("${vpp.telemetry.raw-json:true}")
+    private boolean rawJson;
+    
+    // 防止上一轮采集未结束时定时任务重入
+    private final AtomicBoolean collecting = new AtomicBoolean(false);
+    
+    private volatile CollectionPassResult lastCollectionResult;
+    
+    /**
+     * 获取所有设备（设备注册表）
      */
     public List<VppDevice> getAllDevices() {
-        return deviceRepository.findAll();
+        return deviceRegistry.getAll();
     }
     
     /**
-     * 根据ID获取设备
+     * 根据ID获取设备（设备注册表）
      */
     public Optional<VppDevice> getDeviceById(Long id) {
-        return deviceRepository.findById(id);
+        return deviceRegistry.get(id);
     }
     
     /**
@@ -50,15 +79,21 @@ public class VppDeviceService {
      */
     @Transactional
     public VppDevice saveDevice(VppDevice device) {
-        // 检查IP地址是否已存在
-        Optional<VppDevice> existingDevice = deviceRepository.findByIpAddressAndPort(
-            device.getIpAddress(), device.getPort());
+        // 同一网关（IP+端口）下允许挂载多个从站，但从站ID不能重复
+        Optional<VppDevice> existingDevice = deviceRegistry.getByEndpoint(
+            device.getIpAddress(), device.getPort(), device.getSlaveId());
         
         if (existingDevice.isPresent() && !existingDevice.get().getId().equals(device.getId())) {
-            throw new RuntimeException("该IP地址和端口的设备已存在");
+            throw new RuntimeException("该IP地址和端口下已存在相同从站ID的设备");
         }
         
-        return deviceRepository.save(device);
+        VppDevice saved = deviceRepository.save(device);
+        deviceRegistry.put(saved);
+        livenessTracker.evict(saved.getId());
+        // 分组或额定容量可能变化，下一次采集时按新配置重新计入
+        fleetAggregation.evict(saved.getId());
+        circuitBreaker.evict(saved.getId());
+        return saved;
     }
     
     /**
@@ -67,13 +102,19 @@ public class VppDeviceService {
     @Transactional
     public void deleteDevice(Long id) {
         deviceRepository.deleteById(id);
+        deviceRegistry.remove(id);
+        livenessTracker.evict(id);
+        latestValueCache.evict(id);
+        deadbandFilter.evict(id);
+        fleetAggregation.evict(id);
+        circuitBreaker.evict(id);
     }
     
     /**
      * 测试设备连接
      */
     public boolean testDeviceConnection(Long deviceId) {
-        Optional<VppDevice> deviceOpt = deviceRepository.findById(deviceId);
+        Optional<VppDevice> deviceOpt = deviceRegistry.get(deviceId);
         if (deviceOpt.isEmpty()) {
             return false;
         }
@@ -81,20 +122,30 @@ public class VppDeviceService {
         VppDevice device = deviceOpt.get();
         boolean connected = modbusService.testConnection(device);
         
-        // 更新设备状态
-        device.setStatus(connected ? VppDevice.DeviceStatus.ONLINE : VppDevice.DeviceStatus.OFFLINE);
-        device.setLastCommunicationTime(LocalDateTime.now());
-        deviceRepository.save(device);
+        // 更新设备状态，手动测试成功时同时解除隔离
+        if (connected) {
+            livenessTracker.recordSuccess(device, LocalDateTime.now());
+            circuitBreaker.recordSuccess(device);
+        } else {
+            livenessTracker.recordFailure(device);
+        }
         
         return connected;
     }
     
+    /**
+     * 获取设备及其网关的熔断状态
+     */
+    public List<CircuitState> getCircuitStates(Long deviceId) {
+        VppDevice device = deviceRegistry.get(deviceId).orElseThrow(() -> new RuntimeException("设备不存在"));
+        return circuitBreaker.getStates(device);
+    }
+    
     /**
      * 手动读取单个设备数据
      */
-    @Transactional
     public DeviceData readDeviceData(Long deviceId) {
-        Optional<VppDevice> deviceOpt = deviceRepository.findById(deviceId);
+        Optional<VppDevice> deviceOpt = deviceRegistry.get(deviceId);
         if (deviceOpt.isEmpty()) {
             throw new RuntimeException("设备不存在");
         }
@@ -104,39 +155,70 @@ public class VppDeviceService {
             throw new RuntimeException("设备已禁用");
         }
         
-        Map<String, Object> rawData = modbusService.readDeviceData(device);
-        
-        // 创建设备数据记录
-        DeviceData deviceData = new DeviceData();
-        deviceData.setDeviceId(device.getId());
-        deviceData.setDeviceName(device.getName());
-        deviceData.setCollectTime(LocalDateTime.now());
+        return readDeviceData(device);
+    }
+    
+    /**
+     * 经熔断判定后采集设备数据（调度路径使用）
+     * 隔离中的设备直接返回null；隔离到期时先读取单个寄存器探测，探测失败则继续隔离，不做整表读取
+     */
+    public DeviceData pollDevice(VppDevice device) {
+        CircuitBreakerService.Permit permit = circuitBreaker.tryAcquire(device);
+        if (permit == CircuitBreakerService.Permit.REJECTED) {
+            return null;
+        }
+        if (permit == CircuitBreakerService.Permit.PROBE && !modbusService.testConnection(device)) {
+            circuitBreaker.recordFailure(device);
+            return null;
+        }
+        return readDeviceData(device);
+    }
+    
+    /**
+     * 读取已加载设备的数据
+     * 设备状态由在线状态跟踪器维护，不再整行保存设备记录
+     */
+    public DeviceData readDeviceData(VppDevice device) {
+        TelemetrySample sample = modbusService.readDeviceData(device);
+        DeviceData deviceData = toDeviceData(sample, device.getName(), rawJson);
         
         // 解析数据
-        if (!rawData.containsKey("error")) {
-            populateDeviceData(deviceData, rawData);
+        if (!sample.isError()) {
+            rollupService.accept(sample);
+            fleetAggregation.accept(device, sample);
             
-            // 更新设备状态为在线
-            device.setStatus(VppDevice.DeviceStatus.ONLINE);
-            device.setLastCommunicationTime(LocalDateTime.now());
+            // 更新设备状态为在线，被死区过滤的样本同样刷新在线状态
+            livenessTracker.recordSuccess(device, deviceData.getCollectTime());
+            circuitBreaker.recordSuccess(device);
         } else {
-            // 通信失败，更新设备状态为离线
-            device.setStatus(VppDevice.DeviceStatus.OFFLINE);
-            log.error("读取设备数据失败: {}", rawData.get("error"));
+            // 通信失败，更新设备状态为离线，恢复后的第一条样本必定入库
+            livenessTracker.recordFailure(device);
+            deadbandFilter.evict(device.getId());
+            fleetAggregation.evict(device.getId());
+            circuitBreaker.recordFailure(device);
+            log.error("读取设备数据失败: {}", sample.getError());
         }
+        latestValueCache.update(deviceData);
         
-        try {
-            deviceData.setRawData(objectMapper.writeValueAsString(rawData));
-        } catch (Exception e) {
-            log.warn("序列化原始数据失败: {}", e.getMessage());
+        // 与上次入库值相比变化未超过死区的样本不入库也不推送
+        if (!deadbandFilter.accept(sample)) {
+            metrics.suppressed(device);
+            return deviceData;
         }
+        compactTelemetryStore.accept(sample);
         
-        deviceRepository.save(device);
-        return deviceDataRepository.save(deviceData);
+        // 启用本地存储时样本先追加到本地分段（由其回放入库或作为主存储），
+        // 否则交由写入管道批量落库，返回的记录在写入前没有ID
+        if (sample.isError() || !appendLocal(sample)) {
+            telemetryWriter.submit(deviceData);
+        }
+        telemetryStream.publishData(deviceData, device.getDeviceType());
+        return deviceData;
     }
     
     /**
      * 获取设备历史数据
+     * 本地存储为主存储时从本地分段读取
      */
     public List<DeviceData> getDeviceHistoryData(Long deviceId, LocalDateTime startTime, LocalDateTime endTime) {
         if (startTime == null) {
@@ -146,21 +228,46 @@ public class VppDeviceService {
             endTime = LocalDateTime.now();
         }
         
+        if (localStore.isPrimary()) {
+            String deviceName = deviceRegistry.get(deviceId).map(VppDevice::getName).orElse(null);
+            return localStore.scan(deviceId, startTime, endTime).stream()
+                    .map(sample -> toDeviceData(sample, deviceName, rawJson))
+                    .toList();
+        }
         return deviceDataRepository.findByDeviceIdAndTimeRange(deviceId, startTime, endTime);
     }
     
     /**
-     * 获取设备最新数据
+     * 获取降采样后的设备历史曲线
+     */
+    public RollupSeries getDeviceHistorySeries(Long deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                               Integer maxPoints, List<String> metrics) {
+        return rollupService.getSeries(deviceId, startTime, endTime, maxPoints, metrics);
+    }
+    
+    /**
+     * 从压缩分段中读取设备原始样本
+     */
+    public CompactSeries getDeviceCompactHistory(Long deviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                 List<String> metrics) {
+        if (!compactTelemetryStore.isEnabled()) {
+            throw new RuntimeException("压缩存储未启用");
+        }
+        return compactTelemetryStore.read(deviceId, startTime, endTime, metrics);
+    }
+    
+    /**
+     * 获取设备最新数据（内存缓存）
      */
     public DeviceData getLatestDeviceData(Long deviceId) {
-        return deviceDataRepository.findLatestDataByDeviceId(deviceId);
+        return latestValueCache.get(deviceId);
     }
     
     /**
-     * 获取所有设备的最新数据
+     * 获取所有设备的最新数据（内存缓存）
      */
     public List<DeviceData> getAllLatestData() {
-        return deviceDataRepository.findLatestDataForAllDevices();
+        return latestValueCache.getAll();
     }
     
     /**
@@ -175,74 +282,88 @@ public class VppDeviceService {
             if (!enabled) {
                 device.setStatus(VppDevice.DeviceStatus.OFFLINE);
             }
-            deviceRepository.save(device);
+            deviceRegistry.put(deviceRepository.save(device));
+            livenessTracker.evict(deviceId);
+            deadbandFilter.evict(deviceId);
+            fleetAggregation.evict(deviceId);
+            circuitBreaker.evict(deviceId);
         }
     }
     
     /**
-     * 定时采集所有启用设备的数据
-     * 每2小时执行一次（在每小时的0分和30分不执行，选择其他时间点以错开高峰）
+     * 全量采集所有启用设备的数据（手动触发）
+     * 日常采集由 AdaptivePollingScheduler 按设备间隔调度，由采集引擎按网关分组并发采集
      */
-    @Scheduled(cron = "0 0 */2 * * ?")
     @Async
     public void collectAllDevicesData() {
-        List<VppDevice> enabledDevices = deviceRepository.findByEnabledTrue();
-        
-        log.info("开始定时采集设备数据（每2小时执行一次），共{}个设备", enabledDevices.size());
-        
-        for (VppDevice device : enabledDevices) {
-            try {
-                readDeviceData(device.getId());
-                Thread.sleep(1000); // 设备间隔1秒，避免并发过多
-            } catch (Exception e) {
-                log.error("采集设备数据失败: {} - {}", device.getName(), e.getMessage());
-            }
+        if (!collecting.compareAndSet(false, true)) {
+            log.warn("上一轮全量采集尚未完成，跳过本次采集");
+            return;
         }
         
-        log.info("定时采集设备数据完成");
+        try {
+            List<VppDevice> enabledDevices = deviceRegistry.getEnabled();
+            
+            log.info("开始全量采集设备数据，共{}个设备", enabledDevices.size());
+            
+            CollectionPassResult result = collectionEngine.runPass(enabledDevices, device ->
+                    pollDevice(device) != null && device.getStatus() == VppDevice.DeviceStatus.ONLINE);
+            lastCollectionResult = result;
+            
+            log.info("全量采集设备数据完成: 成功{}个, 失败{}个, 跳过{}个, 耗时{}ms, {} 设备/秒",
+                    result.getSuccessCount(), result.getFailureCount(), result.getSkippedCount(),
+                    result.getElapsedMillis(), "%.1f".formatted(result.getDevicesPerSecond()));
+        } finally {
+            collecting.set(false);
+        }
     }
     
     /**
-     * 清理历史数据
+     * 获取最近一轮采集的统计结果
      */
-    @Scheduled(cron = "0 0 2 * * ?") // 每天凌晨2点执行
-    @Transactional
-    public void cleanupHistoryData() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusDays(30); // 保留30天数据
-        deviceDataRepository.deleteByCollectTimeBefore(cutoffTime);
-        log.info("清理30天前的历史数据完成");
+    public CollectionPassResult getLastCollectionResult() {
+        return lastCollectionResult;
     }
     
     /**
-     * 填充设备数据
+     * 将样本追加到本地时序存储，未启用或追加失败时返回false
      */
-    private void populateDeviceData(DeviceData deviceData, Map<String, Object> rawData) {
-        if (rawData.get("voltage") instanceof BigDecimal) {
-            deviceData.setVoltage((BigDecimal) rawData.get("voltage"));
-        }
-        if (rawData.get("current") instanceof BigDecimal) {
-            deviceData.setCurrent((BigDecimal) rawData.get("current"));
-        }
-        if (rawData.get("power") instanceof BigDecimal) {
-            deviceData.setPower((BigDecimal) rawData.get("power"));
-        }
-        if (rawData.get("energy") instanceof BigDecimal) {
-            deviceData.setEnergy((BigDecimal) rawData.get("energy"));
-        }
-        if (rawData.get("frequency") instanceof BigDecimal) {
-            deviceData.setFrequency((BigDecimal) rawData.get("frequency"));
-        }
-        if (rawData.get("powerFactor") instanceof BigDecimal) {
-            deviceData.setPowerFactor((BigDecimal) rawData.get("powerFactor"));
+    private boolean appendLocal(TelemetrySample sample) {
+        if (!localStore.isEnabled()) {
+            return false;
         }
-        if (rawData.get("temperature") instanceof BigDecimal) {
-            deviceData.setTemperature((BigDecimal) rawData.get("temperature"));
+        try {
+            localStore.append(sample);
+            return true;
+        } catch (Exception e) {
+            log.error("追加本地存储失败，改为直接写入数据库: {}", e.getMessage());
+            return false;
         }
-        if (rawData.get("soc") instanceof BigDecimal) {
-            deviceData.setSoc((BigDecimal) rawData.get("soc"));
+    }
+    
+    /**
+     * 由采集样本构建设备数据记录
+     */
+    public static DeviceData toDeviceData(TelemetrySample sample, String deviceName, boolean rawJson) {
+        DeviceData deviceData = new DeviceData();
+        deviceData.setDeviceId(sample.getDeviceId());
+        deviceData.setDeviceName(deviceName);
+        deviceData.setCollectTime(LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(sample.getTimestamp()), ZoneId.systemDefault()));
+        if (!sample.isError()) {
+            deviceData.setVoltage(sample.getDecimal(TelemetryMetric.VOLTAGE));
+            deviceData.setCurrent(sample.getDecimal(TelemetryMetric.CURRENT));
+            deviceData.setPower(sample.getDecimal(TelemetryMetric.POWER));
+            deviceData.setEnergy(sample.getDecimal(TelemetryMetric.ENERGY));
+            deviceData.setFrequency(sample.getDecimal(TelemetryMetric.FREQUENCY));
+            deviceData.setPowerFactor(sample.getDecimal(TelemetryMetric.POWER_FACTOR));
+            deviceData.setTemperature(sample.getDecimal(TelemetryMetric.TEMPERATURE));
+            deviceData.setSoc(sample.getDecimal(TelemetryMetric.SOC));
+            deviceData.setStatusCode(sample.getInteger(TelemetryMetric.STATUS_CODE));
         }
-        if (rawData.get("statusCode") instanceof Integer) {
-            deviceData.setStatusCode((Integer) rawData.get("statusCode"));
+        if (rawJson || sample.isError()) {
+            deviceData.setRawData(sample.toJson());
         }
+        return deviceData;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 采集、解码与入库各阶段的 Micrometer 指标
+ * 按设备类型和网关打标签的计时器与计数器缓存在本地，热点路径上不再查询注册表；
+ * 直方图与百分位通过 management.metrics.distribution 配置，经 /actuator/prometheus 暴露
+ */
+@Component
+public class VppMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_TIMEOUT = "timeout";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Timer sampleAge;
+
+    private final DistributionSummary insertBatchSize;
+
+    public VppMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.sampleAge = Timer.builder("vpp.telemetry.sample.age")
+                .description("采集时刻到写入数据库完成的端到端时延")
+                .register(registry);
+        this.insertBatchSize = DistributionSummary.builder("vpp.telemetry.insert.batch.size")
+                .description("每次批量写入的记录数")
+                .register(registry);
+    }
+
+    /**
+     * 建立网关连接的耗时
+     */
+    public void recordConnect(String gateway, long nanos, boolean success) {
+        String outcome = success ? OUTCOME_SUCCESS : OUTCOME_ERROR;
+        timer("vpp.modbus.connect", "建立Modbus网关连接的耗时",
+                Tags.of("gateway", gateway, "outcome", outcome)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 读取一台设备全部寄存器块的往返耗时（从发出第一个请求到收到最后一个响应）
+     */
+    public void recordRoundTrip(VppDevice device, long nanos, String outcome) {
+        timer("vpp.modbus.request", "读取一台设备全部寄存器块的往返耗时",
+                deviceTags(device).and("outcome", outcome)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 将一台设备的响应解码到样本的耗时
+     */
+    public void recordDecode(VppDevice device, long nanos) {
+        timer("vpp.modbus.decode", "寄存器响应解码耗时",
+                Tags.of("type", typeOf(device))).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 读取超时
+     */
+    public void timeout(VppDevice device) {
+        counter("vpp.modbus.timeouts", "Modbus读取超时次数", deviceTags(device)).increment();
+    }
+
+    /**
+     * 读取异常（异常响应、链路断开、网关退避等），reason 为异常类型
+     */
+    public void exception(VppDevice device, String reason) {
+        counter("vpp.modbus.exceptions", "Modbus读取异常次数",
+                deviceTags(device).and("reason", reason)).increment();
+    }
+
+    /**
+     * 被死区过滤、未入库的样本
+     */
+    public void suppressed(VppDevice device) {
+        counter("vpp.deadband.suppressed", "被死区过滤的样本数",
+                Tags.of("type", typeOf(device))).increment();
+    }
+
+    /**
+     * 一次批量写入的耗时与记录数
+     */
+    public void recordInsert(int rows, long nanos, boolean success) {
+        timer("vpp.telemetry.insert", "device_data 批量写入耗时",
+                Tags.of("outcome", success ? OUTCOME_SUCCESS : OUTCOME_ERROR)).record(nanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            insertBatchSize.record(rows);
+        }
+    }
+
+    /**
+     * 一条记录从采集到入库完成的时延
+     */
+    public void recordSampleAge(long millis) {
+        sampleAge.record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 注册队列深度，stage 区分采集等待队列、写入队列等
+     */
+    public <T> void registerQueueDepth(String stage, T target, ToDoubleFunction<T> depth) {
+        Gauge.builder("vpp.queue.depth", target, depth)
+                .description("各阶段等待处理的任务数")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * 注册处于某一熔断状态的设备或网关数量，scope 为 DEVICE/GATEWAY，state 为 OPEN/HALF_OPEN
+     */
+    public <T> void registerCircuitState(String scope, String state, T target, ToDoubleFunction<T> count) {
+        Gauge.builder("vpp.circuit.breakers", target, count)
+                .description("处于隔离或探测中的熔断器数量")
+                .tags("scope", scope, "state", state)
+                .register(registry);
+    }
+
+    /**
+     * 熔断器状态切换
+     */
+    public void circuitTransition(String scope, String from, String to) {
+        counter("vpp.circuit.transitions", "熔断器状态切换次数",
+                Tags.of("scope", scope, "from", from, "to", to)).increment();
+    }
+
+    private Timer timer(String name, String description, Tags tags) {
+        return timers.computeIfAbsent(key(name, tags),
+                k -> Timer.builder(name).description(description).tags(tags).register(registry));
+    }
+
+    private Counter counter(String name, String description, Tags tags) {
+        return counters.computeIfAbsent(key(name, tags),
+                k -> Counter.builder(name).description(description).tags(tags).register(registry));
+    }
+
+    private static String key(String name, Tags tags) {
+        StringBuilder key = new StringBuilder(name);
+        tags.forEach(tag -> key.append('|').append(tag.getValue()));
+        return key.toString();
+    }
+
+    private static Tags deviceTags(VppDevice device) {
+        return Tags.of("type", typeOf(device), "gateway", DeviceCollectionEngine.gatewayKey(device));
+    }
+
+    private static String typeOf(VppDevice device) {
+        return device.getDeviceType() != null ? device.getDeviceType().name() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.config.CircuitBreakerProperties;
+import org.example.virtualpowerplantback.config.PollingProperties;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptivePollingSchedulerTest {
+
+    private final PollingProperties properties = new PollingProperties();
+
+    private final VppDevice device = device(1L, true);
+
+    private final DeviceRegistry registry = new DeviceRegistry((VppDeviceRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{VppDeviceRepository.class}, (proxy, method, args) -> {
+                if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                    return new ArrayList<>(List.of(device));
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+
+    // 引擎收到的采集提交，由测试决定何时、以何种结果完成
+    private final BlockingQueue<Submission> submissions = new LinkedBlockingQueue<>();
+
+    private final DeviceCollectionEngine engine = new DeviceCollectionEngine(
+            new VppMetrics(new SimpleMeterRegistry()), 1, 1, 60) {
+        @Override
+        public CompletableFuture<Boolean> submit(VppDevice target, Predicate<VppDevice> task) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            submissions.add(new Submission(target, task, future, System.currentTimeMillis()));
+            return future;
+        }
+    };
+
+    private volatile long blockedUntil;
+
+    private final CircuitBreakerService breaker = new CircuitBreakerService(new CircuitBreakerProperties(),
+            new VppMetrics(new SimpleMeterRegistry())) {
+        @Override
+        public long blockedUntil(VppDevice target) {
+            return blockedUntil;
+        }
+    };
+
+    // pollDevice 依次返回的功率，null表示通信失败
+    private final Deque<BigDecimal> powers = new ArrayDeque<>();
+
+    private final VppDeviceService deviceService = new VppDeviceService(null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null) {
+        @Override
+        public DeviceData pollDevice(VppDevice target) {
+            BigDecimal power = powers.poll();
+            if (power == null) {
+                return null;
+            }
+            target.setStatus(VppDevice.DeviceStatus.ONLINE);
+            DeviceData data = new DeviceData();
+            data.setDeviceId(target.getId());
+            data.setPower(power);
+            return data;
+        }
+    };
+
+    private final AdaptivePollingScheduler scheduler;
+
+    AdaptivePollingSchedulerTest() {
+        Map<Long, Integer> intervals = new HashMap<>();
+        intervals.put(1L, 1);
+        properties.setDevices(intervals);
+        properties.setJitterRatio(0);
+        scheduler = new AdaptivePollingScheduler(properties, registry, deviceService, engine, breaker, 7200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        engine.shutdown();
+    }
+
+    @Test
+    void speedsUpOnFastChangeAndClampsToMinimum() {
+        assertEquals(30_000L, AdaptivePollingScheduler.adaptInterval(properties, 60_000, 10_000, 240_000, 100, 150));
+        assertEquals(10_000L, AdaptivePollingScheduler.adaptInterval(properties, 15_000, 10_000, 240_000, 100, 150));
+    }
+
+    @Test
+    void slowsDownWhenFlatAndClampsToMaximum() {
+        assertEquals(90_000L, AdaptivePollingScheduler.adaptInterval(properties, 60_000, 10_000, 240_000, 100, 100.5));
+        assertEquals(240_000L, AdaptivePollingScheduler.adaptInterval(properties, 200_000, 10_000, 240_000, 100, 100));
+    }
+
+    @Test
+    void keepsIntervalForModerateChangeAndUsesFloorNearZero() {
+        assertEquals(60_000L, AdaptivePollingScheduler.adaptInterval(properties, 60_000, 10_000, 240_000, 100, 105));
+        // 前值为0时以 change-floor 作为分母，0.005 的抖动视为平稳
+        assertEquals(90_000L, AdaptivePollingScheduler.adaptInterval(properties, 60_000, 10_000, 240_000, 0, 0.005));
+    }
+
+    @Test
+    void dispatchesDueDeviceAndWaitsForPreviousPoll() throws InterruptedException {
+        scheduler.start();
+        scheduler.refresh();
+
+        Submission first = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertEquals(1L, (long) first.device().getId());
+        // 上一次采集未完成时，即使超过间隔也不会再次提交
+        assertNull(submissions.poll(1500, TimeUnit.MILLISECONDS));
+
+        long completedAt = System.currentTimeMillis();
+        first.future().complete(true);
+        Submission second = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertTrue(second.time() - completedAt >= 1000, "next poll after " + (second.time() - completedAt) + "ms");
+        assertEquals(2L, scheduler.getStats().getPolls());
+    }
+
+    @Test
+    void defersQuarantinedDeviceUntilBlockedUntil() throws InterruptedException {
+        long until = System.currentTimeMillis() + 2000;
+        blockedUntil = until;
+        scheduler.start();
+        scheduler.refresh();
+
+        Submission first = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertTrue(first.time() >= until, "submitted " + (until - first.time()) + "ms before quarantine ended");
+        assertEquals(1L, scheduler.getStats().getDeferred());
+    }
+
+    @Test
+    void stopsPollingDevicesDisabledOnRefresh() throws InterruptedException {
+        scheduler.start();
+        scheduler.refresh();
+        Submission first = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+
+        registry.put(device(1L, false));
+        scheduler.refresh();
+        assertEquals(0, scheduler.getStats().getDevices());
+
+        first.future().complete(true);
+        assertNull(submissions.poll(1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void fallsBackToBaseIntervalOnFailure() throws InterruptedException {
+        powers.add(new BigDecimal("100"));
+        powers.add(new BigDecimal("100"));
+        scheduler.start();
+        scheduler.refresh();
+
+        runNext();
+        // 两次功率相同，间隔按 slow-down-factor 放大
+        runNext();
+        assertEquals(1.5, scheduler.getStats().getMaxIntervalSeconds(), 1e-9);
+
+        Submission failed = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(failed);
+        failed.future().complete(false);
+        // 完成回调由调度线程在提交返回后注册，可能晚于complete执行
+        for (int i = 0; i < 500 && scheduler.getStats().getFailures() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1L, scheduler.getStats().getFailures());
+        assertEquals(1.0, scheduler.getStats().getMaxIntervalSeconds(), 1e-9);
+    }
+
+    private void runNext() throws InterruptedException {
+        Submission submission = submissions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(submission);
+        submission.future().complete(submission.task().test(submission.device()));
+    }
+
+    private static VppDevice device(long id, boolean enabled) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setName("device-" + id);
+        device.setIpAddress("127.0.0.1");
+        device.setPort(502);
+        device.setSlaveId((int) id);
+        device.setDeviceType(VppDevice.DeviceType.ELECTRIC_METER);
+        device.setEnabled(enabled);
+        return device;
+    }
+
+    private record Submission(VppDevice device, Predicate<VppDevice> task, CompletableFuture<Boolean> future,
+                              long time) {
+    }
+}
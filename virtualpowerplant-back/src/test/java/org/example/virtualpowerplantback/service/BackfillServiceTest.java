@@ -0,0 +1,206 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.config.BackfillProperties;
+import org.example.virtualpowerplantback.dto.BackfillResult;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.DeviceDataRollupRepository;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackfillServiceTest {
+
+    private final List<DeviceData> rows = new ArrayList<>();
+
+    private final List<Object> rollupRows = new ArrayList<>();
+
+    private volatile boolean failInserts;
+
+    private RollupService rollupService;
+
+    private BackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        BackfillProperties properties = new BackfillProperties();
+        properties.setThreads(2);
+        properties.setBatchSize(50);
+        properties.setRollup(true);
+
+        JdbcTemplate jdbc = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                synchronized (rows) {
+                    if (sql.startsWith("INSERT INTO device_data_rollup")) {
+                        rollupRows.addAll(batchArgs);
+                    } else if (failInserts) {
+                        throw new DataAccessResourceFailureException("连接断开");
+                    } else {
+                        rows.addAll((Collection<DeviceData>) batchArgs);
+                    }
+                }
+                return new int[0][];
+            }
+        };
+        List<VppDevice> devices = List.of(device(1L, VppDevice.DeviceType.ELECTRIC_METER),
+                device(2L, VppDevice.DeviceType.ENERGY_STORAGE));
+        VppDeviceRepository deviceRepository = (VppDeviceRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{VppDeviceRepository.class},
+                (proxy, method, args) -> devices);
+        DeviceDataRollupRepository rollupRepository = (DeviceDataRollupRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{DeviceDataRollupRepository.class},
+                (proxy, method, args) -> List.of());
+        rollupService = new RollupService(jdbc, rollupRepository, 1000, 500, 30);
+        TelemetryWriter writer = new TelemetryWriter(jdbc, new VppMetrics(new SimpleMeterRegistry()), 1024, 1, 50, 50,
+                TelemetryWriter.BackpressurePolicy.BLOCK, 1000, 0, 1000);
+
+        service = new BackfillService(properties, new DeviceRegistry(deviceRepository),
+                new DataSimulatorService(42L), writer, rollupService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void simulatesEveryDeviceAtFixedStep() throws InterruptedException {
+        BackfillResult started = service.startSimulation(null, 1, 600);
+        assertEquals(2L, started.getDevices());
+        assertEquals(288L, started.getPlannedRows());
+
+        BackfillResult result = service.getStatus();
+        for (int i = 0; i < 500 && result.isRunning(); i++) {
+            Thread.sleep(10);
+            result = service.getStatus();
+        }
+        assertFalse(result.isRunning());
+        assertEquals(288L, result.getWrittenRows());
+        assertEquals(288L, rows.size());
+
+        LocalDateTime previous = null;
+        BigDecimal lastEnergy = BigDecimal.ZERO;
+        for (DeviceData data : rows.stream().filter(d -> d.getDeviceId() == 1L).toList()) {
+            if (previous != null) {
+                assertEquals(previous.plusMinutes(10), data.getCollectTime());
+            }
+            assertTrue(data.getEnergy().compareTo(lastEnergy) >= 0);
+            previous = data.getCollectTime();
+            lastEnergy = data.getEnergy();
+        }
+    }
+
+    @Test
+    void replaysExportedNdjsonAndSkipsBadRows() throws Exception {
+        String body = """
+                {"deviceId":1,"deviceName":"电表","collectTime":"2024-06-01 10:00:00","power":1200.5,"energy":15.2,"rawData":null}
+                {"deviceId":2,"collectTime":"2024-06-01T10:00:00","soc":56.5,"statusCode":1}
+
+                {"deviceId":9,"collectTime":"2024-06-01 10:00:00","power":1.0}
+                {"deviceId":1,"collectTime":"not a time"}
+                """;
+
+        BackfillResult result = service.replayNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2L, result.getWrittenRows());
+        assertEquals(2L, result.getSkippedRows());
+        assertEquals("设备不存在: 9", result.getMessage());
+        DeviceData meter = rows.stream().filter(d -> d.getDeviceId() == 1L).findFirst().orElseThrow();
+        assertEquals("设备1", meter.getDeviceName());
+        assertEquals(LocalDateTime.of(2024, 6, 1, 10, 0), meter.getCollectTime());
+        assertEquals(0, new BigDecimal("1200.50").compareTo(meter.getPower()));
+    }
+
+    @Test
+    void replaysExportedCsv() throws Exception {
+        String body = "\uFEFFdeviceId,deviceName,collectTime,power,soc,statusCode\n"
+                + "2,\"储能,一号\",2024-06-01 10:00:00,-2500.00,60.5,1\n"
+                + "2,储能,2024-06-01 10:01:00,,61.0,1\n";
+
+        BackfillResult result = service.replayCsv(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2L, result.getWrittenRows());
+        assertEquals(0L, result.getSkippedRows());
+        assertEquals(1L, result.getDevices());
+        assertEquals(0, new BigDecimal("-2500").compareTo(rows.get(0).getPower()));
+        assertNull(rows.get(1).getPower());
+    }
+
+    @Test
+    void skipsRowsWithNonFiniteValues() throws Exception {
+        String csv = "deviceId,collectTime,power,soc\n"
+                + "2,2024-06-01 10:00:00,NaN,60.5\n"
+                + "2,2024-06-01 10:01:00,-Infinity,61.0\n"
+                + "2,2024-06-01 10:02:00,-2500.00,61.5\n";
+        String ndjson = "{\"deviceId\":1,\"collectTime\":\"2024-06-01 10:00:00\",\"power\":1e400}\n";
+
+        BackfillResult csvResult = service.replayCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        BackfillResult jsonResult = service.replayNdjson(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1L, csvResult.getWrittenRows());
+        assertEquals(2L, csvResult.getSkippedRows());
+        assertEquals(0L, jsonResult.getWrittenRows());
+        assertEquals(1L, jsonResult.getSkippedRows());
+        assertTrue(jsonResult.getMessage().contains("power"));
+    }
+
+    @Test
+    void failedBatchesDoNotReachRollup() throws Exception {
+        failInserts = true;
+        String body = "{\"deviceId\":1,\"collectTime\":\"2024-06-01 10:00:00\",\"power\":1200.5}\n";
+
+        BackfillResult result = service.replayNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0L, result.getWrittenRows());
+        assertEquals(1L, result.getFailedRows());
+        assertEquals(0L, rollupService.pendingBuckets());
+        assertTrue(rollupRows.isEmpty());
+    }
+
+    @Test
+    void executorFailureAbortsReplay() {
+        service.shutdown();
+        String body = "{\"deviceId\":1,\"collectTime\":\"2024-06-01 10:00:00\",\"power\":1200.5}\n";
+
+        assertThrows(RejectedExecutionException.class, () ->
+                service.replayNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(0L, service.getStatus().getSkippedRows());
+    }
+
+    private static VppDevice device(long id, VppDevice.DeviceType type) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setName("设备" + id);
+        device.setDeviceType(type);
+        device.setIpAddress("127.0.0.1");
+        device.setPort(502);
+        device.setSlaveId((int) id);
+        device.setEnabled(true);
+        return device;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.config.CircuitBreakerProperties;
+import org.example.virtualpowerplantback.dto.CircuitState;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerServiceTest {
+
+    private final CircuitBreakerProperties properties = new CircuitBreakerProperties();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CircuitBreakerService breaker;
+
+    CircuitBreakerServiceTest() {
+        properties.setBackoffInitial(20);
+        properties.setBackoffMax(60_000);
+        breaker = new CircuitBreakerService(properties, new VppMetrics(registry));
+    }
+
+    @Test
+    void tripsAfterThresholdAndRejectsWhileOpen() {
+        properties.setBackoffInitial(60_000);
+        VppDevice device = device(1L, 1);
+        breaker.recordFailure(device);
+        breaker.recordFailure(device);
+        assertEquals(CircuitBreakerService.Permit.ALLOWED, breaker.tryAcquire(device));
+
+        breaker.recordFailure(device);
+        assertEquals(CircuitBreakerService.Permit.REJECTED, breaker.tryAcquire(device));
+        assertTrue(breaker.blockedUntil(device) > System.currentTimeMillis());
+        // 同网关的其他设备不受影响
+        assertEquals(CircuitBreakerService.Permit.ALLOWED, breaker.tryAcquire(device(2L, 2)));
+    }
+
+    @Test
+    void probesOnceAfterBackoffAndDoublesOnFailure() throws InterruptedException {
+        VppDevice device = device(1L, 1);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(device);
+        }
+        Thread.sleep(30);
+        assertEquals(CircuitBreakerService.Permit.PROBE, breaker.tryAcquire(device));
+        // 探测进行中，其他调用方被拒绝
+        assertEquals(CircuitBreakerService.Permit.REJECTED, breaker.tryAcquire(device));
+
+        breaker.recordFailure(device);
+        CircuitState state = breaker.getStates(device).get(0);
+        assertEquals(CircuitState.State.OPEN, state.getState());
+        assertEquals(40L, state.getBackoffMillis());
+    }
+
+    @Test
+    void closesOnSuccess() throws InterruptedException {
+        VppDevice device = device(1L, 1);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(device);
+        }
+        Thread.sleep(30);
+        assertEquals(CircuitBreakerService.Permit.PROBE, breaker.tryAcquire(device));
+        breaker.recordSuccess(device);
+
+        assertEquals(CircuitBreakerService.Permit.ALLOWED, breaker.tryAcquire(device));
+        assertEquals(0L, breaker.blockedUntil(device));
+        assertEquals(1L, breaker.getStats().getProbeSuccesses());
+        assertEquals(0L, breaker.getStats().getOpen().size());
+    }
+
+    @Test
+    void tripsWholeGatewayAfterGatewayThreshold() {
+        properties.setFailureThreshold(100);
+        properties.setGatewayFailureThreshold(4);
+        properties.setBackoffInitial(60_000);
+        for (int slave = 1; slave <= 4; slave++) {
+            breaker.recordFailure(device((long) slave, slave));
+        }
+        VppDevice healthy = device(9L, 9);
+        assertEquals(CircuitBreakerService.Permit.REJECTED, breaker.tryAcquire(healthy));
+
+        List<CircuitState> states = breaker.getStates(healthy);
+        assertEquals(CircuitState.State.CLOSED, states.get(0).getState());
+        assertEquals(CircuitState.State.OPEN, states.get(1).getState());
+        assertEquals(1L, breaker.getStats().getOpenGateways());
+    }
+
+    @Test
+    void exposesStateGaugesAndTransitionCounts() throws InterruptedException {
+        properties.setGatewayFailureThreshold(100);
+        VppDevice device = device(1L, 1);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(device);
+        }
+        assertEquals(1.0, gauge("DEVICE", "OPEN"), 1e-9);
+        assertEquals(0.0, gauge("GATEWAY", "OPEN"), 1e-9);
+
+        Thread.sleep(30);
+        assertEquals(CircuitBreakerService.Permit.PROBE, breaker.tryAcquire(device));
+        assertEquals(0.0, gauge("DEVICE", "OPEN"), 1e-9);
+        assertEquals(1.0, gauge("DEVICE", "HALF_OPEN"), 1e-9);
+
+        breaker.recordSuccess(device);
+        assertEquals(0.0, gauge("DEVICE", "HALF_OPEN"), 1e-9);
+        assertEquals(1.0, transitions("CLOSED", "OPEN"), 1e-9);
+        assertEquals(1.0, transitions("OPEN", "HALF_OPEN"), 1e-9);
+        assertEquals(1.0, transitions("HALF_OPEN", "CLOSED"), 1e-9);
+    }
+
+    private double gauge(String scope, String state) {
+        return registry.get("vpp.circuit.breakers").tags("scope", scope, "state", state).gauge().value();
+    }
+
+    private double transitions(String from, String to) {
+        return registry.get("vpp.circuit.transitions").tags("scope", "DEVICE", "from", from, "to", to)
+                .counter().count();
+    }
+
+    private static VppDevice device(Long id, int slaveId) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setName("设备" + id);
+        device.setIpAddress("192.168.1.10");
+        device.setPort(502);
+        device.setSlaveId(slaveId);
+        return device;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.config.DeadbandProperties;
+import org.example.virtualpowerplantback.dto.DeadbandStats;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadbandFilterTest {
+
+    private DeadbandFilter filter() {
+        DeadbandProperties properties = new DeadbandProperties();
+        properties.setEnabled(true);
+        properties.getMetrics().put("power", 0.5);
+        properties.setMaxSilenceSeconds(900);
+        return new DeadbandFilter(properties);
+    }
+
+    private static TelemetrySample sample(long timestamp, double power, int statusCode) {
+        TelemetrySample sample = new TelemetrySample(1L, timestamp);
+        sample.set(TelemetryMetric.POWER, power);
+        sample.set(TelemetryMetric.STATUS_CODE, statusCode);
+        return sample;
+    }
+
+    @Test
+    void suppressesSamplesWithinDeadbandOfLastStoredValue() {
+        DeadbandFilter filter = filter();
+        assertTrue(filter.accept(sample(0, 10.0, 1)));
+        assertFalse(filter.accept(sample(1_000, 10.3, 1)));
+        assertFalse(filter.accept(sample(2_000, 9.6, 1)));
+        // 与上次入库值比较，缓慢漂移累计超过死区后入库
+        assertFalse(filter.accept(sample(3_000, 10.5, 1)));
+        assertTrue(filter.accept(sample(4_000, 10.6, 1)));
+        assertFalse(filter.accept(sample(5_000, 10.9, 1)));
+
+        DeadbandStats stats = filter.getStats();
+        assertEquals(2, stats.getStored());
+        assertEquals(4, stats.getSuppressed());
+    }
+
+    @Test
+    void storesOnAnyChangeOfMetricsWithoutDeadbandAndAfterMaxSilence() {
+        DeadbandFilter filter = filter();
+        assertTrue(filter.accept(sample(0, 0.0, 1)));
+        assertTrue(filter.accept(sample(1_000, 0.0, 2)));
+        assertFalse(filter.accept(sample(600_000, 0.0, 2)));
+        assertTrue(filter.accept(sample(901_000, 0.0, 2)));
+    }
+
+    @Test
+    void storesFirstSampleAfterEvictAndErrorsAlways() {
+        DeadbandFilter filter = filter();
+        assertTrue(filter.accept(sample(0, 5.0, 1)));
+        assertTrue(filter.accept(TelemetrySample.error(1L, "timeout")));
+        filter.evict(1L);
+        assertTrue(filter.accept(sample(2_000, 5.0, 1)));
+    }
+
+    @Test
+    void rejectsUnknownMetricNames() {
+        DeadbandProperties properties = new DeadbandProperties();
+        properties.getMetrics().put("nope", 1.0);
+        assertThrows(RuntimeException.class, () -> new DeadbandFilter(properties));
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.dto.CollectionPassResult;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceCollectionEngineTest {
+
+    private final DeviceCollectionEngine engine = new DeviceCollectionEngine(new VppMetrics(new SimpleMeterRegistry()), 64, 2, 60);
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void collectsLargeFleetAndRespectsGatewayLimit() {
+        List<VppDevice> devices = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            VppDevice device = new VppDevice();
+            device.setId((long) i);
+            device.setName("device-" + i);
+            device.setIpAddress("10.0.%d.%d".formatted(i % 200 / 100, i % 100));
+            device.setPort(502);
+            device.setSlaveId(i / 200 + 1);
+            device.setDeviceType(VppDevice.DeviceType.ELECTRIC_METER);
+            devices.add(device);
+        }
+
+        Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger maxPerGateway = new AtomicInteger();
+
+        CollectionPassResult result = engine.runPass(devices, device -> {
+            AtomicInteger counter = inFlight.computeIfAbsent(
+                    DeviceCollectionEngine.gatewayKey(device), k -> new AtomicInteger());
+            maxPerGateway.accumulateAndGet(counter.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                counter.decrementAndGet();
+            }
+            return device.getId() % 10 != 0;
+        });
+
+        assertEquals(10_000, result.getTotalDevices());
+        assertEquals(200, result.getGatewayCount());
+        assertEquals(9_000, result.getSuccessCount());
+        assertEquals(1_000, result.getFailureCount());
+        assertTrue(maxPerGateway.get() <= 2);
+    }
+
+    @Test
+    void runsGatewaysConcurrently() {
+        int gateways = 16;
+        List<VppDevice> devices = new ArrayList<>();
+        for (int i = 0; i < gateways; i++) {
+            devices.add(device(i, "10.0.1." + i));
+        }
+
+        // 每个任务都要等到所有网关的任务同时在途才返回成功，串行执行时只会超时失败
+        CountDownLatch allInFlight = new CountDownLatch(gateways);
+        CollectionPassResult result = engine.runPass(devices, device -> {
+            allInFlight.countDown();
+            try {
+                return allInFlight.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+
+        assertEquals(gateways, result.getSuccessCount());
+    }
+
+    @Test
+    void skipsGatewaysStillBusyFromTimedOutPass() throws InterruptedException {
+        DeviceCollectionEngine shortPass = new DeviceCollectionEngine(
+                new VppMetrics(new SimpleMeterRegistry()), 4, 1, 1);
+        try {
+            VppDevice slow = device(1, "10.0.2.1");
+            VppDevice other = device(2, "10.0.2.2");
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger slowCalls = new AtomicInteger();
+
+            CollectionPassResult first = shortPass.runPass(List.of(slow), device -> {
+                slowCalls.incrementAndGet();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            assertEquals(0, first.getSuccessCount() + first.getFailureCount());
+
+            CollectionPassResult second = shortPass.runPass(List.of(slow, other), device -> {
+                if (device == slow) {
+                    slowCalls.incrementAndGet();
+                }
+                return true;
+            });
+            assertEquals(1, second.getSkippedCount());
+            assertEquals(1, second.getSuccessCount());
+            assertEquals(1L, slowCalls.get());
+
+            release.countDown();
+            CollectionPassResult third = null;
+            for (int i = 0; i < 200; i++) {
+                third = shortPass.runPass(List.of(slow), device -> true);
+                if (third.getSkippedCount() == 0) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(0, third.getSkippedCount());
+            assertEquals(1, third.getSuccessCount());
+        } finally {
+            shortPass.shutdown();
+        }
+    }
+
+    @Test
+    void passAndSubmittedTasksShareGatewayLimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Predicate<VppDevice> task = device -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return true;
+        };
+        List<VppDevice> devices = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            devices.add(device(i, "10.0.3.1"));
+        }
+
+        // 自适应调度的单设备提交与手动全量采集同时作用于同一网关
+        List<CompletableFuture<Boolean>> submitted = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            submitted.add(engine.submit(device(100 + i, "10.0.3.1"), task));
+        }
+        CollectionPassResult result = engine.runPass(devices, task);
+        submitted.forEach(CompletableFuture::join);
+
+        assertEquals(40, result.getSuccessCount());
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void countsThrowingTasksAsFailures() {
+        VppDevice device = new VppDevice();
+        device.setName("broken");
+        device.setIpAddress("127.0.0.1");
+        device.setPort(502);
+
+        CollectionPassResult result = engine.runPass(List.of(device), d -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(1, result.getFailureCount());
+    }
+
+    private static VppDevice device(long id, String ipAddress) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setName("device-" + id);
+        device.setIpAddress(ipAddress);
+        device.setPort(502);
+        device.setDeviceType(VppDevice.DeviceType.ELECTRIC_METER);
+        return device;
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.example.virtualpowerplantback.dto.DeviceDTO;
+import org.example.virtualpowerplantback.dto.DeviceImportResult;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceImportServiceTest {
+
+    private static final Validator VALIDATOR = Validation.byDefaultProvider().configure()
+            .messageInterpolator(new ParameterMessageInterpolator())
+            .buildValidatorFactory().getValidator();
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+
+    private boolean failInsert;
+
+    private final DeviceImportService service = new DeviceImportService(null, new ObjectMapper(), VALIDATOR,
+            new DeviceRegistry(null), transactionManager, 1000, 100000) {
+        private long nextId = 100;
+
+        @Override
+        Set<String> findExistingKeys(Collection<String> ipAddresses) {
+            return Set.of("10.0.0.1:502:1");
+        }
+
+        @Override
+        List<Long> insertDevices(List<DeviceDTO> devices) {
+            batchSizes.add(devices.size());
+            if (failInsert) {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }
+            List<Long> ids = new ArrayList<>();
+            devices.forEach(d -> ids.add(nextId++));
+            return ids;
+        }
+    };
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reportsEveryCsvRow() throws Exception {
+        String csv = "name,ipAddress,port,slaveId,deviceType,description\n"
+                + "表1,10.0.0.2,502,1,ELECTRIC_METER,\"主表, 一号\"\n"
+                + "表2,10.0.0.1,502,1,ELECTRIC_METER,已存在\n"
+                + "表3,10.0.0.2,502,1,ELECTRIC_METER,文件内重复\n"
+                + ",10.0.0.3,502,1,ELECTRIC_METER,缺名称\n"
+                + "表5,10.0.0.3,abc,1,ELECTRIC_METER,端口格式错误\n"
+                + "表6,10.0.0.3,502,2,SOLAR_PANEL,\n";
+
+        DeviceImportResult result = service.importCsv(stream(csv));
+
+        assertEquals(6, result.getTotal());
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getFailed());
+        assertTrue(result.getRows().get(0).isSuccess());
+        assertEquals(Long.valueOf(100), result.getRows().get(0).getDeviceId());
+        assertFalse(result.getRows().get(1).isSuccess());
+        assertTrue(result.getRows().get(2).getMessage().contains("第1行"));
+        assertFalse(result.getRows().get(3).isSuccess());
+        assertFalse(result.getRows().get(4).isSuccess());
+        assertTrue(result.getRows().get(5).isSuccess());
+    }
+
+    @Test
+    void importsJsonArrayInBatches() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10_000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":\"d").append(i).append("\",\"ipAddress\":\"10.1.").append(i / 200)
+                    .append(".1\",\"slaveId\":").append(i % 200 + 1).append(",\"deviceType\":\"SOLAR_PANEL\"}");
+        }
+        json.append(']');
+
+        DeviceImportResult result = service.importJson(stream(json.toString()));
+
+        assertEquals(10_000, result.getCreated());
+        assertEquals(0, result.getFailed());
+        assertEquals(10, batchSizes.size());
+        assertEquals(10, transactionManager.commits);
+    }
+
+    @Test
+    void reportsNonObjectJsonElementsAndKeepsGoing() throws Exception {
+        String json = "[{\"name\":\"d1\",\"ipAddress\":\"10.0.0.2\",\"slaveId\":1,\"deviceType\":\"SOLAR_PANEL\"},"
+                + "42, \"text\", [1, {\"name\":\"nested\"}],"
+                + "{\"name\":\"d5\",\"ipAddress\":\"10.0.0.2\",\"slaveId\":2,\"deviceType\":\"SOLAR_PANEL\"}]";
+
+        DeviceImportResult result = service.importJson(stream(json));
+
+        assertEquals(5, result.getTotal());
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getFailed());
+        assertEquals("元素必须是设备对象", result.getRows().get(3).getMessage());
+        assertTrue(result.getRows().get(4).isSuccess());
+    }
+
+    @Test
+    void rollsBackFailedBatchAndReportsEveryRowFailed() throws Exception {
+        failInsert = true;
+        String csv = "name,ipAddress,slaveId,deviceType\n"
+                + "表1,10.0.0.2,1,ELECTRIC_METER\n"
+                + "表2,10.0.0.2,2,ELECTRIC_METER\n";
+
+        DeviceImportResult result = service.importCsv(stream(csv));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(2, result.getFailed());
+        assertEquals(0, transactionManager.commits);
+        assertEquals(1, transactionManager.rollbacks);
+        assertTrue(result.getRows().get(1).getMessage().contains("Duplicate entry"));
+    }
+
+    @Test
+    void parsesQuotedCsvCells() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), DeviceImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+    }
+
+    /**
+     * 只记录提交与回滚次数的事务管理器
+     */
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private int commits;
+
+        private int rollbacks;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
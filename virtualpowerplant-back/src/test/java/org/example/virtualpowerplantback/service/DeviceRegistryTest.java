@@ -0,0 +1,78 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceRegistryTest {
+
+    private final List<VppDevice> table = new ArrayList<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final DeviceRegistry registry = new DeviceRegistry((VppDeviceRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{VppDeviceRepository.class}, (proxy, method, args) -> {
+                if (method.getName().equals("findAll") && method.getParameterCount() == 0) {
+                    queries.incrementAndGet();
+                    return new ArrayList<>(table);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+
+    private static VppDevice device(long id, String ip, int slaveId, VppDevice.DeviceType type, boolean enabled) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setName("device-" + id);
+        device.setIpAddress(ip);
+        device.setPort(502);
+        device.setSlaveId(slaveId);
+        device.setDeviceType(type);
+        device.setEnabled(enabled);
+        return device;
+    }
+
+    @Test
+    void loadsOnceAndServesIndexesFromMemory() {
+        table.add(device(2, "10.0.0.1", 2, VppDevice.DeviceType.SOLAR_PANEL, true));
+        table.add(device(1, "10.0.0.1", 1, VppDevice.DeviceType.ELECTRIC_METER, true));
+        table.add(device(3, "10.0.0.2", 1, VppDevice.DeviceType.SOLAR_PANEL, false));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(registry.get(1L).isPresent());
+        }
+        assertEquals(1, queries.get());
+        assertEquals(Long.valueOf(1), registry.getAll().get(0).getId());
+        assertEquals(2, registry.getEnabled().size());
+        assertEquals(2, registry.getByType(VppDevice.DeviceType.SOLAR_PANEL).size());
+        assertEquals(2, registry.getByEndpoint("10.0.0.1", 502).size());
+        assertEquals(Long.valueOf(2), registry.getByEndpoint("10.0.0.1", 502, 2).orElseThrow().getId());
+        assertFalse(registry.getByEndpoint("10.0.0.1", 502, 9).isPresent());
+    }
+
+    @Test
+    void appliesWritesAndReloadsAfterInvalidate() {
+        table.add(device(1, "10.0.0.1", 1, VppDevice.DeviceType.ELECTRIC_METER, true));
+        assertEquals(1, registry.getEnabled().size());
+
+        registry.put(device(1, "10.0.0.1", 1, VppDevice.DeviceType.ELECTRIC_METER, false));
+        registry.put(device(5, "10.0.0.5", 1, VppDevice.DeviceType.INVERTER, true));
+        assertEquals(Long.valueOf(5), registry.getEnabled().get(0).getId());
+        registry.remove(5L);
+        assertTrue(registry.getEnabled().isEmpty());
+        assertEquals(1, queries.get());
+
+        table.add(device(7, "10.0.0.7", 1, VppDevice.DeviceType.INVERTER, true));
+        registry.invalidateAll();
+        assertEquals(2, registry.getAll().size());
+        assertEquals(2, queries.get());
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeviceSimulationTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static final long MIDNIGHT = LocalDateTime.of(2024, 6, 1, 0, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @Test
+    void sameSeedGivesSameSeries() {
+        DeviceSimulation a = new DeviceSimulation(VppDevice.DeviceType.WIND_TURBINE, 0, 42L);
+        DeviceSimulation b = new DeviceSimulation(VppDevice.DeviceType.WIND_TURBINE, 0, 42L);
+        TelemetrySample sa = new TelemetrySample(1L);
+        TelemetrySample sb = new TelemetrySample(1L);
+        for (int i = 0; i < 1000; i++) {
+            a.next(MIDNIGHT + i * MINUTE, sa);
+            b.next(MIDNIGHT + i * MINUTE, sb);
+            assertEquals(sa.toJson(), sb.toJson());
+        }
+    }
+
+    @Test
+    void meterEnergyIsMonotonicInMegawattHours() {
+        DeviceSimulation meter = new DeviceSimulation(VppDevice.DeviceType.ELECTRIC_METER, 0, 7L);
+        TelemetrySample sample = new TelemetrySample(1L);
+        meter.next(MIDNIGHT, sample);
+        double first = sample.get(TelemetryMetric.ENERGY);
+        double last = first;
+        for (int i = 1; i < 3 * 24 * 60; i++) {
+            meter.next(MIDNIGHT + i * MINUTE, sample);
+            double energy = sample.get(TelemetryMetric.ENERGY);
+            assertTrue(energy >= last);
+            last = energy;
+        }
+        // 额定10kW的电表三天最多累计0.72MWh
+        assertTrue(first < 100);
+        assertTrue(last - first > 0 && last - first <= 0.72);
+    }
+
+    @Test
+    void storageSocFollowsChargeAndDischarge() {
+        DeviceSimulation storage = new DeviceSimulation(VppDevice.DeviceType.ENERGY_STORAGE, 20, 7L);
+        TelemetrySample sample = new TelemetrySample(1L);
+        storage.next(MIDNIGHT + 10 * 60 * MINUTE, sample);
+        double before = sample.get(TelemetryMetric.SOC);
+        storage.next(MIDNIGHT + 11 * 60 * MINUTE, sample);
+        assertEquals(1L, (long) sample.get(TelemetryMetric.STATUS_CODE));
+        assertTrue(sample.get(TelemetryMetric.POWER) < 0);
+        assertTrue(sample.get(TelemetryMetric.SOC) > before);
+
+        storage.next(MIDNIGHT + 18 * 60 * MINUTE, sample);
+        before = sample.get(TelemetryMetric.SOC);
+        storage.next(MIDNIGHT + 19 * 60 * MINUTE, sample);
+        assertEquals(2L, (long) sample.get(TelemetryMetric.STATUS_CODE));
+        assertTrue(sample.get(TelemetryMetric.SOC) < before);
+    }
+
+    @Test
+    void solarIsDarkAtNight() {
+        DeviceSimulation solar = new DeviceSimulation(VppDevice.DeviceType.SOLAR_PANEL, 0, 7L);
+        TelemetrySample sample = new TelemetrySample(1L);
+        solar.next(MIDNIGHT + 2 * 60 * MINUTE, sample);
+        assertEquals(0.0, sample.get(TelemetryMetric.POWER), 0.0);
+        solar.next(MIDNIGHT + 12 * 60 * MINUTE, sample);
+        assertTrue(sample.get(TelemetryMetric.POWER) > 0);
+    }
+
+    @Test
+    void windPowerCurve() {
+        assertEquals(0.0, DeviceSimulation.windPower(2.9), 0.0);
+        assertEquals(10000.0, DeviceSimulation.windPower(15), 0.0);
+        assertEquals(0.0, DeviceSimulation.windPower(25), 0.0);
+        assertTrue(DeviceSimulation.windPower(6) < DeviceSimulation.windPower(9));
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.config.AggregationProperties;
+import org.example.virtualpowerplantback.dto.FleetSnapshot;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FleetAggregationServiceTest {
+
+    private final FleetAggregationService service = new FleetAggregationService(new AggregationProperties(), null, null);
+
+    private static VppDevice device(long id, VppDevice.DeviceType type, String group) {
+        VppDevice device = new VppDevice();
+        device.setId(id);
+        device.setDeviceType(type);
+        device.setGroupName(group);
+        return device;
+    }
+
+    private static TelemetrySample sample(long id, double power, double soc) {
+        TelemetrySample sample = new TelemetrySample(id);
+        sample.set(TelemetryMetric.POWER, power);
+        if (!Double.isNaN(soc)) {
+            sample.set(TelemetryMetric.SOC, soc);
+        }
+        return sample;
+    }
+
+    @Test
+    void replacesPreviousContributionIncrementally() {
+        VppDevice solar = device(1, VppDevice.DeviceType.SOLAR_PANEL, "A");
+        VppDevice wind = device(2, VppDevice.DeviceType.WIND_TURBINE, "B");
+        service.accept(solar, sample(1, 30, Double.NaN));
+        service.accept(wind, sample(2, 8, Double.NaN));
+        service.accept(solar, sample(1, 42, Double.NaN));
+
+        FleetSnapshot snapshot = service.getSnapshot();
+        assertEquals(2, snapshot.getDevices());
+        assertEquals(50.0, snapshot.getGenerationPower(), 1e-9);
+        assertEquals(42.0, snapshot.getByType().get(VppDevice.DeviceType.SOLAR_PANEL).getPower(), 1e-9);
+        assertEquals(42.0, snapshot.getByGroup().get("A").getPower(), 1e-9);
+        assertEquals(8.0, snapshot.getByGroup().get("B").getPower(), 1e-9);
+    }
+
+    @Test
+    void weightsStorageCapacityBySocAndDropsEvictedDevices() {
+        VppDevice storage = device(3, VppDevice.DeviceType.ENERGY_STORAGE, null);
+        storage.setRatedCapacity(new BigDecimal("200"));
+        VppDevice load = device(4, VppDevice.DeviceType.LOAD_CONTROLLER, null);
+        service.accept(storage, sample(3, -15, 60));
+        service.accept(load, sample(4, 12, Double.NaN));
+
+        FleetSnapshot snapshot = service.getSnapshot();
+        assertEquals(120.0, snapshot.getStorageAvailableEnergy(), 1e-9);
+        assertEquals(200.0, snapshot.getStorageCapacity(), 1e-9);
+        assertEquals(-15.0, snapshot.getStoragePower(), 1e-9);
+        assertEquals(12.0, snapshot.getControllableLoad(), 1e-9);
+
+        service.evict(3L);
+        snapshot = service.getSnapshot();
+        assertEquals(1, snapshot.getDevices());
+        assertEquals(0.0, snapshot.getStorageAvailableEnergy(), 1e-9);
+        assertNull(snapshot.getByType().get(VppDevice.DeviceType.ENERGY_STORAGE));
+    }
+
+    @Test
+    void ignoresNonFinitePower() {
+        VppDevice solar = device(5, VppDevice.DeviceType.SOLAR_PANEL, "A");
+        service.accept(solar, sample(5, 20, Double.NaN));
+        service.accept(solar, sample(5, Double.POSITIVE_INFINITY, Double.NaN));
+        service.accept(device(6, VppDevice.DeviceType.SOLAR_PANEL, "A"), sample(6, Double.NaN, Double.NaN));
+
+        FleetSnapshot snapshot = service.getSnapshot();
+        assertEquals(1, snapshot.getDevices());
+        assertEquals(20.0, snapshot.getGenerationPower(), 1e-9);
+        assertEquals(20.0, snapshot.getByGroup().get("A").getPower(), 1e-9);
+    }
+
+    @Test
+    void resumRemovesAccumulatedRoundingError() {
+        VppDevice large = device(7, VppDevice.DeviceType.WIND_TURBINE, "A");
+        VppDevice small = device(8, VppDevice.DeviceType.WIND_TURBINE, "A");
+        service.accept(large, sample(7, 1e16, Double.NaN));
+        service.accept(small, sample(8, 1, Double.NaN));
+        service.evict(7L);
+
+        // 1被1e16吸收，增量减去后合计丢失
+        assertEquals(0.0, service.getSnapshot().getGenerationPower(), 1e-9);
+
+        service.resum();
+        FleetSnapshot snapshot = service.getSnapshot();
+        assertEquals(1, snapshot.getDevices());
+        assertEquals(1.0, snapshot.getGenerationPower(), 1e-9);
+        assertEquals(1.0, snapshot.getByGroup().get("A").getPower(), 1e-9);
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.TelemetrySegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GorillaCodecTest {
+
+    @Test
+    void roundTripsIrregularTimestampsAndValues() {
+        Random random = new Random(42);
+        int count = 500;
+        long[] timestamps = new long[count];
+        double[] voltage = new double[count];
+        double[] power = new double[count];
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            // 大部分间隔固定，偶尔抖动或长时间中断
+            time += i % 50 == 0 ? 3_600_000L : 60_000L + (i % 7 == 0 ? random.nextInt(3000) - 1500 : 0);
+            timestamps[i] = time;
+            voltage[i] = i % 3 == 0 ? 220.0 : Math.round((215 + random.nextDouble() * 10) * 10) / 10.0;
+            power[i] = i % 11 == 0 ? Double.NaN : -500 + random.nextDouble() * 1000;
+        }
+
+        byte[] data = GorillaCodec.encode(timestamps, new double[][]{voltage, power}, count);
+
+        assertEquals(count, GorillaCodec.count(data));
+        assertEquals(2, GorillaCodec.columnCount(data));
+        assertArrayEquals(timestamps, GorillaCodec.decodeTimestamps(data));
+        assertArrayEquals(voltage, GorillaCodec.decodeColumn(data, 0));
+        assertArrayEquals(power, GorillaCodec.decodeColumn(data, 1));
+    }
+
+    @Test
+    void roundTripsDeltaOfDeltaAtEveryRangeBoundary() {
+        long[] boundaries = {63, 64, 255, 256, 2047, 2048};
+        List<Long> dods = new ArrayList<>();
+        for (long boundary : boundaries) {
+            dods.add(boundary);
+            dods.add(-boundary);
+            // 回到基准间隔，下一个边界值仍以相同的前一间隔出现
+            dods.add(-boundary);
+            dods.add(boundary);
+        }
+        int count = dods.size() + 2;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        long delta = 10_000L;
+        timestamps[0] = 1_700_000_000_000L;
+        timestamps[1] = timestamps[0] + delta;
+        for (int i = 2; i < count; i++) {
+            delta += dods.get(i - 2);
+            timestamps[i] = timestamps[i - 1] + delta;
+        }
+
+        byte[] data = GorillaCodec.encode(timestamps, new double[][]{values}, count);
+
+        assertArrayEquals(timestamps, GorillaCodec.decodeTimestamps(data));
+    }
+
+    @Test
+    void compressesRegularSamples() {
+        int count = 1440;
+        long[] timestamps = new long[count];
+        double[] status = new double[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 60_000L;
+            status[i] = 1;
+        }
+
+        byte[] data = GorillaCodec.encode(timestamps, new double[][]{status}, count);
+
+        // 固定间隔、不变的值每个样本只需2位
+        assertTrue(data.length <= count * 2 / 8 + 64, "segment too large: " + data.length);
+        assertArrayEquals(timestamps, GorillaCodec.decodeTimestamps(data));
+    }
+
+    @Test
+    void segmentKeepsMetricsThatAppearMidway() {
+        List<TelemetrySample> samples = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TelemetrySample sample = new TelemetrySample(7L, 1_000L * i);
+            sample.set(TelemetryMetric.VOLTAGE, 230 + i);
+            if (i >= 5) {
+                sample.set(TelemetryMetric.SOC, 50.5);
+            }
+            samples.add(sample);
+        }
+
+        TelemetrySegment segment = CompactTelemetryStore.encodeSegment(7L, samples);
+        List<TelemetrySample> decoded = CompactTelemetryStore.decodeSegment(segment);
+
+        assertEquals(Integer.valueOf(10), segment.getSampleCount());
+        assertEquals(10, decoded.size());
+        assertFalse(decoded.get(4).has(TelemetryMetric.SOC));
+        assertEquals(50.5, decoded.get(5).get(TelemetryMetric.SOC), 0.0);
+        assertEquals(239.0, decoded.get(9).get(TelemetryMetric.VOLTAGE), 0.0);
+        assertEquals(9_000L, decoded.get(9).getTimestamp());
+    }
+}
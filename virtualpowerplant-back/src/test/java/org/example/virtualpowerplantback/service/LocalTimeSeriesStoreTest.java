@@ -0,0 +1,93 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.config.LocalStoreProperties;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LocalTimeSeriesStoreTest {
+
+    // 记录头8字节 + 固定部分24字节 + 两个测点
+    private static final int RECORD_BYTES = 8 + 24 + 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scansRangeAcrossSegments() throws Exception {
+        LocalTimeSeriesStore store = open(directory);
+
+        int count = 30_000;
+        for (int i = 0; i < count; i++) {
+            store.append(sample(i % 3, 1_000L * i, i));
+        }
+
+        // 1MB分段放不下全部记录，必然跨分段
+        assertEquals(2, store.getStats().getSegments());
+        List<TelemetrySample> samples = store.scan(1L, 1_000L * 100, 1_000L * 28_000);
+        assertEquals(9_301, samples.size());
+        assertEquals(100.0, samples.get(0).get(TelemetryMetric.POWER), 0.0);
+        assertEquals(28_000L, samples.get(samples.size() - 1).getTimestamp() / 1000);
+        store.close();
+    }
+
+    @Test
+    void truncatesTornTailOnRecovery() throws Exception {
+        LocalTimeSeriesStore store = open(directory);
+        for (int i = 0; i < 10; i++) {
+            store.append(sample(7, 1_000L * i, i));
+        }
+        store.close();
+
+        // 模拟崩溃时写了一半的记录：长度已写入，内容与校验和不匹配
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("seg-")).findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(10L * RECORD_BYTES);
+            file.writeInt(40);
+            file.writeInt(12345);
+            file.writeLong(7);
+        }
+
+        LocalTimeSeriesStore reopened = open(directory);
+        assertEquals(10L, reopened.getStats().getRecovered());
+        assertEquals(1, reopened.getStats().getTruncatedSegments());
+
+        reopened.append(sample(7, 10_000L, 10));
+        List<TelemetrySample> samples = reopened.scan(7L, 0, Long.MAX_VALUE);
+        assertEquals(11, samples.size());
+        assertEquals(10.0, samples.get(10).get(TelemetryMetric.POWER), 0.0);
+        assertFalse(samples.get(10).has(TelemetryMetric.SOC));
+        reopened.close();
+    }
+
+    private static LocalTimeSeriesStore open(Path directory) throws Exception {
+        LocalStoreProperties properties = new LocalStoreProperties();
+        properties.setEnabled(true);
+        properties.setMode(LocalStoreProperties.Mode.PRIMARY);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeMb(1);
+        LocalTimeSeriesStore store = new LocalTimeSeriesStore(properties, null, null, true);
+        store.open();
+        return store;
+    }
+
+    private static TelemetrySample sample(long deviceId, long timestamp, double power) {
+        TelemetrySample sample = new TelemetrySample(deviceId, timestamp);
+        sample.set(TelemetryMetric.POWER, power);
+        sample.set(TelemetryMetric.VOLTAGE, 220.5);
+        return sample;
+    }
+}
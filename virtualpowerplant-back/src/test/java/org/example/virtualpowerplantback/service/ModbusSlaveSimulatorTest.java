@@ -0,0 +1,150 @@
+package org.example.virtualpowerplantback.service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.example.virtualpowerplantback.config.RegisterMapProperties;
+import org.example.virtualpowerplantback.config.SlaveSimulatorProperties;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.RegisterPointRepository;
+import org.example.virtualpowerplantback.repository.VppDeviceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModbusSlaveSimulatorTest {
+
+    private static final int PORT = 15020;
+
+    private final SlaveSimulatorProperties properties = new SlaveSimulatorProperties();
+
+    private final List<RegisterPoint> points = new ArrayList<>();
+
+    private final List<VppDevice> simulated = new ArrayList<>();
+
+    private final ModbusSlaveSimulator simulator;
+
+    ModbusSlaveSimulatorTest() {
+        points.add(point("voltage", 0, RegisterPoint.DataType.UINT32, 0.1));
+        points.add(point("soc", 5, RegisterPoint.DataType.UINT16, 0.1));
+        RegisterMapProperties mapProperties = new RegisterMapProperties();
+        mapProperties.setModels(Map.of("ENERGY_STORAGE", points));
+
+        RegisterPointRepository pointRepository = (RegisterPointRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{RegisterPointRepository.class},
+                (proxy, method, args) -> List.of());
+        VppDeviceRepository deviceRepository = (VppDeviceRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{VppDeviceRepository.class},
+                (proxy, method, args) -> List.of());
+
+        simulator = new ModbusSlaveSimulator(properties, new DeviceRegistry(deviceRepository),
+                new RegisterMapService(mapProperties, pointRepository), new DataSimulatorService() {
+                    @Override
+                    public TelemetrySample simulateDeviceData(VppDevice device) {
+                        simulated.add(device);
+                        return super.simulateDeviceData(device);
+                    }
+                });
+    }
+
+    @Test
+    void servesRegisterLayoutOfDefaultDeviceType() {
+        ByteBuf response = exchange(7, 3, 0x03, 0, 6);
+
+        assertEquals(7, response.getUnsignedShort(0));
+        assertEquals(15, response.getUnsignedShort(4));
+        assertEquals(3, response.getUnsignedByte(6));
+        assertEquals(0x03, response.getUnsignedByte(7));
+        assertEquals(12, response.getUnsignedByte(8));
+
+        ByteBuf data = response.slice(9, 12);
+        double voltage = RegisterCodec.decode(points.get(0), data, 0);
+        double soc = RegisterCodec.decode(points.get(1), data, 0);
+        assertTrue(voltage >= 45 && voltage <= 55, "voltage " + voltage);
+        assertTrue(soc >= 0 && soc <= 100, "soc " + soc);
+        assertEquals(1L, simulator.getStats().getResponses());
+    }
+
+    @Test
+    void simulatesEachUnregisteredEndpointSeparately() {
+        exchange(1, 1, 0x03, 0, 6);
+        exchange(2, 2, 0x03, 0, 6);
+        exchange(3, 1, 0x03, 0, 6);
+        EmbeddedChannel other = new EmbeddedChannel();
+        simulator.initPipeline(other.pipeline(), PORT + 1);
+        other.writeInbound(request(4, 1, 0x03, 0, 6));
+
+        assertEquals(4, simulated.size());
+        assertSame(simulated.get(0), simulated.get(2));
+        assertNotEquals(simulated.get(0).getId(), simulated.get(1).getId());
+        assertNotEquals(simulated.get(0).getId(), simulated.get(3).getId());
+        assertEquals(2, (long) simulated.get(1).getSlaveId());
+        assertEquals(PORT + 1, (long) simulated.get(3).getPort());
+        assertTrue(simulated.get(3).getId() < 0);
+    }
+
+    @Test
+    void returnsExceptionsAndDropsAsConfigured() {
+        ByteBuf illegal = exchange(1, 1, 0x10, 0, 1);
+        assertEquals(0x90, illegal.getUnsignedByte(7));
+        assertEquals(1, illegal.getUnsignedByte(8));
+
+        ByteBuf tooMany = exchange(2, 1, 0x03, 0, 126);
+        assertEquals(0x83, tooMany.getUnsignedByte(7));
+        assertEquals(3, tooMany.getUnsignedByte(8));
+
+        properties.setExceptionRate(1);
+        ByteBuf failure = exchange(3, 1, 0x04, 0, 2);
+        assertEquals(0x84, failure.getUnsignedByte(7));
+        assertEquals(4, failure.getUnsignedByte(8));
+
+        properties.setDropRate(1);
+        assertNull(exchange(4, 1, 0x03, 0, 2));
+        // 超出单端口从站数的单元ID不响应
+        properties.setDropRate(0);
+        properties.setExceptionRate(0);
+        assertNull(exchange(5, properties.getUnitsPerPort() + 1, 0x03, 0, 2));
+
+        assertEquals(3L, simulator.getStats().getExceptions());
+        assertEquals(2L, simulator.getStats().getDropped());
+    }
+
+    private ByteBuf exchange(int transactionId, int unitId, int functionCode, int start, int quantity) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        simulator.initPipeline(channel.pipeline(), PORT);
+        channel.writeInbound(request(transactionId, unitId, functionCode, start, quantity));
+        return channel.readOutbound();
+    }
+
+    private static ByteBuf request(int transactionId, int unitId, int functionCode, int start, int quantity) {
+        ByteBuf request = Unpooled.buffer();
+        request.writeShort(transactionId);
+        request.writeShort(0);
+        request.writeShort(6);
+        request.writeByte(unitId);
+        request.writeByte(functionCode);
+        request.writeShort(start);
+        request.writeShort(quantity);
+        return request;
+    }
+
+    private static RegisterPoint point(String name, int address, RegisterPoint.DataType type, Double scale) {
+        RegisterPoint point = new RegisterPoint();
+        point.setName(name);
+        point.setAddress(address);
+        point.setDataType(type);
+        point.setScale(scale);
+        return point;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.virtualpowerplantback.service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.example.virtualpowerplantback.dto.RegisterBlock;
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegisterCodecTest {
+
+    @Test
+    void mergesNearbyPointsAndSplitsOnLargeGaps() {
+        List<RegisterPoint> points = new ArrayList<>();
+        points.add(point("voltage", 0, RegisterPoint.DataType.UINT32, 0.1));
+        points.add(point("power", 4, RegisterPoint.DataType.UINT32, 1.0));
+        points.add(point("statusCode", 12, RegisterPoint.DataType.UINT16, null));
+        points.add(point("alarm", 300, RegisterPoint.DataType.UINT16, null));
+
+        List<RegisterBlock> blocks = RegisterCodec.planBlocks(points, 8);
+
+        assertEquals(2, blocks.size());
+        assertEquals(0, blocks.get(0).getStartAddress());
+        assertEquals(13, blocks.get(0).getQuantity());
+        assertEquals(3, blocks.get(0).getPoints().size());
+        assertEquals(300, blocks.get(1).getStartAddress());
+        assertEquals(1, blocks.get(1).getQuantity());
+    }
+
+    @Test
+    void respectsPduLimitAndTables() {
+        List<RegisterPoint> points = new ArrayList<>();
+        for (int address = 0; address < 200; address += 2) {
+            points.add(point("p" + address, address, RegisterPoint.DataType.UINT32, null));
+        }
+        RegisterPoint coil = point("breaker", 3, RegisterPoint.DataType.BOOL, null);
+        coil.setTable(RegisterPoint.RegisterTable.COIL);
+        points.add(coil);
+
+        List<RegisterBlock> blocks = RegisterCodec.planBlocks(points, 8);
+
+        assertEquals(3, blocks.size());
+        blocks.stream()
+                .filter(block -> block.getTable() == RegisterPoint.RegisterTable.HOLDING)
+                .forEach(block -> assertEquals(true, block.getQuantity() <= 125));
+        assertEquals(1, blocks.stream().filter(b -> b.getTable() == RegisterPoint.RegisterTable.COIL).count());
+    }
+
+    @Test
+    void decodesDataTypesAndEndianness() {
+        // 地址10起: 0x0001 0x86A0 | 0x86A0 0x0001 | 0xFF38 | float 230.5 (0x43668000)
+        ByteBuf buffer = Unpooled.wrappedBuffer(new byte[]{
+                0x00, 0x01, (byte) 0x86, (byte) 0xA0,
+                (byte) 0x86, (byte) 0xA0, 0x00, 0x01,
+                (byte) 0xFF, 0x38,
+                0x43, 0x66, (byte) 0x80, 0x00
+        });
+
+        RegisterPoint abcd = point("a", 10, RegisterPoint.DataType.UINT32, 0.01);
+        RegisterPoint cdab = point("b", 12, RegisterPoint.DataType.UINT32, null);
+        cdab.setEndianness(RegisterPoint.Endianness.CDAB);
+        RegisterPoint int16 = point("c", 14, RegisterPoint.DataType.INT16, 0.1);
+        RegisterPoint float32 = point("d", 15, RegisterPoint.DataType.FLOAT32, null);
+        RegisterPoint outOfRange = point("e", 20, RegisterPoint.DataType.UINT16, null);
+
+        assertEquals(1000.0, RegisterCodec.decode(abcd, buffer, 10), 1e-9);
+        assertEquals(100000.0, RegisterCodec.decode(cdab, buffer, 10), 1e-9);
+        assertEquals(-20.0, RegisterCodec.decode(int16, buffer, 10), 1e-9);
+        assertEquals(230.5, RegisterCodec.decode(float32, buffer, 10), 1e-9);
+        assertTrue(Double.isNaN(RegisterCodec.decode(outOfRange, buffer, 10)));
+    }
+
+    @Test
+    void encodeIsInverseOfDecode() {
+        byte[] data = new byte[16];
+        List<RegisterPoint> points = new ArrayList<>();
+        for (RegisterPoint.Endianness endianness : RegisterPoint.Endianness.values()) {
+            RegisterPoint point = point("p" + endianness, points.size() * 2, RegisterPoint.DataType.INT32, 0.001);
+            point.setEndianness(endianness);
+            points.add(point);
+        }
+        RegisterPoint float32 = point("f", 8, RegisterPoint.DataType.FLOAT32, null);
+        float32.setEndianness(RegisterPoint.Endianness.CDAB);
+        RegisterPoint int16 = point("i", 10, RegisterPoint.DataType.INT16, 0.1);
+
+        for (RegisterPoint point : points) {
+            RegisterCodec.encode(point, -77.987, data, 0);
+        }
+        RegisterCodec.encode(float32, 230.5, data, 0);
+        RegisterCodec.encode(int16, -20.0, data, 0);
+
+        ByteBuf buffer = Unpooled.wrappedBuffer(data);
+        for (RegisterPoint point : points) {
+            assertEquals(-77.987, RegisterCodec.decode(point, buffer, 0), 1e-9);
+        }
+        assertEquals(230.5, RegisterCodec.decode(float32, buffer, 0), 1e-9);
+        assertEquals(-20.0, RegisterCodec.decode(int16, buffer, 0), 1e-9);
+    }
+
+    @Test
+    void decodesBlockIntoSampleSlots() {
+        List<RegisterPoint> points = new ArrayList<>();
+        points.add(point("voltage", 0, RegisterPoint.DataType.UINT16, 0.1));
+        points.add(point("statusCode", 1, RegisterPoint.DataType.UINT16, null));
+        points.add(point("alarm", 2, RegisterPoint.DataType.UINT16, null));
+        RegisterBlock block = RegisterCodec.planBlocks(points, 8).get(0);
+
+        ByteBuf buffer = Unpooled.wrappedBuffer(new byte[]{0x08, (byte) 0x9A, 0x00, 0x02, 0x00, 0x07});
+        TelemetrySample sample = new TelemetrySample(1L, 0L);
+        RegisterCodec.decodeBlock(block, buffer, sample);
+
+        assertEquals(220.2, sample.get(TelemetryMetric.VOLTAGE), 1e-9);
+        assertEquals(Integer.valueOf(2), sample.getInteger(TelemetryMetric.STATUS_CODE));
+        assertEquals(0, new BigDecimal("220.20").compareTo(sample.getDecimal(TelemetryMetric.VOLTAGE)));
+        assertFalse(sample.has(TelemetryMetric.CURRENT));
+        assertTrue(sample.toJson().startsWith("{\"voltage\":220.2"));
+        assertTrue(sample.toJson().endsWith(",\"statusCode\":2}"));
+    }
+
+    @Test
+    void writesNonFiniteValuesAsJsonNull() {
+        TelemetrySample sample = new TelemetrySample(1L, 0L);
+        sample.set(TelemetryMetric.VOLTAGE, 220.0);
+        sample.set(TelemetryMetric.POWER, Float.NaN);
+        sample.set(TelemetryMetric.STATUS_CODE, Double.POSITIVE_INFINITY);
+
+        String json = sample.toJson();
+        assertTrue(json.contains("\"voltage\":220.0"));
+        assertTrue(json.contains("\"power\":null"));
+        assertTrue(json.contains("\"statusCode\":null"));
+        assertFalse(json.contains("NaN") || json.contains("Infinity"));
+        assertNull(sample.getDecimal(TelemetryMetric.POWER));
+    }
+
+    private static RegisterPoint point(String name, int address, RegisterPoint.DataType type, Double scale) {
+        RegisterPoint point = new RegisterPoint();
+        point.setModel("TEST");
+        point.setName(name);
+        point.setAddress(address);
+        point.setDataType(type);
+        point.setScale(scale);
+        return point;
+    }
+}
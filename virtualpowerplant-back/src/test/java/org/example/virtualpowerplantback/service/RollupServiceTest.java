@@ -0,0 +1,100 @@
+package org.example.virtualpowerplantback.service;
+
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceDataRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RollupServiceTest {
+
+    @Test
+    void choosesFinestResolutionWithinMaxPoints() {
+        LocalDateTime end = LocalDateTime.of(2025, 1, 31, 0, 0);
+
+        assertEquals(DeviceDataRollup.Resolution.MINUTE_1,
+                RollupService.chooseResolution(end.minusHours(2), end, 500));
+        assertEquals(DeviceDataRollup.Resolution.MINUTE_15,
+                RollupService.chooseResolution(end.minusDays(1), end, 500));
+        assertEquals(DeviceDataRollup.Resolution.HOUR_1,
+                RollupService.chooseResolution(end.minusDays(7), end, 500));
+        assertEquals(DeviceDataRollup.Resolution.DAY_1,
+                RollupService.chooseResolution(end.minusDays(30), end, 300));
+        assertEquals(DeviceDataRollup.Resolution.DAY_1,
+                RollupService.chooseResolution(end.minusDays(3650), end, 100));
+    }
+
+    @Test
+    void alignsBucketsToLocalTime() {
+        LocalDateTime time = LocalDateTime.of(2025, 3, 8, 13, 47, 29);
+
+        assertEquals(LocalDateTime.of(2025, 3, 8, 13, 47), DeviceDataRollup.Resolution.MINUTE_1.bucketOf(time));
+        assertEquals(LocalDateTime.of(2025, 3, 8, 13, 45), DeviceDataRollup.Resolution.MINUTE_15.bucketOf(time));
+        assertEquals(LocalDateTime.of(2025, 3, 8, 13, 0), DeviceDataRollup.Resolution.HOUR_1.bucketOf(time));
+        assertEquals(LocalDateTime.of(2025, 3, 8, 0, 0), DeviceDataRollup.Resolution.DAY_1.bucketOf(time));
+    }
+
+    @Test
+    void accumulatesSamplesPerBucketAndMetric() {
+        RollupService service = new RollupService(null, null, 1000, 500, 30);
+        long base = LocalDateTime.of(2025, 3, 8, 13, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        // 同一分钟内两个样本、下一分钟一个样本，各带两个测点
+        for (long offset : new long[]{0, 30_000, 60_000}) {
+            TelemetrySample sample = new TelemetrySample(7L, base + offset);
+            sample.set(TelemetryMetric.VOLTAGE, 220);
+            sample.set(TelemetryMetric.POWER, 1000);
+            service.accept(sample);
+        }
+        service.accept(TelemetrySample.error(7L, "timeout"));
+
+        // 分钟桶2个，15分钟/小时/日桶各1个，乘以2个测点
+        assertEquals(10, service.pendingBuckets());
+    }
+
+    @Test
+    void skipsNonFiniteValues() {
+        RollupService service = new RollupService(null, null, 1000, 500, 30);
+        TelemetrySample sample = new TelemetrySample(7L, System.currentTimeMillis());
+        sample.set(TelemetryMetric.VOLTAGE, 220);
+        sample.set(TelemetryMetric.POWER, Double.POSITIVE_INFINITY);
+        sample.set(TelemetryMetric.CURRENT, Double.NaN);
+        service.accept(sample);
+
+        // 只有电压计入4个分辨率的时间桶
+        assertEquals(4, service.pendingBuckets());
+    }
+
+    @Test
+    void discardsBucketsAfterMaxRetries() {
+        int[] attempts = new int[1];
+        JdbcTemplate jdbc = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                attempts[0]++;
+                throw new DataAccessResourceFailureException("连接断开");
+            }
+        };
+        RollupService service = new RollupService(jdbc, null, 1000, 500, 2);
+        TelemetrySample sample = new TelemetrySample(7L, System.currentTimeMillis());
+        sample.set(TelemetryMetric.VOLTAGE, 220);
+        service.accept(sample);
+
+        service.flush();
+        service.flush();
+        assertEquals(4, service.pendingBuckets());
+        service.flush();
+        assertEquals(0, service.pendingBuckets());
+        service.flush();
+        assertEquals(3, attempts[0]);
+    }
+}
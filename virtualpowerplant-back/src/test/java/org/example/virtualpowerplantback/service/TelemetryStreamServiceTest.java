@@ -0,0 +1,38 @@
+package org.example.virtualpowerplantback.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.virtualpowerplantback.dto.StreamStats;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TelemetryStreamServiceTest {
+
+    @Test
+    void subscriberMatchedByDeviceAndTypeReceivesOneEvent() throws InterruptedException {
+        TelemetryStreamService service = new TelemetryStreamService(new ObjectMapper(), 60_000, 10, 2);
+        service.subscribe(List.of(1L), List.of(VppDevice.DeviceType.ELECTRIC_METER));
+
+        DeviceData data = new DeviceData();
+        data.setDeviceId(1L);
+        data.setPower(new BigDecimal("1200.50"));
+        service.publishData(data, VppDevice.DeviceType.ELECTRIC_METER);
+
+        StreamStats stats = service.getStats();
+        for (int i = 0; i < 200 && stats.getSent() == 0; i++) {
+            Thread.sleep(10);
+            stats = service.getStats();
+        }
+        Thread.sleep(50);
+        stats = service.getStats();
+        service.shutdown();
+
+        assertEquals(1L, stats.getSent());
+        assertEquals(0L, stats.getConflated());
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.dto.TelemetryWriterStats;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelemetryWriterTest {
+
+    @Test
+    void batchesPreservePerDeviceOrderAndDrainOnStop() {
+        RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate(null);
+        TelemetryWriter writer = new TelemetryWriter(jdbc, new VppMetrics(new SimpleMeterRegistry()), 1024, 4, 200, 50,
+                TelemetryWriter.BackpressurePolicy.BLOCK, 5000, 0, 10000);
+        writer.start();
+
+        int devices = 50;
+        int perDevice = 400;
+        for (int seq = 0; seq < perDevice; seq++) {
+            for (long deviceId = 1; deviceId <= devices; deviceId++) {
+                assertTrue(writer.submit(record(deviceId, seq)));
+            }
+        }
+        writer.stop();
+
+        assertEquals(devices * perDevice, jdbc.rows.size());
+        assertTrue(jdbc.batches < devices * perDevice / 10);
+        Map<Long, Integer> lastSeq = new HashMap<>();
+        for (DeviceData data : jdbc.rows) {
+            int previous = lastSeq.getOrDefault(data.getDeviceId(), -1);
+            assertEquals(previous + 1, (long) data.getStatusCode());
+            lastSeq.put(data.getDeviceId(), data.getStatusCode());
+        }
+    }
+
+    @Test
+    void dropOldestKeepsNewestRecordsWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate(release);
+        TelemetryWriter writer = new TelemetryWriter(jdbc, new VppMetrics(new SimpleMeterRegistry()), 4, 1, 1, 10,
+                TelemetryWriter.BackpressurePolicy.DROP_OLDEST, 0, 0, 10000);
+        writer.start();
+
+        int total = 20;
+        for (int seq = 0; seq < total; seq++) {
+            assertTrue(writer.submit(record(1L, seq)));
+        }
+        release.countDown();
+        writer.stop();
+
+        TelemetryWriterStats stats = writer.getStats();
+        assertEquals(total, stats.getWritten() + stats.getDropped());
+        assertTrue(stats.getDropped() >= total - 6);
+        assertEquals(total - 1, (long) jdbc.rows.get(jdbc.rows.size() - 1).getStatusCode());
+    }
+
+    @Test
+    void unexpectedWriteErrorsAreCountedAsFailed() {
+        JdbcTemplate jdbc = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                throw new IllegalStateException("bind failed");
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TelemetryWriter writer = new TelemetryWriter(jdbc, new VppMetrics(registry), 1024, 2, 50, 10,
+                TelemetryWriter.BackpressurePolicy.BLOCK, 5000, 3, 10000);
+        writer.start();
+
+        int total = 120;
+        for (int seq = 0; seq < total; seq++) {
+            assertTrue(writer.submit(record(seq % 7, seq)));
+        }
+        writer.stop();
+
+        TelemetryWriterStats stats = writer.getStats();
+        assertEquals(0, stats.getWritten());
+        assertEquals(total, stats.getFailed());
+        assertTrue(registry.find("vpp.telemetry.insert").tag("outcome", "error").timer().count() > 0);
+    }
+
+    private static DeviceData record(long deviceId, int seq) {
+        DeviceData data = new DeviceData();
+        data.setDeviceId(deviceId);
+        data.setStatusCode(seq);
+        data.setCollectTime(LocalDateTime.now());
+        return data;
+    }
+
+    /**
+     * 记录批量写入内容的JdbcTemplate，可选择阻塞直到放行
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final CountDownLatch release;
+
+        private final List<DeviceData> rows = new ArrayList<>();
+
+        private int batches;
+
+        RecordingJdbcTemplate(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                                    ParameterizedPreparedStatementSetter<T> pss) {
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            rows.addAll((Collection<DeviceData>) batchArgs);
+            batches++;
+            return new int[0][];
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.virtualpowerplantback.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VppMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final VppMetrics metrics = new VppMetrics(registry);
+
+    @Test
+    void tagsByDeviceTypeAndGateway() {
+        VppDevice meter = device(VppDevice.DeviceType.ELECTRIC_METER, 502);
+        VppDevice storage = device(VppDevice.DeviceType.ENERGY_STORAGE, 503);
+        metrics.timeout(meter);
+        metrics.timeout(meter);
+        metrics.timeout(storage);
+        metrics.recordRoundTrip(meter, 5_000_000, VppMetrics.OUTCOME_SUCCESS);
+        metrics.recordRoundTrip(meter, 7_000_000, VppMetrics.OUTCOME_SUCCESS);
+
+        assertEquals(2.0, registry.get("vpp.modbus.timeouts")
+                .tags("type", "ELECTRIC_METER", "gateway", "127.0.0.1:502").counter().count(), 1e-9);
+        assertEquals(1.0, registry.get("vpp.modbus.timeouts")
+                .tags("type", "ENERGY_STORAGE", "gateway", "127.0.0.1:503").counter().count(), 1e-9);
+        assertEquals(2L, registry.get("vpp.modbus.request").tags("outcome", "success").timer().count());
+    }
+
+    @Test
+    void reportsQueueDepthAndInsertStats() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        metrics.registerQueueDepth("collection", queue, Deque::size);
+        queue.add(1);
+        queue.add(2);
+        metrics.recordInsert(500, 20_000_000, true);
+        metrics.recordSampleAge(1500);
+
+        assertEquals(2.0, registry.get("vpp.queue.depth").tags("stage", "collection").gauge().value(), 1e-9);
+        assertEquals(500.0, registry.get("vpp.telemetry.insert.batch.size").summary().totalAmount(), 1e-9);
+        assertEquals(1500.0, registry.get("vpp.telemetry.sample.age").timer()
+                .totalTime(TimeUnit.MILLISECONDS), 1e-9);
+    }
+
+    private static VppDevice device(VppDevice.DeviceType type, int port) {
+        VppDevice device = new VppDevice();
+        device.setDeviceType(type);
+        device.setIpAddress("127.0.0.1");
+        device.setPort(port);
+        return device;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.virtualpowerplantback.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行全部（或按正则筛选的）基准，结果以JSON写入 jmh.result 指定的文件
+ * 不同版本的结果文件可直接用 JMH Visualizer 等工具对比，gc.alloc.rate.norm 为每次操作分配的字节数
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 && !args[0].isBlank() ? args[0] : ".*";
+        String result = System.getProperty("jmh.result", "target/jmh-result.json");
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
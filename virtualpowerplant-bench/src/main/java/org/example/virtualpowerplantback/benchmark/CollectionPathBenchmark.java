@@ -0,0 +1,138 @@
+package org.example.virtualpowerplantback.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.virtualpowerplantback.dto.ApiResponse;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.service.DataSimulatorService;
+import org.example.virtualpowerplantback.service.DeviceSimulation;
+import org.example.virtualpowerplantback.service.VppDeviceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单设备采集路径基准：模拟采样（含按1分钟步长生成历史数据的单步开销）、由样本构建 DeviceData、raw_data 序列化，以及接口返回的 ApiResponse 序列化
+ * ObjectMapper 与 Spring MVC 默认配置一致（注册 JavaTimeModule，日期不写成时间戳）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionPathBenchmark {
+
+    @Param({"ENERGY_STORAGE", "ELECTRIC_METER", "SOLAR_PANEL"})
+    private VppDevice.DeviceType deviceType;
+
+    private final DataSimulatorService simulator = new DataSimulatorService();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private VppDevice device;
+
+    private TelemetrySample sample;
+
+    private DeviceData deviceData;
+
+    private DeviceSimulation history;
+
+    private TelemetrySample historySample;
+
+    private long historyTimestamp;
+
+    private ApiResponse<List<DeviceData>> latestResponse;
+
+    @Setup
+    public void setup() {
+        device = new VppDevice();
+        device.setId(1L);
+        device.setName("基准设备");
+        device.setDeviceType(deviceType);
+
+        sample = simulator.simulateDeviceData(device);
+        deviceData = VppDeviceService.toDeviceData(sample, device.getName(), true);
+
+        history = simulator.newSimulation(device);
+        historySample = new TelemetrySample(device.getId());
+        historyTimestamp = System.currentTimeMillis();
+
+        // /api/vpp/devices/latest 一次返回100台设备的最新数据
+        List<DeviceData> latest = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            TelemetrySample row = simulator.simulateDeviceData(device);
+            DeviceData data = VppDeviceService.toDeviceData(row, "设备" + id, false);
+            data.setId(id);
+            data.setDeviceId(id);
+            latest.add(data);
+        }
+        latestResponse = ApiResponse.success(latest);
+    }
+
+    @Benchmark
+    public TelemetrySample simulateDeviceData() {
+        return simulator.simulateDeviceData(device);
+    }
+
+    @Benchmark
+    public TelemetrySample historyStep() {
+        historyTimestamp += 60_000L;
+        history.next(historyTimestamp, historySample);
+        return historySample;
+    }
+
+    @Benchmark
+    public DeviceData toDeviceData() {
+        return VppDeviceService.toDeviceData(sample, device.getName(), false);
+    }
+
+    @Benchmark
+    public DeviceData toDeviceDataWithRawJson() {
+        return VppDeviceService.toDeviceData(sample, device.getName(), true);
+    }
+
+    @Benchmark
+    public String rawDataJson() {
+        return sample.toJson();
+    }
+
+    @Benchmark
+    public String deviceDataJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(ApiResponse.success(deviceData));
+    }
+
+    @Benchmark
+    public byte[] latestResponseJackson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(latestResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CollectionPathBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.virtualpowerplantback.benchmark;
+
+import org.example.virtualpowerplantback.dto.TelemetryMetric;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.TelemetrySegment;
+import org.example.virtualpowerplantback.service.CompactTelemetryStore;
+import org.example.virtualpowerplantback.service.GorillaCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原始数据存储基准：device_data 行式布局 对比 Gorilla 压缩分段
+ * 启动时打印两种布局每个样本占用的字节数，基准方法比较对6小时范围内功率列的扫描耗时
+ * （行式扫描只遍历内存中的实体，不含数据库IO，是行式布局的下限）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactStorageBenchmark {
+
+    // 一天、10秒一个样本
+    private static final int SAMPLES = 8640;
+
+    private static final int SEGMENT_SAMPLES = 1440;
+
+    /**
+     * device_data 一行除设备名和 raw_data 外的估算字节数：
+     * 定长列（BIGINT×2、DATETIME×2、DECIMAL×8、INT）68字节，InnoDB行头与事务字段约18字节，
+     * idx_device_time 二级索引项约26字节
+     */
+    private static final int ROW_FIXED_BYTES = 68 + 18 + 26;
+
+    private final List<DeviceData> rows = new ArrayList<>(SAMPLES);
+
+    private final List<TelemetrySegment> segments = new ArrayList<>();
+
+    private long rangeStart;
+
+    private long rangeEnd;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(7);
+        long start = 1_700_000_000_000L;
+        List<TelemetrySample> chunk = new ArrayList<>(SEGMENT_SAMPLES);
+        long rowBytes = 0;
+        double soc = 50;
+        for (int i = 0; i < SAMPLES; i++) {
+            TelemetrySample sample = new TelemetrySample(1L, start + i * 10_000L);
+            soc = Math.max(5, Math.min(95, soc + random.nextDouble(-0.05, 0.05)));
+            sample.set(TelemetryMetric.VOLTAGE, round(random.nextDouble(380, 420), 1));
+            sample.set(TelemetryMetric.CURRENT, round(random.nextDouble(-200, 200), 3));
+            sample.set(TelemetryMetric.POWER, round(random.nextDouble(-500, 500), 2));
+            sample.set(TelemetryMetric.SOC, round(soc, 1));
+            sample.set(TelemetryMetric.TEMPERATURE, round(25 + random.nextDouble(-2, 2), 1));
+            sample.set(TelemetryMetric.STATUS_CODE, 1);
+
+            DeviceData row = new DeviceData();
+            row.setDeviceId(1L);
+            row.setDeviceName("储能电站-01");
+            row.setCollectTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(sample.getTimestamp()),
+                    ZoneId.systemDefault()));
+            row.setVoltage(sample.getDecimal(TelemetryMetric.VOLTAGE));
+            row.setCurrent(sample.getDecimal(TelemetryMetric.CURRENT));
+            row.setPower(sample.getDecimal(TelemetryMetric.POWER));
+            row.setSoc(sample.getDecimal(TelemetryMetric.SOC));
+            row.setTemperature(sample.getDecimal(TelemetryMetric.TEMPERATURE));
+            row.setStatusCode(sample.getInteger(TelemetryMetric.STATUS_CODE));
+            row.setRawData(sample.toJson());
+            rows.add(row);
+            rowBytes += ROW_FIXED_BYTES + row.getDeviceName().getBytes(StandardCharsets.UTF_8).length
+                    + row.getRawData().getBytes(StandardCharsets.UTF_8).length;
+
+            chunk.add(sample);
+            if (chunk.size() == SEGMENT_SAMPLES) {
+                segments.add(CompactTelemetryStore.encodeSegment(1L, chunk));
+                chunk = new ArrayList<>(SEGMENT_SAMPLES);
+            }
+        }
+
+        long segmentBytes = segments.stream().mapToLong(segment -> segment.getData().length).sum();
+        System.out.printf("%n行式布局约 %.1f 字节/样本（不含raw_data约 %.1f），压缩分段 %.1f 字节/样本%n",
+                (double) rowBytes / SAMPLES,
+                (double) (SAMPLES * (long) ROW_FIXED_BYTES) / SAMPLES,
+                (double) segmentBytes / SAMPLES);
+
+        rangeStart = start + 9 * 3_600_000L;
+        rangeEnd = start + 15 * 3_600_000L;
+    }
+
+    @Benchmark
+    public double rowScan() {
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(rangeStart), ZoneId.systemDefault());
+        LocalDateTime to = LocalDateTime.ofInstant(Instant.ofEpochMilli(rangeEnd), ZoneId.systemDefault());
+        double sum = 0;
+        for (DeviceData row : rows) {
+            if (!row.getCollectTime().isBefore(from) && !row.getCollectTime().isAfter(to)) {
+                sum += row.getPower().doubleValue();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double segmentScan() {
+        // POWER 在分段中的列号：VOLTAGE、CURRENT 之后
+        int powerColumn = Long.bitCount(segments.get(0).getMetricMask() & ((1L << TelemetryMetric.POWER.slot()) - 1));
+        double sum = 0;
+        for (TelemetrySegment segment : segments) {
+            long first = segment.getStartTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long last = segment.getEndTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (last < rangeStart || first > rangeEnd) {
+                continue;
+            }
+            long[] timestamps = GorillaCodec.decodeTimestamps(segment.getData());
+            double[] power = GorillaCodec.decodeColumn(segment.getData(), powerColumn);
+            for (int i = 0; i < timestamps.length; i++) {
+                if (timestamps[i] >= rangeStart && timestamps[i] <= rangeEnd) {
+                    sum += power[i];
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CompactStorageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
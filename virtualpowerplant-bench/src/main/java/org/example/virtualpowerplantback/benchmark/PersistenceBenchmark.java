@@ -0,0 +1,142 @@
+package org.example.virtualpowerplantback.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.DeviceData;
+import org.example.virtualpowerplantback.entity.VppDevice;
+import org.example.virtualpowerplantback.repository.DeviceDataRepository;
+import org.example.virtualpowerplantback.service.DataSimulatorService;
+import org.example.virtualpowerplantback.service.TelemetryWriter;
+import org.example.virtualpowerplantback.service.VppDeviceService;
+import org.example.virtualpowerplantback.service.VppMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * device_data 入库基准（内嵌H2，MySQL兼容模式）：
+ * JPA saveAll（IDENTITY 主键无法批量插入，逐行INSERT）对比 TelemetryWriter 的 JDBC 批量写入
+ * 结果为写入一批记录的平均耗时，除以 batchSize 即单行耗时；H2 不含网络往返，绝对值只用于版本间对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private DeviceDataRepository deviceDataRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TelemetryWriter telemetryWriter;
+
+    private final List<TelemetrySample> samples = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // 不加载 application.yml，只启动数据源和JPA，不启动采集、调度等业务组件
+        context = new SpringApplicationBuilder(PersistenceConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.config.name=benchmark",
+                        "--spring.datasource.url=jdbc:h2:mem:vpp_bench;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.open-in-view=false",
+                        "--logging.level.root=WARN");
+        deviceDataRepository = context.getBean(DeviceDataRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // 不启动写入线程，直接调用同步批量写入
+        telemetryWriter = new TelemetryWriter(jdbcTemplate, new VppMetrics(new SimpleMeterRegistry()),
+                65536, 1, batchSize, 500, TelemetryWriter.BackpressurePolicy.BLOCK, 1000, 0, 30000);
+
+        DataSimulatorService simulator = new DataSimulatorService();
+        VppDevice device = new VppDevice();
+        device.setDeviceType(VppDevice.DeviceType.ENERGY_STORAGE);
+        for (long id = 1; id <= batchSize; id++) {
+            device.setId(id);
+            samples.add(simulator.simulateDeviceData(device));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE device_data");
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public void repositorySaveAll() {
+        deviceDataRepository.saveAll(rows());
+    }
+
+    @Benchmark
+    public void telemetryWriterBatch() {
+        telemetryWriter.writeBatch(rows());
+    }
+
+    /**
+     * 每次写入都是新实体，避免 saveAll 对已有主键的实体走 merge；
+     * 调用方 TelemetryWriter.submit 会补写入时间，这里直接调用 writeBatch 需自行设置
+     */
+    private List<DeviceData> rows() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DeviceData> rows = new ArrayList<>(samples.size());
+        for (TelemetrySample sample : samples) {
+            DeviceData row = VppDeviceService.toDeviceData(sample, "基准设备", false);
+            row.setCreateTime(now);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = DeviceData.class)
+    @EnableJpaRepositories(basePackageClasses = DeviceDataRepository.class)
+    static class PersistenceConfig {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PersistenceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.virtualpowerplantback.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.example.virtualpowerplantback.dto.RegisterBlock;
+import org.example.virtualpowerplantback.dto.TelemetrySample;
+import org.example.virtualpowerplantback.entity.RegisterPoint;
+import org.example.virtualpowerplantback.service.RegisterCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单设备寄存器解码基准：旧的 Map + BigDecimal + Jackson 路径 对比 槽位样本路径
+ * 运行 main 方法即可，GC profiler 输出的 gc.alloc.rate.norm 即每次解码分配的字节数
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryDecodeBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RegisterBlock block;
+
+    private ByteBuf response;
+
+    @Setup
+    public void setup() {
+        // 与默认 ENERGY_STORAGE 映射一致的一个合并块
+        List<RegisterPoint> points = new ArrayList<>();
+        points.add(point("voltage", 0, RegisterPoint.DataType.UINT16, 0.1));
+        points.add(point("current", 1, RegisterPoint.DataType.INT32, 0.001));
+        points.add(point("power", 3, RegisterPoint.DataType.INT32, 0.01));
+        points.add(point("soc", 5, RegisterPoint.DataType.UINT16, 0.1));
+        points.add(point("temperature", 6, RegisterPoint.DataType.INT16, 0.1));
+        points.add(point("statusCode", 7, RegisterPoint.DataType.UINT16, null));
+        block = RegisterCodec.planBlocks(points, 8).get(0);
+
+        response = Unpooled.wrappedBuffer(new byte[]{
+                0x01, (byte) 0xF4,
+                0x00, 0x00, (byte) 0xC3, 0x50,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xF8, 0x30,
+                0x02, (byte) 0xBC,
+                0x00, (byte) 0xFA,
+                0x00, 0x01
+        });
+    }
+
+    @Benchmark
+    public void legacyMapDecode(Blackhole blackhole) throws JsonProcessingException {
+        Map<String, Object> data = new HashMap<>();
+        for (RegisterPoint point : block.getPoints()) {
+            double value = RegisterCodec.decode(point, response, block.getStartAddress());
+            if (point.getScale() != null) {
+                data.put(point.getName(), BigDecimal.valueOf(value));
+            } else {
+                data.put(point.getName(), (int) value);
+            }
+        }
+        blackhole.consume(data.get("voltage") instanceof BigDecimal);
+        blackhole.consume(objectMapper.writeValueAsString(data));
+    }
+
+    @Benchmark
+    public void sampleDecode(Blackhole blackhole) {
+        TelemetrySample sample = new TelemetrySample(1L, 0L);
+        RegisterCodec.decodeBlock(block, response, sample);
+        blackhole.consume(sample.getPresentMask());
+        blackhole.consume(sample.toJson());
+    }
+
+    private static RegisterPoint point(String name, int address, RegisterPoint.DataType type, Double scale) {
+        RegisterPoint point = new RegisterPoint();
+        point.setModel("BENCH");
+        point.setName(name);
+        point.setAddress(address);
+        point.setDataType(type);
+        point.setScale(scale);
+        return point;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TelemetryDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,6 +1,7 @@
 import React, { useState, useEffect, useRef } from "react";
 import * as echarts from "echarts";
 import "./style.css";
+import apiService from "../../../utils/apiService";
 
 // 生成当前月份的天数标签
 const generateCurrentMonthDays = () => {
@@ -404,15 +405,23 @@ const AggregationControl = () => {
     ],
   });
 
-  // 实时数据更新
+  // 实时数据更新：活跃容量取后端整体汇总的发电功率与可控负荷之和（kW -> MW）
   useEffect(() => {
-    const interval = setInterval(() => {
+    const loadFleetSnapshot = async () => {
+      const result = await apiService.get("/fleet/snapshot");
+      const snapshot = result.success && result.data ? result.data.data : null;
+      if (!snapshot) {
+        return;
+      }
       setRealTimeData((prev) => ({
         ...prev,
-        activeCapacity: prev.activeCapacity + (Math.random() - 0.5) * 50,
-        efficiency: prev.efficiency + (Math.random() - 0.5) * 2,
+        activeCapacity:
+          (snapshot.generationPower + snapshot.controllableLoad) / 1000,
       }));
-    }, 3000);
+    };
+
+    loadFleetSnapshot();
+    const interval = setInterval(loadFleetSnapshot, 30000);
 
     return () => clearInterval(interval);
   }, []);
@@ -924,7 +933,7 @@ const AggregationControl = () => {
           <div className="stat-icon">⚡</div>
           <div className="stat-content">
             <div className="stat-value">
-              {realTimeData.activeCapacity.toFixed(0)} MW
+              {realTimeData.activeCapacity.toFixed(2)} MW
             </div>
             <div className="stat-label">活跃容量</div>
             <div className="stat-change">+1.8%</div>
@@ -211,6 +211,17 @@ class HomeViewApiService {
     async getPowerTrend() {
         return apiService.get('/power/trend');
     }
+
+    // ========== 实时推送 ==========
+
+    /**
+     * 订阅设备在线状态变化与实时数据
+     * @param {Object} handlers - { status, telemetry } 事件处理函数
+     * @returns {Function} 取消订阅函数
+     */
+    subscribeDeviceEvents(handlers) {
+        return apiService.subscribe('/stream', handlers);
+    }
 }
 
 // 创建单例实例
@@ -1017,11 +1017,19 @@ function SystemOverview({ user, currentTime }) {
             }));
         }, 5000); // 增加更新间隔以减少性能消耗
 
-        // 定期更新设备数据 - 减少更新频率
-        const deviceInterval = setInterval(() => {
-            console.log('🔄 定期更新设备数据...');
-            fetchDeviceStats();
-        }, 60000); // 改为每60秒更新一次
+        // 订阅设备状态变化推送，状态变化时刷新设备统计（5秒内最多刷新一次），不再定时轮询
+        let statusRefreshTimer = null;
+        const unsubscribeDeviceEvents = homeViewApiService.subscribeDeviceEvents({
+            status: (event) => {
+                console.log(`🔔 设备状态变化: ${event.deviceName} -> ${event.status}`);
+                if (!statusRefreshTimer) {
+                    statusRefreshTimer = setTimeout(() => {
+                        statusRefreshTimer = null;
+                        fetchDeviceStats();
+                    }, 5000);
+                }
+            }
+        });
 
         // 模拟实时告警生成
         const alertInterval = setInterval(() => {
@@ -1043,7 +1051,8 @@ function SystemOverview({ user, currentTime }) {
 
         return () => {
             clearInterval(interval);
-            clearInterval(deviceInterval);
+            unsubscribeDeviceEvents();
+            if (statusRefreshTimer) clearTimeout(statusRefreshTimer);
             clearInterval(alertInterval);
             clearInterval(tradingInterval);
             stopAutoScroll();
@@ -103,6 +103,39 @@ class ApiService {
         });
     }
 
+    /**
+     * 订阅服务端推送（SSE），断线后由浏览器自动重连
+     * @param {string} url - 订阅地址
+     * @param {Object} handlers - 事件名到处理函数的映射，处理函数接收解析后的JSON
+     * @param {Object} params - 查询参数，数组会展开为多个同名参数
+     * @returns {Function} 取消订阅函数
+     */
+    subscribe(url, handlers = {}, params = {}) {
+        if (typeof EventSource === 'undefined') {
+            console.warn('当前浏览器不支持EventSource');
+            return () => {};
+        }
+        const query = new URLSearchParams();
+        Object.entries(params).forEach(([key, value]) => {
+            (Array.isArray(value) ? value : [value]).forEach(item => query.append(key, item));
+        });
+        const queryString = query.toString();
+        const fullUrl = `${this.baseURL}${url}${queryString ? `?${queryString}` : ''}`;
+
+        const source = new EventSource(fullUrl);
+        Object.entries(handlers).forEach(([eventName, handler]) => {
+            source.addEventListener(eventName, event => {
+                try {
+                    handler(JSON.parse(event.data));
+                } catch (error) {
+                    console.error('推送数据解析失败:', error);
+                }
+            });
+        });
+        source.onerror = () => console.warn('推送连接中断，浏览器将自动重连');
+        return () => source.close();
+    }
+
     // ========== 基础请求方法已提供，具体API调用请在各页面中实现 ==========
 }
 